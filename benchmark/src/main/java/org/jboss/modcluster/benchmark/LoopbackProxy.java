@@ -0,0 +1,139 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal stand-in for a proxy on the loopback interface, which answers every MCMP request with a canned response as cheaply as
+ * possible, such that benchmarks measure the cost of the client rather than of the proxy.
+ */
+public class LoopbackProxy implements Closeable {
+    private static final byte[] EMPTY = response("");
+    private static final byte[] STATUS = response("Type=STATUS-RSP&JVMRoute=node1&State=OK&id=1");
+
+    private final ServerSocket server;
+    private final byte[] info;
+
+    /**
+     * @param info body of the responses to INFO requests
+     */
+    public LoopbackProxy(String info) throws IOException {
+        this.info = response(info);
+        this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                LoopbackProxy.this.accept();
+            }
+        }, LoopbackProxy.class.getSimpleName());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public InetSocketAddress getAddress() {
+        return new InetSocketAddress(this.server.getInetAddress(), this.server.getLocalPort());
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.server.close();
+    }
+
+    private void accept() {
+        while (!this.server.isClosed()) {
+            try {
+                final Socket socket = this.server.accept();
+                socket.setTcpNoDelay(true);
+
+                Thread worker = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        LoopbackProxy.this.serve(socket);
+                    }
+                }, LoopbackProxy.class.getSimpleName());
+                worker.setDaemon(true);
+                worker.start();
+            } catch (IOException e) {
+                // Server was closed
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket closeable = socket) {
+            InputStream input = new BufferedInputStream(socket.getInputStream());
+            OutputStream output = new BufferedOutputStream(socket.getOutputStream());
+            StringBuilder line = new StringBuilder();
+
+            while (true) {
+                // Request line
+                if (!readLine(input, line)) {
+                    return;
+                }
+                String requestLine = line.toString();
+                byte[] response = requestLine.startsWith("STATUS") ? STATUS : requestLine.startsWith("INFO") ? this.info : EMPTY;
+
+                // Headers
+                int contentLength = 0;
+                while (readLine(input, line) && (line.length() > 0)) {
+                    if ((line.length() > 15) && line.substring(0, 15).equalsIgnoreCase("Content-Length:")) {
+                        contentLength = Integer.parseInt(line.substring(15).trim());
+                    }
+                }
+
+                // Body
+                for (int i = 0; i < contentLength; ++i) {
+                    if (input.read() < 0) {
+                        return;
+                    }
+                }
+
+                output.write(response);
+                output.flush();
+            }
+        } catch (IOException e) {
+            // Connection was closed
+        }
+    }
+
+    /**
+     * Reads a line into the specified buffer, without its terminator.
+     *
+     * @return false, if the end of the stream was reached
+     */
+    private static boolean readLine(InputStream input, StringBuilder line) throws IOException {
+        line.setLength(0);
+        for (int b = input.read(); b != '\n'; b = input.read()) {
+            if (b < 0) {
+                return false;
+            }
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return true;
+    }
+
+    private static byte[] response(String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        String headers = "HTTP/1.1 200 OK\r\nContent-Length: " + bytes.length + "\r\nContent-Type: text/plain\r\n\r\n";
+        byte[] response = new byte[headers.length() + bytes.length];
+        System.arraycopy(headers.getBytes(StandardCharsets.US_ASCII), 0, response, 0, headers.length());
+        System.arraycopy(bytes, 0, response, headers.length(), bytes.length);
+        return response;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.benchmark;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.modcluster.config.ProxyConfiguration;
+import org.jboss.modcluster.config.impl.ModClusterConfig;
+import org.jboss.modcluster.config.impl.ProxyConfigurationImpl;
+import org.jboss.modcluster.container.Server;
+import org.jboss.modcluster.mcmp.ContextFilter;
+import org.jboss.modcluster.mcmp.MCMPConnectionListener;
+import org.jboss.modcluster.mcmp.MCMPHandler;
+import org.jboss.modcluster.mcmp.MCMPRequest;
+import org.jboss.modcluster.mcmp.MCMPRequestFactory;
+import org.jboss.modcluster.mcmp.MCMPServerState;
+import org.jboss.modcluster.mcmp.ResetRequestSource;
+import org.jboss.modcluster.mcmp.impl.DefaultMCMPHandler;
+import org.jboss.modcluster.mcmp.impl.DefaultMCMPRequestFactory;
+import org.jboss.modcluster.mcmp.impl.DefaultMCMPResponseParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link DefaultMCMPHandler#sendRequest(MCMPRequest)} end-to-end, i.e. encoding the request, the round trip to a
+ * {@link LoopbackProxy} over a pooled connection and decoding its response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MCMPHandlerBenchmark {
+
+    /** Number of contexts listed in the responses to INFO requests */
+    @Param({ "10", "1000" })
+    private int contexts;
+
+    private final MCMPRequestFactory requestFactory = new DefaultMCMPRequestFactory();
+    private final MCMPRequest statusRequest = this.requestFactory.createStatusRequest("node1", 50);
+    private final MCMPRequest infoRequest = this.requestFactory.createInfoRequest();
+    private LoopbackProxy proxy;
+    private MCMPHandler handler;
+
+    @Setup
+    public void setup() throws IOException {
+        this.proxy = new LoopbackProxy(MCMPResponseParserBenchmark.createInfoResponse(this.contexts));
+
+        ModClusterConfig config = new ModClusterConfig();
+        ProxyConfiguration proxyConfiguration = new ProxyConfigurationImpl(this.proxy.getAddress());
+
+        this.handler = new DefaultMCMPHandler(config, new EmptyResetRequestSource(), this.requestFactory, new DefaultMCMPResponseParser());
+        this.handler.init(Collections.singletonList(proxyConfiguration), new MCMPConnectionListener() {
+            @Override
+            public void connectionEstablished(InetAddress localAddress) {
+            }
+
+            @Override
+            public boolean isEstablished() {
+                return true;
+            }
+        });
+        // Establishes the connection to the proxy
+        this.handler.status();
+
+        if (!this.handler.isProxyHealthOK()) {
+            throw new IllegalStateException(this.handler.getProxyStates().toString());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.handler.shutdown();
+        this.proxy.close();
+    }
+
+    @Benchmark
+    public Map<MCMPServerState, String> sendStatusRequest() {
+        return this.handler.sendRequest(this.statusRequest);
+    }
+
+    @Benchmark
+    public Map<MCMPServerState, String> sendInfoRequest() {
+        return this.handler.sendRequest(this.infoRequest);
+    }
+
+    /**
+     * Source of reset requests for a node without any contexts.
+     */
+    static class EmptyResetRequestSource implements ResetRequestSource {
+        @Override
+        public void init(Server server, ContextFilter contextFilter) {
+        }
+
+        @Override
+        public List<MCMPRequest> getResetRequests(Map<String, Set<VirtualHost>> response) {
+            return Collections.emptyList();
+        }
+    }
+}
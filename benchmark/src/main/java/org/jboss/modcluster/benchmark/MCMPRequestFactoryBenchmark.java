@@ -0,0 +1,185 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.benchmark;
+
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.modcluster.config.impl.ModClusterConfig;
+import org.jboss.modcluster.container.Connector;
+import org.jboss.modcluster.container.Engine;
+import org.jboss.modcluster.container.Host;
+import org.jboss.modcluster.container.Server;
+import org.jboss.modcluster.mcmp.MCMPRequest;
+import org.jboss.modcluster.mcmp.MCMPRequestFactory;
+import org.jboss.modcluster.mcmp.impl.DefaultMCMPRequestFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks creating the requests sent most often to proxies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MCMPRequestFactoryBenchmark {
+
+    private final MCMPRequestFactory factory = new DefaultMCMPRequestFactory();
+    private final ModClusterConfig config = new ModClusterConfig();
+    private final Engine engine = new BenchmarkEngine(new BenchmarkConnector());
+    private int lbf = 0;
+
+    @Benchmark
+    public MCMPRequest createConfigRequest() {
+        return this.factory.createConfigRequest(this.engine, this.config, this.config);
+    }
+
+    @Benchmark
+    public MCMPRequest createStatusRequest() {
+        // Vary the load factor, as the heartbeat would
+        this.lbf = (this.lbf + 1) % 101;
+        return this.factory.createStatusRequest("node1", this.lbf);
+    }
+
+    /**
+     * Engine with a single proxy connector and no hosts, which is all that is needed to create requests.
+     */
+    static class BenchmarkEngine implements Engine {
+        private final Connector connector;
+        private String jvmRoute = "node1";
+
+        BenchmarkEngine(Connector connector) {
+            this.connector = connector;
+        }
+
+        @Override
+        public String getName() {
+            return "engine";
+        }
+
+        @Override
+        public Server getServer() {
+            return null;
+        }
+
+        @Override
+        public Iterable<Host> getHosts() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Connector getProxyConnector() {
+            return this.connector;
+        }
+
+        @Override
+        public Iterable<Connector> getConnectors() {
+            return Collections.singleton(this.connector);
+        }
+
+        @Override
+        public String getJvmRoute() {
+            return this.jvmRoute;
+        }
+
+        @Override
+        public void setJvmRoute(String jvmRoute) {
+            this.jvmRoute = jvmRoute;
+        }
+
+        @Override
+        public Host findHost(String name) {
+            return null;
+        }
+
+        @Override
+        public String getSessionCookieName() {
+            return DefaultMCMPRequestFactory.DEFAULT_SESSION_COOKIE_NAME;
+        }
+
+        @Override
+        public String getSessionParameterName() {
+            return DefaultMCMPRequestFactory.DEFAULT_SESSION_PARAMETER_NAME;
+        }
+
+        @Override
+        public String getDefaultHost() {
+            return "localhost";
+        }
+    }
+
+    /**
+     * AJP connector listening on the loopback interface.
+     */
+    static class BenchmarkConnector implements Connector {
+        private InetAddress address = InetAddress.getLoopbackAddress();
+
+        @Override
+        public boolean isReverse() {
+            return false;
+        }
+
+        @Override
+        public Type getType() {
+            return Type.AJP;
+        }
+
+        @Override
+        public InetAddress getAddress() {
+            return this.address;
+        }
+
+        @Override
+        public void setAddress(InetAddress address) {
+            this.address = address;
+        }
+
+        @Override
+        public int getPort() {
+            return Type.AJP.getDefaultPort();
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public int getMaxThreads() {
+            return 200;
+        }
+
+        @Override
+        public int getBusyThreads() {
+            return 0;
+        }
+
+        @Override
+        public long getBytesSent() {
+            return 0;
+        }
+
+        @Override
+        public long getBytesReceived() {
+            return 0;
+        }
+
+        @Override
+        public long getRequestCount() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.modcluster.mcmp.MCMPResponseParser;
+import org.jboss.modcluster.mcmp.ResetRequestSource;
+import org.jboss.modcluster.mcmp.impl.DefaultMCMPResponseParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks parsing the responses of proxies, using synthetic INFO responses of various sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MCMPResponseParserBenchmark {
+    private static final int CONTEXTS_PER_NODE = 100;
+
+    @Param({ "10", "1000", "50000" })
+    private int contexts;
+
+    private final MCMPResponseParser parser = new DefaultMCMPResponseParser();
+    private final String stopResponse = "Type=STOP-APP-RSP&JvmRoute=node1&Alias=localhost&Context=/app&Requests=42";
+    private String infoResponse;
+
+    @Setup
+    public void setup() {
+        this.infoResponse = createInfoResponse(this.contexts);
+    }
+
+    @Benchmark
+    public Map<String, Set<ResetRequestSource.VirtualHost>> parseInfoResponse() {
+        return this.parser.parseInfoResponse(this.infoResponse);
+    }
+
+    @Benchmark
+    public Map<String, Set<ResetRequestSource.VirtualHost>> parseInfoResponseReader() throws IOException {
+        return this.parser.parseInfoResponse(new StringReader(this.infoResponse));
+    }
+
+    @Benchmark
+    public int parseStopAppResponse() {
+        return this.parser.parseStopAppResponse(this.stopResponse);
+    }
+
+    /**
+     * Creates an INFO response, as sent by mod_proxy_cluster, listing the specified number of contexts. Contexts are spread
+     * across nodes of up to 100 contexts each, each node having a single virtual host with two aliases.
+     */
+    static String createInfoResponse(int contexts) {
+        int nodes = (contexts + CONTEXTS_PER_NODE - 1) / CONTEXTS_PER_NODE;
+        StringBuilder builder = new StringBuilder(contexts * 64);
+
+        for (int node = 1; node <= nodes; ++node) {
+            builder.append("Node: [").append(node).append("],Name: node").append(node)
+                    .append(",Balancer: mycluster,LBGroup: ,Host: 127.0.0.1,Port: ").append(8000 + node)
+                    .append(",Type: ajp,Flushpackets: Off,Flushwait: 10,Ping: 10,Smax: 1,Ttl: 60,Elected: 0,Read: 0,Transfered: 0,Connected: 0,Load: 100\n");
+        }
+        for (int node = 1; node <= nodes; ++node) {
+            builder.append("Vhost: [").append(node).append(":1:1], Alias: localhost\n");
+            builder.append("Vhost: [").append(node).append(":1:2], Alias: example.com\n");
+        }
+        for (int context = 0; context < contexts; ++context) {
+            int node = (context / CONTEXTS_PER_NODE) + 1;
+            builder.append("Context: [").append(node).append(":1:").append(context + 1).append("], Context: /app").append(context)
+                    .append(", Status: ENABLED\n");
+        }
+
+        return builder.toString();
+    }
+}
@@ -23,6 +23,7 @@ import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
+import javax.management.StandardMBean;
 
 import org.apache.catalina.Lifecycle;
 import org.apache.catalina.LifecycleEvent;
@@ -31,6 +32,7 @@ import org.apache.catalina.Server;
 import org.apache.catalina.core.StandardServer;
 import org.apache.tomcat.util.modeler.Registry;
 import org.jboss.logging.Logger;
+import org.jboss.modcluster.ModClusterMetricsMBean;
 import org.jboss.modcluster.ModClusterService;
 import org.jboss.modcluster.ModClusterServiceMBean;
 import org.jboss.modcluster.Utils;
@@ -53,12 +55,16 @@ public class ModClusterListener extends ModClusterConfig implements TomcatConnec
     private static final Logger log = Logger.getLogger(ModClusterListener.class);
 
     private final ModClusterServiceMBean service;
+    private final ModClusterMetricsMBean metrics;
     private final LifecycleListener listener;
 
     Class<? extends LoadMetric> loadMetricClass = BusyConnectorsLoadMetric.class;
     private int initialLoad = DynamicLoadBalanceFactorProvider.DEFAULT_INITIAL_LOAD;
     private float decayFactor = DynamicLoadBalanceFactorProvider.DEFAULT_DECAY_FACTOR;
     private int history = DynamicLoadBalanceFactorProvider.DEFAULT_HISTORY;
+    private float halfLife = 0;
+    private int samplingInterval = 0;
+    private int metricTimeout = 0;
     private double capacity = LoadMetric.DEFAULT_CAPACITY;
 
     private String connectorAddress;
@@ -69,6 +75,7 @@ public class ModClusterListener extends ModClusterConfig implements TomcatConnec
     public ModClusterListener() {
         ModClusterService service = new ModClusterService(this, this);
         this.service = service;
+        this.metrics = service;
         this.listener = new TomcatEventHandlerAdapter(service, this);
     }
 
@@ -92,6 +99,9 @@ public class ModClusterListener extends ModClusterConfig implements TomcatConnec
 
         provider.setDecayFactor(this.decayFactor);
         provider.setHistory(this.history);
+        provider.setHalfLife(this.halfLife);
+        provider.setSamplingInterval(this.samplingInterval);
+        provider.setMetricTimeout(this.metricTimeout);
 
         return provider;
     }
@@ -106,7 +116,7 @@ public class ModClusterListener extends ModClusterConfig implements TomcatConnec
             Server server = (Server) source;
             String type = event.getType();
 
-            // Register/unregister ModClusterListener mbean on server start/stop
+            // Register/unregister ModClusterListener and ModClusterMetrics mbeans on server start/stop
             if (Lifecycle.AFTER_START_EVENT.equals(type)) {
                 try {
                     ObjectName name = this.getObjectName(server);
@@ -115,10 +125,24 @@ public class ModClusterListener extends ModClusterConfig implements TomcatConnec
                 } catch (Exception e) {
                     log.error(e.getLocalizedMessage(), e);
                 }
+                try {
+                    ObjectName name = this.getObjectName(server, "ModClusterMetrics");
+
+                    Registry.getRegistry(null, null).getMBeanServer().registerMBean(new StandardMBean(this.metrics, ModClusterMetricsMBean.class), name);
+                } catch (Exception e) {
+                    log.error(e.getLocalizedMessage(), e);
+                }
             } else if (Lifecycle.STOP_EVENT.equals(type)) {
                 try {
                     ObjectName name = this.getObjectName(server);
 
+                    Registry.getRegistry(null, null).unregisterComponent(name);
+                } catch (Exception e) {
+                    log.error(e.getLocalizedMessage(), e);
+                }
+                try {
+                    ObjectName name = this.getObjectName(server, "ModClusterMetrics");
+
                     Registry.getRegistry(null, null).unregisterComponent(name);
                 } catch (Exception e) {
                     log.error(e.getLocalizedMessage(), e);
@@ -128,8 +152,12 @@ public class ModClusterListener extends ModClusterConfig implements TomcatConnec
     }
 
     private ObjectName getObjectName(Server server) throws MalformedObjectNameException {
+        return this.getObjectName(server, "ModClusterListener");
+    }
+
+    private ObjectName getObjectName(Server server, String type) throws MalformedObjectNameException {
         String domain = (server instanceof StandardServer) ? ((StandardServer) server).getDomain() : ManagementFactory.getPlatformMBeanServer().getDefaultDomain();
-        return ObjectName.getInstance(domain, "type", "ModClusterListener");
+        return ObjectName.getInstance(domain, "type", type);
     }
 
     public Class<? extends JvmRouteFactory> getJvmRouteFactoryClass() {
@@ -226,6 +254,74 @@ public class ModClusterListener extends ModClusterConfig implements TomcatConnec
         this.history = history;
     }
 
+    /**
+     * Returns the number of seconds after which the contribution of a historical load value to the load factor calculation
+     * halves.
+     *
+     * @return the configured load half-life, or 0 if historical load values decay per the load decay factor and history
+     */
+    public float getLoadHalfLife() {
+        return this.halfLife;
+    }
+
+    /**
+     * Sets the number of seconds after which the contribution of a historical load value to the load factor calculation
+     * halves, regardless of how often the load is computed. Defaults to 0, i.e. historical load values decay per the load
+     * decay factor and history.
+     *
+     * @param halfLife a positive number
+     */
+    public void setLoadHalfLife(float halfLife) {
+        this.halfLife = halfLife;
+    }
+
+    /**
+     * String-based variant of {@link ModClusterListener#setLoadHalfLife(float)} to set float half-life used by Tomcat modeler.
+     *
+     * @param halfLife a positive number
+     */
+    public void setLoadHalfLife(String halfLife) {
+        this.halfLife = Float.parseFloat(halfLife);
+    }
+
+    /**
+     * Returns the number of milliseconds between samples of the load metric taken in the background.
+     *
+     * @return the configured sampling interval, or 0 if the load metric is sampled upon each status request
+     */
+    public int getLoadSamplingInterval() {
+        return this.samplingInterval;
+    }
+
+    /**
+     * Sets the number of milliseconds between samples of the load metric taken in the background, such that status requests
+     * only report the smoothed load. Defaults to 0, i.e. the load metric is sampled upon each status request.
+     *
+     * @param samplingInterval
+     */
+    public void setLoadSamplingInterval(int samplingInterval) {
+        this.samplingInterval = samplingInterval;
+    }
+
+    /**
+     * Returns the number of milliseconds within which the load metric must be evaluated.
+     *
+     * @return the configured time budget, or 0 if the load metric is evaluated without a time budget
+     */
+    public int getLoadMetricTimeout() {
+        return this.metricTimeout;
+    }
+
+    /**
+     * Sets the number of milliseconds within which the load metric must be evaluated, after which its last known load is
+     * reported instead. Defaults to 0, i.e. the load metric is evaluated without a time budget.
+     *
+     * @param metricTimeout
+     */
+    public void setLoadMetricTimeout(int metricTimeout) {
+        this.metricTimeout = metricTimeout;
+    }
+
     public double getLoadMetricCapacity() {
         return this.capacity;
     }
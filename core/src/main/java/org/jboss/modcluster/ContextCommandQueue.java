@@ -0,0 +1,148 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import org.jboss.logging.Logger;
+import org.jboss.modcluster.mcmp.MCMPHandler;
+import org.jboss.modcluster.mcmp.MCMPRequest;
+
+/**
+ * Bounded queue of commands for individual contexts, which are sent to the proxies in a batch once the configured delay elapses
+ * after the first command was queued, or once the queue is full. A command supersedes any queued command for the same jvm
+ * route, aliases and context path, which is then never sent.
+ */
+@ThreadSafe
+class ContextCommandQueue {
+    private static final Logger log = Logger.getLogger(ContextCommandQueue.class);
+
+    private final MCMPHandler handler;
+    private final long delay;
+    private final int capacity;
+    private final ScheduledExecutorService executor;
+    /** Ensures that batches are sent in the order in which they were taken from the queue. */
+    private final Lock flushLock = new ReentrantLock();
+
+    @GuardedBy("this")
+    private final Map<List<String>, MCMPRequest> commands = new LinkedHashMap<List<String>, MCMPRequest>();
+    @GuardedBy("this")
+    private boolean scheduled = false;
+
+    /**
+     * @param handler  handler that sends the commands
+     * @param delay    milliseconds for which commands are queued
+     * @param capacity maximum number of queued commands
+     */
+    ContextCommandQueue(MCMPHandler handler, int delay, int capacity) {
+        this.handler = handler;
+        this.delay = delay;
+        this.capacity = Math.max(1, capacity);
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, "mod_cluster context commands");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Queues the specified context command, replacing any queued command for the same context.
+     */
+    void add(MCMPRequest request) {
+        Map<String, String> parameters = request.getParameters();
+        List<String> key = Arrays.asList(request.getJvmRoute(), parameters.get("Alias"), parameters.get("Context"));
+        boolean full;
+
+        synchronized (this) {
+            // Re-insert, such that the command is sent in the order in which the last command for its context was queued
+            MCMPRequest superseded = this.commands.remove(key);
+
+            if (superseded != null) {
+                log.tracef("%s supersedes queued %s", request, superseded);
+            }
+
+            this.commands.put(key, request);
+
+            full = this.commands.size() >= this.capacity;
+
+            if (!full && !this.scheduled) {
+                this.scheduled = this.schedule();
+                full = !this.scheduled;
+            }
+        }
+
+        if (full) {
+            this.flush();
+        }
+    }
+
+    private boolean schedule() {
+        try {
+            this.executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        ContextCommandQueue.this.flush();
+                    } catch (RuntimeException | Error e) {
+                        ModClusterLogger.LOGGER.eventFailed(e);
+                    }
+                }
+            }, this.delay, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Queue was closed concurrently
+            return false;
+        }
+    }
+
+    /**
+     * Sends all queued commands, waiting for any batch being sent concurrently to complete first.
+     */
+    void flush() {
+        this.flushLock.lock();
+
+        try {
+            List<MCMPRequest> batch;
+
+            synchronized (this) {
+                batch = new ArrayList<MCMPRequest>(this.commands.values());
+                this.commands.clear();
+                this.scheduled = false;
+            }
+
+            if (!batch.isEmpty()) {
+                log.tracef("Sending %d queued context commands", batch.size());
+
+                this.handler.sendRequests(batch);
+            }
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Sends all queued commands, and stops scheduling further batches.
+     */
+    void close() {
+        this.executor.shutdown();
+        this.flush();
+    }
+}
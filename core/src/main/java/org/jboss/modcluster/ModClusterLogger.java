@@ -189,4 +189,16 @@ public interface ModClusterLogger {
     @LogMessage(level = WARN)
     @Message(id = 55, value = "No configured connector for engine %s. If this engine should be used with mod_cluster check connector, connectorPort and/or connectorAddress configuration.")
     void noConnectorForEngine(String engineName);
+
+    @LogMessage(level = WARN)
+    @Message(id = 56, value = "%s command to %s did not complete within %d ms and will complete in the background")
+    void dispatchTimeout(MCMPRequestType command, InetSocketAddress proxy, int timeout);
+
+    @LogMessage(level = ERROR)
+    @Message(id = 57, value = "Failed to process container event")
+    void eventFailed(@Cause Throwable cause);
+
+    @LogMessage(level = DEBUG)
+    @Message(id = 58, value = "Skipping %s for %s, load balance factor %d is within tolerance of last sent %d")
+    void skipEngineStatus(MCMPRequestType command, Engine engine, int lbf, int lastLbf);
 }
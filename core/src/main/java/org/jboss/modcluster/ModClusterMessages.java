@@ -33,4 +33,10 @@ public interface ModClusterMessages {
 
     @Message(id = 104, value = "%s algorithm does not support certificate revocation lists.")
     CRLException crlNotSupported(String algorithm);
+
+    @Message(id = 105, value = "%s does not support SSL socket factories.")
+    IllegalArgumentException sslNotSupported(String handler);
+
+    @Message(id = 106, value = "Unknown MCMP request type %s")
+    IllegalArgumentException unknownRequestType(String requestType);
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+
+import org.jboss.modcluster.mcmp.MCMPServerMetrics;
+
+/**
+ * Exposes the {@link MCMPServerMetrics statistics} of the communication with each proxy.
+ */
+public interface ModClusterMetricsMBean {
+    /**
+     * Returns the number of requests of the specified type sent to each proxy.
+     *
+     * @param requestType an MCMP command, e.g. STATUS or ENABLE-APP
+     * @return a map of request counts, grouped by proxy
+     */
+    Map<InetSocketAddress, Long> getRequestCount(String requestType);
+
+    /**
+     * Returns the time within which the specified percentage of the requests of the specified type to each proxy completed.
+     *
+     * @param requestType an MCMP command, e.g. STATUS or ENABLE-APP
+     * @param percentile  a percentage between 0 and 100, e.g. 99
+     * @return a map of latencies in milliseconds, grouped by proxy
+     */
+    Map<InetSocketAddress, Double> getRequestLatency(String requestType, double percentile);
+
+    /**
+     * Returns the number of connections opened to each proxy, including reconnections.
+     *
+     * @return a map of connection counts, grouped by proxy
+     */
+    Map<InetSocketAddress, Long> getConnectCount();
+
+    /**
+     * Returns the number of connections opened to each proxy to replace a connection that was closed.
+     *
+     * @return a map of reconnection counts, grouped by proxy
+     */
+    Map<InetSocketAddress, Long> getReconnectCount();
+
+    /**
+     * Returns the number of requests sent again to each proxy after a failed read or write.
+     *
+     * @return a map of retry counts, grouped by proxy
+     */
+    Map<InetSocketAddress, Long> getRetryCount();
+
+    /**
+     * Returns the number of bytes sent to each proxy.
+     *
+     * @return a map of byte counts, grouped by proxy
+     */
+    Map<InetSocketAddress, Long> getBytesSent();
+
+    /**
+     * Returns the number of bytes received from each proxy.
+     *
+     * @return a map of byte counts, grouped by proxy
+     */
+    Map<InetSocketAddress, Long> getBytesReceived();
+}
@@ -13,9 +13,18 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.jboss.modcluster.advertise.AdvertiseListener;
 import org.jboss.modcluster.advertise.AdvertiseListenerFactory;
@@ -45,6 +54,7 @@ import org.jboss.modcluster.mcmp.MCMPRequest;
 import org.jboss.modcluster.mcmp.MCMPRequestFactory;
 import org.jboss.modcluster.mcmp.MCMPRequestType;
 import org.jboss.modcluster.mcmp.MCMPResponseParser;
+import org.jboss.modcluster.mcmp.MCMPServerMetrics;
 import org.jboss.modcluster.mcmp.MCMPServerState;
 import org.jboss.modcluster.mcmp.ResetRequestSource;
 import org.jboss.modcluster.mcmp.impl.DefaultMCMPHandler;
@@ -52,7 +62,7 @@ import org.jboss.modcluster.mcmp.impl.DefaultMCMPRequestFactory;
 import org.jboss.modcluster.mcmp.impl.DefaultMCMPResponseParser;
 import org.jboss.modcluster.mcmp.impl.ResetRequestSourceImpl;
 
-public class ModClusterService implements ModClusterServiceMBean, ContainerEventHandler, LoadBalanceFactorProvider,
+public class ModClusterService implements ModClusterServiceMBean, ModClusterMetricsMBean, ContainerEventHandler, LoadBalanceFactorProvider,
         MCMPConnectionListener, ContextFilter {
     public static final int DEFAULT_PORT = 8000;
 
@@ -69,6 +79,10 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
 
     private final Map<String, Set<String>> excludedContexts = new HashMap<String, Set<String>>();
     private final ConcurrentMap<Context, EnablableRequestListener> requestListeners = new ConcurrentHashMap<Context, EnablableRequestListener>();
+    /** Engines with a status event that was queued, but not yet processed. */
+    private final Set<Engine> pendingStatus = ConcurrentHashMap.newKeySet();
+    // Last STATUS sent per jvm route, if STATUS requests may be skipped
+    private final ConcurrentMap<String, SentStatus> sentStatus = new ConcurrentHashMap<String, SentStatus>();
 
     private volatile boolean established = false;
     private volatile boolean autoEnableContexts = true;
@@ -76,6 +90,10 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
 
     private volatile LoadBalanceFactorProvider loadBalanceFactorProvider;
     private volatile AdvertiseListener advertiseListener;
+    private volatile ExecutorService eventExecutor;
+    private volatile ContextCommandQueue contextCommands;
+    private volatile ProxyResultCache proxyResults;
+    private volatile Thread eventThread;
 
     public ModClusterService(ModClusterConfiguration config, LoadBalanceFactorProvider loadBalanceFactorProvider) {
         this(config.getNodeConfiguration(), config.getBalancerConfiguration(), config.getMCMPHandlerConfiguration(), config.getAdvertiseConfiguration(), new SimpleLoadBalanceFactorProviderFactory(loadBalanceFactorProvider));
@@ -137,6 +155,26 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
 
         this.loadBalanceFactorProvider = this.loadBalanceFactorProviderFactory.createLoadBalanceFactorProvider();
 
+        if (this.mcmpConfig.isAsyncEventProcessing()) {
+            this.eventExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable task) {
+                    Thread thread = new Thread(task, "mod_cluster events");
+                    thread.setDaemon(true);
+                    ModClusterService.this.eventThread = thread;
+                    return thread;
+                }
+            });
+        }
+
+        if (this.mcmpConfig.getContextCommandBatchDelay() > 0) {
+            this.contextCommands = new ContextCommandQueue(this.mcmpHandler, this.mcmpConfig.getContextCommandBatchDelay(), this.mcmpConfig.getContextCommandQueueCapacity());
+        }
+
+        if (this.mcmpConfig.getProxyResultCacheTimeout() > 0) {
+            this.proxyResults = new ProxyResultCache(this.mcmpConfig.getProxyResultCacheTimeout());
+        }
+
         Boolean advertise = this.mcmpConfig.getAdvertise();
 
         if (Boolean.TRUE.equals(advertise) || (advertise == null && this.mcmpConfig.getProxyConfigurations().isEmpty())) {
@@ -183,41 +221,167 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
             this.advertiseListener = null;
         }
 
+        ExecutorService executor = this.eventExecutor;
+
+        if (executor != null) {
+            this.eventExecutor = null;
+
+            // Let queued events complete before shutting down the handler
+            executor.shutdown();
+
+            try {
+                executor.awaitTermination(this.mcmpConfig.getSocketTimeout(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        ContextCommandQueue commands = this.contextCommands;
+
+        if (commands != null) {
+            this.contextCommands = null;
+
+            commands.close();
+        }
+
+        this.sentStatus.clear();
+
+        ProxyResultCache results = this.proxyResults;
+
+        if (results != null) {
+            this.proxyResults = null;
+
+            results.clear();
+        }
+
+        LoadBalanceFactorProvider provider = this.loadBalanceFactorProvider;
+
+        if (provider instanceof AutoCloseable) {
+            // e.g. stop sampling load in the background
+            try {
+                ((AutoCloseable) provider).close();
+            } catch (Throwable e) {
+                ModClusterLogger.LOGGER.catchingDebug(e);
+            }
+        }
+
         this.mcmpHandler.shutdown();
     }
 
     @Override
-    public void start(Server server) {
+    public void start(final Server server) {
         ModClusterLogger.LOGGER.startServer();
 
-        if (this.established) {
-            for (Engine engine : server.getEngines()) {
-                this.config(engine);
+        this.process(new Runnable() {
+            @Override
+            public void run() {
+                if (ModClusterService.this.established) {
+                    for (Engine engine : server.getEngines()) {
+                        ModClusterService.this.config(engine);
 
-                // n.b. MODCLUSTER-790 do not ContainerEventHandler#add(..) the context here - wait for actual start(..)
+                        // n.b. MODCLUSTER-790 do not ContainerEventHandler#add(..) the context here - wait for actual start(..)
+                    }
+                }
             }
-        }
+        });
     }
 
     @Override
-    public void stop(Server server) {
+    public void stop(final Server server) {
         ModClusterLogger.LOGGER.stopServer();
 
-        if (this.established) {
-            for (Engine engine : server.getEngines()) {
-                for (Host host : engine.getHosts()) {
-                    for (Context context : host.getContexts()) {
-                        if (context.isStarted()) {
-                            this.stop(context);
+        this.await(this.process(new Runnable() {
+            @Override
+            public void run() {
+                if (ModClusterService.this.established) {
+                    for (Engine engine : server.getEngines()) {
+                        for (Host host : engine.getHosts()) {
+                            for (Context context : host.getContexts()) {
+                                if (context.isStarted()) {
+                                    ModClusterService.this.stop(context);
+                                }
+
+                                ModClusterService.this.remove(context);
+                            }
                         }
 
-                        this.remove(context);
+                        ModClusterService.this.removeAll(engine);
                     }
                 }
+            }
+        }));
+    }
+
+    /**
+     * Processes the specified container event. If asynchronous event processing is enabled, the event is queued and processed
+     * once all previously queued events were processed, otherwise, or if raised while processing another event, it is
+     * processed immediately.
+     *
+     * @return a future that completes once the event was processed
+     */
+    private Future<?> process(final Runnable event) {
+        ExecutorService executor = this.eventExecutor;
 
-                this.removeAll(engine);
+        if ((executor != null) && (Thread.currentThread() != this.eventThread)) {
+            try {
+                return executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            event.run();
+                        } catch (RuntimeException | Error e) {
+                            ModClusterLogger.LOGGER.eventFailed(e);
+                            throw e;
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Service was shut down concurrently, process immediately instead
             }
         }
+
+        event.run();
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Waits for the specified event to be processed.
+     */
+    private void await(Future<?> event) {
+        try {
+            event.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw Utils.convertToUnchecked(e.getCause());
+        }
+    }
+
+    /**
+     * Sends the specified request to all proxies, once any queued context commands were sent.
+     */
+    private Map<MCMPServerState, String> sendRequest(MCMPRequest request) {
+        ContextCommandQueue commands = this.contextCommands;
+
+        if (commands != null) {
+            commands.flush();
+        }
+
+        return this.mcmpHandler.sendRequest(request);
+    }
+
+    /**
+     * Queues the specified context command if context commands are sent in batches, or sends it immediately otherwise.
+     */
+    private void sendContextCommand(MCMPRequest request) {
+        ContextCommandQueue commands = this.contextCommands;
+
+        if (commands != null) {
+            commands.add(request);
+        } else {
+            this.mcmpHandler.sendRequest(request);
+        }
     }
 
     /**
@@ -229,7 +393,7 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
         try {
             MCMPRequest request = this.requestFactory.createConfigRequest(engine, this.nodeConfig, this.balancerConfig);
 
-            this.mcmpHandler.sendRequest(request);
+            this.sendRequest(request);
         } catch (Exception e) {
             this.mcmpHandler.markProxiesInError();
         }
@@ -275,23 +439,33 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
     }
 
     @Override
-    public void add(Context context) {
+    public void add(final Context context) {
         ModClusterLogger.LOGGER.addContext(context.getHost(), context);
 
-        if (this.include(context) && this.established) {
-            // Send a STOP-APP directly, without session draining.
-            this.mcmpHandler.sendRequest(this.requestFactory.createStopRequest(context));
-        }
+        this.process(new Runnable() {
+            @Override
+            public void run() {
+                if (ModClusterService.this.include(context) && ModClusterService.this.established) {
+                    // Send a STOP-APP directly, without session draining.
+                    ModClusterService.this.sendContextCommand(ModClusterService.this.requestFactory.createStopRequest(context));
+                }
+            }
+        });
     }
 
     @Override
-    public void start(Context context) {
+    public void start(final Context context) {
         ModClusterLogger.LOGGER.startContext(context.getHost(), context);
 
         if (this.include(context)) {
-            if (this.established) {
-                this.enable(context);
-            }
+            this.process(new Runnable() {
+                @Override
+                public void run() {
+                    if (ModClusterService.this.established) {
+                        ModClusterService.this.enable(context);
+                    }
+                }
+            });
 
             EnablableRequestListener listener = new NotifyOnDestroyRequestListener();
 
@@ -304,13 +478,13 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
     private void enable(Context context) {
         ModClusterLogger.LOGGER.sendContextCommand(this.autoEnableContexts ? MCMPRequestType.ENABLE_APP : MCMPRequestType.DISABLE_APP, context.getHost(), context);
 
-        this.mcmpHandler.sendRequest(this.autoEnableContexts ? this.requestFactory.createEnableRequest(context) : this.requestFactory.createDisableRequest(context));
+        this.sendContextCommand(this.autoEnableContexts ? this.requestFactory.createEnableRequest(context) : this.requestFactory.createDisableRequest(context));
     }
 
     private void disable(Context context) {
         ModClusterLogger.LOGGER.sendContextCommand(MCMPRequestType.DISABLE_APP, context.getHost(), context);
 
-        this.mcmpHandler.sendRequest(this.requestFactory.createDisableRequest(context));
+        this.sendRequest(this.requestFactory.createDisableRequest(context));
     }
 
     private boolean hasContextMultipleReferences(Context context) {
@@ -327,9 +501,18 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
     }
 
     @Override
-    public void stop(Context context) {
+    public void stop(final Context context) {
         ModClusterLogger.LOGGER.stopContext(context.getHost(), context);
 
+        this.await(this.process(new Runnable() {
+            @Override
+            public void run() {
+                ModClusterService.this.disableAndDrain(context);
+            }
+        }));
+    }
+
+    private void disableAndDrain(Context context) {
         if (this.established && this.include(context) && !hasContextMultipleReferences(context)) {
             this.disable(context);
 
@@ -349,15 +532,20 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
     }
 
     @Override
-    public void remove(Context context) {
+    public void remove(final Context context) {
         ModClusterLogger.LOGGER.removeContext(context.getHost(), context);
 
         if (this.include(context) && !hasContextMultipleReferences(context)) {
-            if (this.established) {
-                ModClusterLogger.LOGGER.sendContextCommand(MCMPRequestType.REMOVE_APP, context.getHost(), context);
+            this.process(new Runnable() {
+                @Override
+                public void run() {
+                    if (ModClusterService.this.established) {
+                        ModClusterLogger.LOGGER.sendContextCommand(MCMPRequestType.REMOVE_APP, context.getHost(), context);
 
-                this.mcmpHandler.sendRequest(this.requestFactory.createRemoveRequest(context));
-            }
+                        ModClusterService.this.sendContextCommand(ModClusterService.this.requestFactory.createRemoveRequest(context));
+                    }
+                }
+            });
 
             EnablableRequestListener listener = this.requestListeners.remove(context);
 
@@ -374,26 +562,97 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
         ModClusterLogger.LOGGER.sendEngineCommand(MCMPRequestType.REMOVE_APP, engine);
 
         // Send REMOVE-APP * request
-        this.mcmpHandler.sendRequest(this.requestFactory.createRemoveRequest(engine));
+        this.sendRequest(this.requestFactory.createRemoveRequest(engine));
     }
 
     @Override
-    public void status(Engine engine) {
-        Connector connector = engine.getProxyConnector();
+    public void status(final Engine engine) {
+        final Connector connector = engine.getProxyConnector();
         if (connector == null) {
             // Skip status for Engines that don't have a connector available
             return;
         }
 
+        // Skip, if the previous status event of this engine is still queued
+        if (this.pendingStatus.add(engine)) {
+            this.process(new Runnable() {
+                @Override
+                public void run() {
+                    ModClusterService.this.pendingStatus.remove(engine);
+                    ModClusterService.this.status(engine, connector);
+                }
+            });
+        }
+    }
+
+    private void status(Engine engine, Connector connector) {
+        boolean suppressible = (this.mcmpConfig.getStatusHeartbeatInterval() > 0);
+        // Proxies in error, which status() may reset, need a STATUS request regardless of the load balance factor
+        boolean healthy = suppressible && this.mcmpHandler.isProxyHealthOK();
+
         this.mcmpHandler.status();
 
         if (this.established) {
             // Send STATUS request
             int lbf = connector.isAvailable() ? this.getLoadBalanceFactor(engine) : -1;
+            String jvmRoute = engine.getJvmRoute();
+
+            if (suppressible) {
+                SentStatus sent = this.sentStatus.get(jvmRoute);
+
+                if (healthy && (sent != null) && sent.supersedes(lbf, this.getProxyAddresses(), this.mcmpConfig.getStatusLoadBalanceFactorTolerance())) {
+                    ModClusterLogger.LOGGER.skipEngineStatus(MCMPRequestType.STATUS, engine, lbf, sent.lbf);
+                    return;
+                }
+            }
 
             ModClusterLogger.LOGGER.sendEngineCommand(MCMPRequestType.STATUS, engine);
 
-            this.mcmpHandler.sendRequest(this.requestFactory.createStatusRequest(engine.getJvmRoute(), lbf));
+            this.mcmpHandler.sendRequest(this.requestFactory.createStatusRequest(jvmRoute, lbf));
+
+            if (suppressible) {
+                // Only skip subsequent STATUS requests if every proxy received this one
+                if (this.mcmpHandler.isProxyHealthOK()) {
+                    long expiration = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.mcmpConfig.getStatusHeartbeatInterval());
+                    this.sentStatus.put(jvmRoute, new SentStatus(lbf, expiration, this.getProxyAddresses()));
+                } else {
+                    this.sentStatus.remove(jvmRoute);
+                }
+            }
+        }
+    }
+
+    private Set<InetSocketAddress> getProxyAddresses() {
+        Set<InetSocketAddress> addresses = new HashSet<InetSocketAddress>();
+        for (MCMPServerState state : this.mcmpHandler.getProxyStates()) {
+            addresses.add(state.getSocketAddress());
+        }
+        return addresses;
+    }
+
+    /**
+     * Load balance factor last sent to a given set of proxies, which spares further STATUS requests until it expires.
+     */
+    private static class SentStatus {
+        final int lbf;
+        private final long expiration;
+        private final Set<InetSocketAddress> proxies;
+
+        SentStatus(int lbf, long expiration, Set<InetSocketAddress> proxies) {
+            this.lbf = lbf;
+            this.expiration = expiration;
+            this.proxies = proxies;
+        }
+
+        /**
+         * Indicates whether the specified load balance factor need not be sent to the specified proxies.
+         */
+        boolean supersedes(int lbf, Set<InetSocketAddress> proxies, int tolerance) {
+            if (System.nanoTime() - this.expiration >= 0) return false;
+            if (!this.proxies.equals(proxies)) return false;
+            if (lbf == this.lbf) return true;
+            // Transitions from or to an unavailable or zero load balance factor are always significant
+            return (lbf > 0) && (this.lbf > 0) && (Math.abs(lbf - this.lbf) <= tolerance);
         }
     }
 
@@ -409,11 +668,13 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
     @Override
     public void addProxy(String host, int port) {
         this.mcmpHandler.addProxy(new ProxyConfigurationImpl(this.createSocketAddress(host, port)));
+        this.clearProxyResults();
     }
 
     @Override
     public void removeProxy(String host, int port) {
         this.mcmpHandler.removeProxy(this.createSocketAddress(host, port));
+        this.clearProxyResults();
     }
 
     private InetSocketAddress createSocketAddress(String host, int port) {
@@ -454,11 +715,37 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
         return this.getProxyResults(request);
     }
 
-    private Map<InetSocketAddress, String> getProxyResults(MCMPRequest request) {
+    private Map<InetSocketAddress, String> getProxyResults(final MCMPRequest request) {
         if (!this.established)
             return Collections.emptyMap();
 
-        Map<MCMPServerState, String> responses = this.mcmpHandler.sendRequest(request);
+        ProxyResultCache cache = this.proxyResults;
+
+        if (cache == null) {
+            return this.sendProxyRequest(request);
+        }
+
+        return cache.get(request, new Supplier<Map<InetSocketAddress, String>>() {
+            @Override
+            public Map<InetSocketAddress, String> get() {
+                return ModClusterService.this.sendProxyRequest(request);
+            }
+        });
+    }
+
+    /**
+     * Discards the cached responses of proxies, which no longer reflect the set of proxies, or their configuration.
+     */
+    private void clearProxyResults() {
+        ProxyResultCache cache = this.proxyResults;
+
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    private Map<InetSocketAddress, String> sendProxyRequest(MCMPRequest request) {
+        Map<MCMPServerState, String> responses = this.sendRequest(request);
 
         if (responses.isEmpty())
             return Collections.emptyMap();
@@ -474,10 +761,112 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
         return results;
     }
 
+    @Override
+    public Map<InetSocketAddress, Long> getRequestCount(String requestType) {
+        final MCMPRequestType type = parseRequestType(requestType);
+
+        return this.getProxyMetrics(new Function<MCMPServerMetrics, Long>() {
+            @Override
+            public Long apply(MCMPServerMetrics metrics) {
+                return metrics.getRequestCount(type);
+            }
+        });
+    }
+
+    @Override
+    public Map<InetSocketAddress, Double> getRequestLatency(String requestType, final double percentile) {
+        final MCMPRequestType type = parseRequestType(requestType);
+
+        return this.getProxyMetrics(new Function<MCMPServerMetrics, Double>() {
+            @Override
+            public Double apply(MCMPServerMetrics metrics) {
+                return metrics.getRequestLatency(type, percentile) / 1000d;
+            }
+        });
+    }
+
+    @Override
+    public Map<InetSocketAddress, Long> getConnectCount() {
+        return this.getProxyMetrics(new Function<MCMPServerMetrics, Long>() {
+            @Override
+            public Long apply(MCMPServerMetrics metrics) {
+                return metrics.getConnectCount();
+            }
+        });
+    }
+
+    @Override
+    public Map<InetSocketAddress, Long> getReconnectCount() {
+        return this.getProxyMetrics(new Function<MCMPServerMetrics, Long>() {
+            @Override
+            public Long apply(MCMPServerMetrics metrics) {
+                return metrics.getReconnectCount();
+            }
+        });
+    }
+
+    @Override
+    public Map<InetSocketAddress, Long> getRetryCount() {
+        return this.getProxyMetrics(new Function<MCMPServerMetrics, Long>() {
+            @Override
+            public Long apply(MCMPServerMetrics metrics) {
+                return metrics.getRetryCount();
+            }
+        });
+    }
+
+    @Override
+    public Map<InetSocketAddress, Long> getBytesSent() {
+        return this.getProxyMetrics(new Function<MCMPServerMetrics, Long>() {
+            @Override
+            public Long apply(MCMPServerMetrics metrics) {
+                return metrics.getBytesSent();
+            }
+        });
+    }
+
+    @Override
+    public Map<InetSocketAddress, Long> getBytesReceived() {
+        return this.getProxyMetrics(new Function<MCMPServerMetrics, Long>() {
+            @Override
+            public Long apply(MCMPServerMetrics metrics) {
+                return metrics.getBytesReceived();
+            }
+        });
+    }
+
+    private <T> Map<InetSocketAddress, T> getProxyMetrics(Function<MCMPServerMetrics, T> metric) {
+        Set<MCMPServerState> states = this.mcmpHandler.getProxyStates();
+
+        if (states.isEmpty())
+            return Collections.emptyMap();
+
+        Map<InetSocketAddress, T> results = new HashMap<InetSocketAddress, T>();
+
+        for (MCMPServerState state : states) {
+            results.put(state.getSocketAddress(), metric.apply(state.getMetrics()));
+        }
+
+        return results;
+    }
+
+    /**
+     * Returns the request type of the specified MCMP command, e.g. ENABLE-APP, or enum constant name, e.g. ENABLE_APP.
+     */
+    private static MCMPRequestType parseRequestType(String requestType) {
+        for (MCMPRequestType type : MCMPRequestType.values()) {
+            if (type.toString().equalsIgnoreCase(requestType) || type.name().equalsIgnoreCase(requestType)) {
+                return type;
+            }
+        }
+        throw ModClusterMessages.MESSAGES.unknownRequestType(requestType);
+    }
+
     @Override
     public void reset() {
         if (this.established) {
             this.mcmpHandler.reset();
+            this.clearProxyResults();
         }
     }
 
@@ -486,6 +875,7 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
         if (this.established) {
             // Set as error, and the periodic event will refresh the configuration
             this.mcmpHandler.markProxiesInError();
+            this.clearProxyResults();
         }
     }
 
@@ -496,7 +886,7 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
 
         for (Engine engine : this.server.getEngines()) {
             // Send DISABLE-APP * request
-            this.mcmpHandler.sendRequest(this.requestFactory.createDisableRequest(engine));
+            this.sendRequest(this.requestFactory.createDisableRequest(engine));
         }
 
         return this.mcmpHandler.isProxyHealthOK();
@@ -509,7 +899,7 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
 
         for (Engine engine : this.server.getEngines()) {
             // Send ENABLE-APP * request
-            this.mcmpHandler.sendRequest(this.requestFactory.createEnableRequest(engine));
+            this.sendRequest(this.requestFactory.createEnableRequest(engine));
         }
 
         this.autoEnableContexts = true;
@@ -525,7 +915,7 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
         Context context = this.findContext(this.findHost(host), path);
 
         // Send DISABLE-APP /... request
-        this.mcmpHandler.sendRequest(this.requestFactory.createDisableRequest(context));
+        this.sendRequest(this.requestFactory.createDisableRequest(context));
 
         return this.mcmpHandler.isProxyHealthOK();
     }
@@ -538,7 +928,7 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
         Context context = this.findContext(this.findHost(host), path);
 
         // Send ENABLE-APP /... request
-        this.mcmpHandler.sendRequest(this.requestFactory.createEnableRequest(context));
+        this.sendRequest(this.requestFactory.createEnableRequest(context));
 
         return this.mcmpHandler.isProxyHealthOK();
     }
@@ -550,7 +940,7 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
 
         // Send DISABLE-APP * requests
         for (Engine engine : this.server.getEngines()) {
-            this.mcmpHandler.sendRequest(this.requestFactory.createDisableRequest(engine));
+            this.sendRequest(this.requestFactory.createDisableRequest(engine));
         }
 
         long start = System.currentTimeMillis();
@@ -569,7 +959,7 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
 
         // Send STOP-APP * requests
         for (Engine engine : this.server.getEngines()) {
-            this.mcmpHandler.sendRequest(this.requestFactory.createStopRequest(engine));
+            this.sendRequest(this.requestFactory.createStopRequest(engine));
         }
 
         return success;
@@ -592,7 +982,7 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
             success = this.drainSessions(context, start, start + unit.toMillis(timeout));
         }
 
-        this.mcmpHandler.sendRequest(this.requestFactory.createStopRequest(context));
+        this.sendRequest(this.requestFactory.createStopRequest(context));
 
         return success;
     }
@@ -658,7 +1048,7 @@ public class ModClusterService implements ModClusterServiceMBean, ContainerEvent
      * Sends the specified stop request, parses and totals the responses.
      */
     private int stop(MCMPRequest request) {
-        Map<MCMPServerState, String> responses = this.mcmpHandler.sendRequest(request);
+        Map<MCMPServerState, String> responses = this.sendRequest(request);
 
         int requests = 0;
 
@@ -0,0 +1,107 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import net.jcip.annotations.ThreadSafe;
+import org.jboss.modcluster.mcmp.MCMPRequest;
+
+/**
+ * Cache of the responses of proxies to management requests, which are reused until the configured timeout elapses after they
+ * were received. Concurrent callers of an identical request wait for a single request in flight rather than sending their own.
+ */
+@ThreadSafe
+class ProxyResultCache {
+    private final long timeout;
+    private final ConcurrentMap<List<Object>, Entry> entries = new ConcurrentHashMap<List<Object>, Entry>();
+
+    /**
+     * @param timeout milliseconds for which responses are reused
+     */
+    ProxyResultCache(int timeout) {
+        this.timeout = TimeUnit.MILLISECONDS.toNanos(timeout);
+    }
+
+    /**
+     * Returns the cached responses to the specified request, or loads them using the specified loader if none are cached or
+     * they expired.
+     */
+    Map<InetSocketAddress, String> get(MCMPRequest request, Supplier<Map<InetSocketAddress, String>> loader) {
+        List<Object> key = Arrays.<Object>asList(request.getRequestType(), request.isWildcard(), request.getJvmRoute(), request.getParameters());
+
+        while (true) {
+            Entry entry = this.entries.get(key);
+
+            if ((entry != null) && !entry.isExpired()) {
+                return entry.get();
+            }
+
+            Entry loading = new Entry();
+
+            if ((entry == null) ? (this.entries.putIfAbsent(key, loading) == null) : this.entries.replace(key, entry, loading)) {
+                try {
+                    Map<InetSocketAddress, String> results = loader.get();
+                    loading.complete(results, System.nanoTime() + this.timeout);
+                    return new HashMap<InetSocketAddress, String>(results);
+                } catch (RuntimeException | Error e) {
+                    // Do not cache failures
+                    this.entries.remove(key, loading);
+                    loading.future.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Discards all cached responses.
+     */
+    void clear() {
+        this.entries.clear();
+    }
+
+    private static class Entry {
+        final CompletableFuture<Map<InetSocketAddress, String>> future = new CompletableFuture<Map<InetSocketAddress, String>>();
+        private volatile long expiration;
+
+        void complete(Map<InetSocketAddress, String> results, long expiration) {
+            this.expiration = expiration;
+            this.future.complete(results);
+        }
+
+        /**
+         * Indicates whether the responses were received longer than the timeout ago. Responses still in flight never expire.
+         */
+        boolean isExpired() {
+            return this.future.isDone() && (System.nanoTime() - this.expiration >= 0);
+        }
+
+        Map<InetSocketAddress, String> get() {
+            try {
+                return new HashMap<InetSocketAddress, String>(this.future.join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -100,4 +100,168 @@ public interface MCMPHandlerConfiguration {
     JvmRouteFactory getJvmRouteFactory();
 
     SessionDrainingStrategy getSessionDrainingStrategy();
+
+    /**
+     * Indicates whether requests are sent to all proxies concurrently, using a dedicated worker per proxy, rather than to one
+     * proxy after another.
+     *
+     * @return true, if requests should be dispatched to proxies concurrently, false otherwise.
+     */
+    default boolean isConcurrentDispatch() {
+        return false;
+    }
+
+    /**
+     * Returns the number of milliseconds to wait for all proxies to respond to a concurrently dispatched request. Proxies that
+     * do not respond in time are reported with a <code>null</code> response, while their request completes in the background.
+     * A non-positive value waits indefinitely.
+     *
+     * @return timeout in milliseconds
+     */
+    default int getConcurrentDispatchTimeout() {
+        return 20000;
+    }
+
+    /**
+     * Returns the maximum number of requests written to a proxy before reading their responses when the configuration of the
+     * proxy is reset, i.e. after it recovers from an error. A value greater than 1 pipelines these requests on the
+     * keep-alive connection, saving a round trip per request; a value of 1 or less sends them one at a time.
+     *
+     * @return maximum number of pipelined reset requests
+     */
+    default int getResetRequestPipelineWindow() {
+        return 1;
+    }
+
+    /**
+     * Indicates whether container lifecycle and periodic events are processed asynchronously, in the order in which they
+     * occurred, such that the container thread delivering the event does not wait for any proxy to respond. Stopping a
+     * context, which drains its requests and sessions, still waits for the event to be processed.
+     *
+     * @return true, if events should be processed asynchronously, false otherwise.
+     */
+    default boolean isAsyncEventProcessing() {
+        return false;
+    }
+
+    /**
+     * Returns the maximum number of connections opened to each proxy. Requests issued concurrently to the same proxy, e.g. a
+     * management query while a context is being stopped, use separate connections up to this limit, rather than waiting for
+     * the request in progress to complete.
+     *
+     * @return maximum number of connections per proxy
+     */
+    default int getProxyConnectionPoolSize() {
+        return 1;
+    }
+
+    /**
+     * Indicates whether STATUS and PING requests use a connection and, if {@link #isConcurrentDispatch() concurrent dispatch}
+     * is enabled, a worker of their own, so that heartbeats never queue behind other requests to the same proxy. This
+     * connection is not counted against {@link #getProxyConnectionPoolSize()}.
+     *
+     * @return true, if heartbeats should use a dedicated connection, false otherwise.
+     */
+    default boolean isDedicatedHeartbeatConnection() {
+        return false;
+    }
+
+    /**
+     * Returns the number of milliseconds after which an unused connection to a proxy is closed rather than reused. A
+     * non-positive value keeps connections open until the proxy closes them.
+     *
+     * @return idle timeout in milliseconds
+     */
+    default int getProxyConnectionIdleTimeout() {
+        return 60000;
+    }
+
+    /**
+     * Returns the number of milliseconds to wait before probing a proxy again after an attempt to re-establish communication
+     * with it failed. The delay doubles with each consecutive failure, up to {@link #getProxyRetryMaxDelay()}, and is
+     * randomized by up to half to avoid synchronized retries. A non-positive value probes proxies in error on every status
+     * check.
+     *
+     * @return initial retry delay in milliseconds
+     */
+    default int getProxyRetryInitialDelay() {
+        return 0;
+    }
+
+    /**
+     * Returns the maximum number of milliseconds to wait before probing a proxy in error again.
+     *
+     * @return maximum retry delay in milliseconds
+     */
+    default int getProxyRetryMaxDelay() {
+        return 300000;
+    }
+
+    /**
+     * Returns the number of milliseconds that a periodic status check, i.e. {@link org.jboss.modcluster.mcmp.MCMPHandler#status()},
+     * and each STATUS request that follows it, may block the calling thread. Each gets its own budget, such that a proxy
+     * exhausting the budget of the status check does not starve the STATUS requests to other proxies. Proxies that have not
+     * responded by then are marked in error, while their requests complete in the background. A non-positive value waits for
+     * all proxies to respond.
+     *
+     * @return status check time budget in milliseconds
+     */
+    default int getStatusTimeout() {
+        return 0;
+    }
+
+    /**
+     * Returns the number of milliseconds for which STOP-APP, ENABLE-APP, DISABLE-APP and REMOVE-APP commands for individual
+     * contexts are queued before being sent to the proxies in a batch. A command supersedes any queued command for the same
+     * context, which is then never sent. A non-positive value sends these commands immediately.
+     *
+     * @return context command batch delay in milliseconds
+     */
+    default int getContextCommandBatchDelay() {
+        return 0;
+    }
+
+    /**
+     * Returns the maximum number of context commands queued before they are sent, regardless of the
+     * {@link #getContextCommandBatchDelay() batch delay}.
+     *
+     * @return context command queue capacity
+     */
+    default int getContextCommandQueueCapacity() {
+        return 64;
+    }
+
+    /**
+     * Returns the maximum number of milliseconds for which a STATUS request may be skipped because the load balance factor
+     * has not changed by more than the {@link #getStatusLoadBalanceFactorTolerance() tolerance} since the last STATUS request,
+     * such that proxies still see the node within their node timeout. A non-positive value sends a STATUS request on every
+     * periodic status check.
+     *
+     * @return STATUS heartbeat interval in milliseconds
+     */
+    default int getStatusHeartbeatInterval() {
+        return 0;
+    }
+
+    /**
+     * Returns the largest difference from the load balance factor of the last STATUS request, for which a STATUS request is
+     * skipped within the {@link #getStatusHeartbeatInterval() heartbeat interval}. Changes from or to an unavailable or zero
+     * load balance factor are never tolerated.
+     *
+     * @return load balance factor tolerance
+     */
+    default int getStatusLoadBalanceFactorTolerance() {
+        return 0;
+    }
+
+    /**
+     * Returns the number of milliseconds for which the responses of proxies to the DUMP, INFO and PING requests of management
+     * operations are reused by subsequent operations. Concurrent operations share a single request per proxy. A non-positive
+     * value sends a request for every operation.
+     *
+     * @return management response cache timeout in milliseconds
+     */
+    default int getProxyResultCacheTimeout() {
+        return 0;
+    }
 }
@@ -39,6 +39,21 @@ public class MCMPHandlerConfigurationBuilder extends AbstractConfigurationBuilde
     private TimeUnit stopContextTimeoutUnit = TimeUnit.SECONDS;
     private JvmRouteFactory jvmRouteFactory = new SystemPropertyJvmRouteFactory(new UUIDJvmRouteFactory());
     private SessionDrainingStrategy sessionDrainingStrategy = SessionDrainingStrategyEnum.DEFAULT;
+    private boolean concurrentDispatch = false;
+    private int concurrentDispatchTimeout = 20000;
+    private int resetRequestPipelineWindow = 1;
+    private boolean asyncEventProcessing = false;
+    private int proxyConnectionPoolSize = 1;
+    private boolean dedicatedHeartbeatConnection = false;
+    private int proxyConnectionIdleTimeout = 60000;
+    private int proxyRetryInitialDelay = 0;
+    private int proxyRetryMaxDelay = 300000;
+    private int statusTimeout = 0;
+    private int contextCommandBatchDelay = 0;
+    private int contextCommandQueueCapacity = 64;
+    private int statusHeartbeatInterval = 0;
+    private int statusLoadBalanceFactorTolerance = 0;
+    private int proxyResultCacheTimeout = 0;
 
     MCMPHandlerConfigurationBuilder(ConfigurationBuilder parentBuilder) {
         super(parentBuilder);
@@ -132,8 +147,129 @@ public class MCMPHandlerConfigurationBuilder extends AbstractConfigurationBuilde
         return this;
     }
 
+    /**
+     * Sets whether requests are sent to all proxies concurrently rather than to one proxy after another.
+     */
+    public MCMPHandlerConfigurationBuilder setConcurrentDispatch(boolean concurrentDispatch) {
+        this.concurrentDispatch = concurrentDispatch;
+        return this;
+    }
+
+    /**
+     * Sets the number of milliseconds to wait for all proxies to respond to a concurrently dispatched request.
+     */
+    public MCMPHandlerConfigurationBuilder setConcurrentDispatchTimeout(int concurrentDispatchTimeout) {
+        this.concurrentDispatchTimeout = concurrentDispatchTimeout;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of requests written to a proxy before reading their responses when its configuration is reset.
+     */
+    public MCMPHandlerConfigurationBuilder setResetRequestPipelineWindow(int resetRequestPipelineWindow) {
+        this.resetRequestPipelineWindow = resetRequestPipelineWindow;
+        return this;
+    }
+
+    /**
+     * Sets whether container lifecycle and periodic events are processed asynchronously.
+     */
+    public MCMPHandlerConfigurationBuilder setAsyncEventProcessing(boolean asyncEventProcessing) {
+        this.asyncEventProcessing = asyncEventProcessing;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of connections opened to each proxy.
+     */
+    public MCMPHandlerConfigurationBuilder setProxyConnectionPoolSize(int proxyConnectionPoolSize) {
+        this.proxyConnectionPoolSize = proxyConnectionPoolSize;
+        return this;
+    }
+
+    /**
+     * Sets whether STATUS and PING requests use a connection of their own.
+     */
+    public MCMPHandlerConfigurationBuilder setDedicatedHeartbeatConnection(boolean dedicatedHeartbeatConnection) {
+        this.dedicatedHeartbeatConnection = dedicatedHeartbeatConnection;
+        return this;
+    }
+
+    /**
+     * Sets the number of milliseconds after which an unused connection to a proxy is closed.
+     */
+    public MCMPHandlerConfigurationBuilder setProxyConnectionIdleTimeout(int proxyConnectionIdleTimeout) {
+        this.proxyConnectionIdleTimeout = proxyConnectionIdleTimeout;
+        return this;
+    }
+
+    /**
+     * Sets the number of milliseconds to wait before probing a proxy again after a failed attempt to re-establish communication.
+     */
+    public MCMPHandlerConfigurationBuilder setProxyRetryInitialDelay(int proxyRetryInitialDelay) {
+        this.proxyRetryInitialDelay = proxyRetryInitialDelay;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of milliseconds to wait before probing a proxy in error again.
+     */
+    public MCMPHandlerConfigurationBuilder setProxyRetryMaxDelay(int proxyRetryMaxDelay) {
+        this.proxyRetryMaxDelay = proxyRetryMaxDelay;
+        return this;
+    }
+
+    /**
+     * Sets the number of milliseconds that a periodic status check, and each STATUS request that follows it, may block the
+     * calling thread.
+     */
+    public MCMPHandlerConfigurationBuilder setStatusTimeout(int statusTimeout) {
+        this.statusTimeout = statusTimeout;
+        return this;
+    }
+
+    /**
+     * Sets the number of milliseconds for which context commands are queued before being sent in a batch.
+     */
+    public MCMPHandlerConfigurationBuilder setContextCommandBatchDelay(int contextCommandBatchDelay) {
+        this.contextCommandBatchDelay = contextCommandBatchDelay;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of context commands queued before they are sent.
+     */
+    public MCMPHandlerConfigurationBuilder setContextCommandQueueCapacity(int contextCommandQueueCapacity) {
+        this.contextCommandQueueCapacity = contextCommandQueueCapacity;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of milliseconds for which an unchanged load balance factor may suppress STATUS requests.
+     */
+    public MCMPHandlerConfigurationBuilder setStatusHeartbeatInterval(int statusHeartbeatInterval) {
+        this.statusHeartbeatInterval = statusHeartbeatInterval;
+        return this;
+    }
+
+    /**
+     * Sets the largest load balance factor difference for which a STATUS request is skipped.
+     */
+    public MCMPHandlerConfigurationBuilder setStatusLoadBalanceFactorTolerance(int statusLoadBalanceFactorTolerance) {
+        this.statusLoadBalanceFactorTolerance = statusLoadBalanceFactorTolerance;
+        return this;
+    }
+
+    /**
+     * Sets the number of milliseconds for which the responses to management requests are reused.
+     */
+    public MCMPHandlerConfigurationBuilder setProxyResultCacheTimeout(int proxyResultCacheTimeout) {
+        this.proxyResultCacheTimeout = proxyResultCacheTimeout;
+        return this;
+    }
+
     @Override
     public MCMPHandlerConfiguration create() {
-        return new MCMPHandlerConfigurationImpl(proxyConfigurations, proxyURL, socketTimeout, socketFactory, excludedContextsPerHost, advertise, autoEnableContexts, stopContextTimeout, stopContextTimeoutUnit, jvmRouteFactory, sessionDrainingStrategy);
+        return new MCMPHandlerConfigurationImpl(proxyConfigurations, proxyURL, socketTimeout, socketFactory, excludedContextsPerHost, advertise, autoEnableContexts, stopContextTimeout, stopContextTimeoutUnit, jvmRouteFactory, sessionDrainingStrategy, concurrentDispatch, concurrentDispatchTimeout, resetRequestPipelineWindow, asyncEventProcessing, proxyConnectionPoolSize, dedicatedHeartbeatConnection, proxyConnectionIdleTimeout, proxyRetryInitialDelay, proxyRetryMaxDelay, statusTimeout, contextCommandBatchDelay, contextCommandQueueCapacity, statusHeartbeatInterval, statusLoadBalanceFactorTolerance, proxyResultCacheTimeout);
     }
 }
\ No newline at end of file
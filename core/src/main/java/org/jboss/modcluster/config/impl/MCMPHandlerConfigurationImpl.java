@@ -36,8 +36,23 @@ public class MCMPHandlerConfigurationImpl implements MCMPHandlerConfiguration {
     private final TimeUnit stopContextTimeoutUnit;
     private final JvmRouteFactory jvmRouteFactory;
     private final SessionDrainingStrategy sessionDrainingStrategy;
-
-    public MCMPHandlerConfigurationImpl(Collection<ProxyConfiguration> proxyConfigurations, String proxyURL, int socketTimeout, SocketFactory socketFactory, Map<String, Set<String>> excludedContextsPerHost, Boolean advertise, boolean autoEnableContexts, long stopContextTimeout, TimeUnit stopContextTimeoutUnit, JvmRouteFactory jvmRouteFactory, SessionDrainingStrategy sessionDrainingStrategy) {
+    private final boolean concurrentDispatch;
+    private final int concurrentDispatchTimeout;
+    private final int resetRequestPipelineWindow;
+    private final boolean asyncEventProcessing;
+    private final int proxyConnectionPoolSize;
+    private final boolean dedicatedHeartbeatConnection;
+    private final int proxyConnectionIdleTimeout;
+    private final int proxyRetryInitialDelay;
+    private final int proxyRetryMaxDelay;
+    private final int statusTimeout;
+    private final int contextCommandBatchDelay;
+    private final int contextCommandQueueCapacity;
+    private final int statusHeartbeatInterval;
+    private final int statusLoadBalanceFactorTolerance;
+    private final int proxyResultCacheTimeout;
+
+    public MCMPHandlerConfigurationImpl(Collection<ProxyConfiguration> proxyConfigurations, String proxyURL, int socketTimeout, SocketFactory socketFactory, Map<String, Set<String>> excludedContextsPerHost, Boolean advertise, boolean autoEnableContexts, long stopContextTimeout, TimeUnit stopContextTimeoutUnit, JvmRouteFactory jvmRouteFactory, SessionDrainingStrategy sessionDrainingStrategy, boolean concurrentDispatch, int concurrentDispatchTimeout, int resetRequestPipelineWindow, boolean asyncEventProcessing, int proxyConnectionPoolSize, boolean dedicatedHeartbeatConnection, int proxyConnectionIdleTimeout, int proxyRetryInitialDelay, int proxyRetryMaxDelay, int statusTimeout, int contextCommandBatchDelay, int contextCommandQueueCapacity, int statusHeartbeatInterval, int statusLoadBalanceFactorTolerance, int proxyResultCacheTimeout) {
         this.proxyConfigurations = proxyConfigurations;
         this.proxyURL = proxyURL;
         this.socketTimeout = socketTimeout;
@@ -49,6 +64,21 @@ public class MCMPHandlerConfigurationImpl implements MCMPHandlerConfiguration {
         this.stopContextTimeoutUnit = stopContextTimeoutUnit;
         this.jvmRouteFactory = jvmRouteFactory;
         this.sessionDrainingStrategy = sessionDrainingStrategy;
+        this.concurrentDispatch = concurrentDispatch;
+        this.concurrentDispatchTimeout = concurrentDispatchTimeout;
+        this.resetRequestPipelineWindow = resetRequestPipelineWindow;
+        this.asyncEventProcessing = asyncEventProcessing;
+        this.proxyConnectionPoolSize = proxyConnectionPoolSize;
+        this.dedicatedHeartbeatConnection = dedicatedHeartbeatConnection;
+        this.proxyConnectionIdleTimeout = proxyConnectionIdleTimeout;
+        this.proxyRetryInitialDelay = proxyRetryInitialDelay;
+        this.proxyRetryMaxDelay = proxyRetryMaxDelay;
+        this.statusTimeout = statusTimeout;
+        this.contextCommandBatchDelay = contextCommandBatchDelay;
+        this.contextCommandQueueCapacity = contextCommandQueueCapacity;
+        this.statusHeartbeatInterval = statusHeartbeatInterval;
+        this.statusLoadBalanceFactorTolerance = statusLoadBalanceFactorTolerance;
+        this.proxyResultCacheTimeout = proxyResultCacheTimeout;
     }
 
     @Override
@@ -121,4 +151,79 @@ public class MCMPHandlerConfigurationImpl implements MCMPHandlerConfiguration {
     public SessionDrainingStrategy getSessionDrainingStrategy() {
         return sessionDrainingStrategy;
     }
+
+    @Override
+    public boolean isConcurrentDispatch() {
+        return concurrentDispatch;
+    }
+
+    @Override
+    public int getConcurrentDispatchTimeout() {
+        return concurrentDispatchTimeout;
+    }
+
+    @Override
+    public int getResetRequestPipelineWindow() {
+        return resetRequestPipelineWindow;
+    }
+
+    @Override
+    public boolean isAsyncEventProcessing() {
+        return asyncEventProcessing;
+    }
+
+    @Override
+    public int getProxyConnectionPoolSize() {
+        return proxyConnectionPoolSize;
+    }
+
+    @Override
+    public boolean isDedicatedHeartbeatConnection() {
+        return dedicatedHeartbeatConnection;
+    }
+
+    @Override
+    public int getProxyConnectionIdleTimeout() {
+        return proxyConnectionIdleTimeout;
+    }
+
+    @Override
+    public int getProxyRetryInitialDelay() {
+        return proxyRetryInitialDelay;
+    }
+
+    @Override
+    public int getProxyRetryMaxDelay() {
+        return proxyRetryMaxDelay;
+    }
+
+    @Override
+    public int getStatusTimeout() {
+        return statusTimeout;
+    }
+
+    @Override
+    public int getContextCommandBatchDelay() {
+        return contextCommandBatchDelay;
+    }
+
+    @Override
+    public int getContextCommandQueueCapacity() {
+        return contextCommandQueueCapacity;
+    }
+
+    @Override
+    public int getStatusHeartbeatInterval() {
+        return statusHeartbeatInterval;
+    }
+
+    @Override
+    public int getStatusLoadBalanceFactorTolerance() {
+        return statusLoadBalanceFactorTolerance;
+    }
+
+    @Override
+    public int getProxyResultCacheTimeout() {
+        return proxyResultCacheTimeout;
+    }
 }
@@ -256,6 +256,171 @@ public class ModClusterConfig implements BalancerConfiguration, MCMPHandlerConfi
         this.sessionDrainingStrategy = sessionDrainingStrategy;
     }
 
+    private boolean concurrentDispatch = false;
+
+    @Override
+    public boolean isConcurrentDispatch() {
+        return this.concurrentDispatch;
+    }
+
+    public void setConcurrentDispatch(boolean concurrentDispatch) {
+        this.concurrentDispatch = concurrentDispatch;
+    }
+
+    private int concurrentDispatchTimeout = 20000;
+
+    @Override
+    public int getConcurrentDispatchTimeout() {
+        return this.concurrentDispatchTimeout;
+    }
+
+    public void setConcurrentDispatchTimeout(int concurrentDispatchTimeout) {
+        this.concurrentDispatchTimeout = concurrentDispatchTimeout;
+    }
+
+    private int resetRequestPipelineWindow = 1;
+
+    @Override
+    public int getResetRequestPipelineWindow() {
+        return this.resetRequestPipelineWindow;
+    }
+
+    public void setResetRequestPipelineWindow(int resetRequestPipelineWindow) {
+        this.resetRequestPipelineWindow = resetRequestPipelineWindow;
+    }
+
+    private boolean asyncEventProcessing = false;
+
+    @Override
+    public boolean isAsyncEventProcessing() {
+        return this.asyncEventProcessing;
+    }
+
+    public void setAsyncEventProcessing(boolean asyncEventProcessing) {
+        this.asyncEventProcessing = asyncEventProcessing;
+    }
+
+    private int proxyConnectionPoolSize = 1;
+
+    @Override
+    public int getProxyConnectionPoolSize() {
+        return this.proxyConnectionPoolSize;
+    }
+
+    public void setProxyConnectionPoolSize(int proxyConnectionPoolSize) {
+        this.proxyConnectionPoolSize = proxyConnectionPoolSize;
+    }
+
+    private boolean dedicatedHeartbeatConnection = false;
+
+    @Override
+    public boolean isDedicatedHeartbeatConnection() {
+        return this.dedicatedHeartbeatConnection;
+    }
+
+    public void setDedicatedHeartbeatConnection(boolean dedicatedHeartbeatConnection) {
+        this.dedicatedHeartbeatConnection = dedicatedHeartbeatConnection;
+    }
+
+    private int proxyConnectionIdleTimeout = 60000;
+
+    @Override
+    public int getProxyConnectionIdleTimeout() {
+        return this.proxyConnectionIdleTimeout;
+    }
+
+    public void setProxyConnectionIdleTimeout(int proxyConnectionIdleTimeout) {
+        this.proxyConnectionIdleTimeout = proxyConnectionIdleTimeout;
+    }
+
+    private int proxyRetryInitialDelay = 0;
+
+    @Override
+    public int getProxyRetryInitialDelay() {
+        return this.proxyRetryInitialDelay;
+    }
+
+    public void setProxyRetryInitialDelay(int proxyRetryInitialDelay) {
+        this.proxyRetryInitialDelay = proxyRetryInitialDelay;
+    }
+
+    private int proxyRetryMaxDelay = 300000;
+
+    @Override
+    public int getProxyRetryMaxDelay() {
+        return this.proxyRetryMaxDelay;
+    }
+
+    public void setProxyRetryMaxDelay(int proxyRetryMaxDelay) {
+        this.proxyRetryMaxDelay = proxyRetryMaxDelay;
+    }
+
+    private int statusTimeout = 0;
+
+    @Override
+    public int getStatusTimeout() {
+        return this.statusTimeout;
+    }
+
+    public void setStatusTimeout(int statusTimeout) {
+        this.statusTimeout = statusTimeout;
+    }
+
+    private int contextCommandBatchDelay = 0;
+
+    @Override
+    public int getContextCommandBatchDelay() {
+        return this.contextCommandBatchDelay;
+    }
+
+    public void setContextCommandBatchDelay(int contextCommandBatchDelay) {
+        this.contextCommandBatchDelay = contextCommandBatchDelay;
+    }
+
+    private int contextCommandQueueCapacity = 64;
+
+    @Override
+    public int getContextCommandQueueCapacity() {
+        return this.contextCommandQueueCapacity;
+    }
+
+    public void setContextCommandQueueCapacity(int contextCommandQueueCapacity) {
+        this.contextCommandQueueCapacity = contextCommandQueueCapacity;
+    }
+
+    private int statusHeartbeatInterval = 0;
+
+    @Override
+    public int getStatusHeartbeatInterval() {
+        return this.statusHeartbeatInterval;
+    }
+
+    public void setStatusHeartbeatInterval(int statusHeartbeatInterval) {
+        this.statusHeartbeatInterval = statusHeartbeatInterval;
+    }
+
+    private int statusLoadBalanceFactorTolerance = 0;
+
+    @Override
+    public int getStatusLoadBalanceFactorTolerance() {
+        return this.statusLoadBalanceFactorTolerance;
+    }
+
+    public void setStatusLoadBalanceFactorTolerance(int statusLoadBalanceFactorTolerance) {
+        this.statusLoadBalanceFactorTolerance = statusLoadBalanceFactorTolerance;
+    }
+
+    private int proxyResultCacheTimeout = 0;
+
+    @Override
+    public int getProxyResultCacheTimeout() {
+        return this.proxyResultCacheTimeout;
+    }
+
+    public void setProxyResultCacheTimeout(int proxyResultCacheTimeout) {
+        this.proxyResultCacheTimeout = proxyResultCacheTimeout;
+    }
+
     // ----------------------------------------------------- SSLConfiguration
 
     private String sslCiphers = null;
@@ -5,16 +5,38 @@
 package org.jboss.modcluster.load.impl;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.Immutable;
 import org.jboss.logging.Logger;
 import org.jboss.modcluster.ModClusterLogger;
 import org.jboss.modcluster.container.Engine;
 import org.jboss.modcluster.load.LoadBalanceFactorProvider;
+import org.jboss.modcluster.load.metric.EngineIndependentLoadMetric;
 import org.jboss.modcluster.load.metric.LoadMetric;
 import org.jboss.modcluster.load.metric.NodeUnavailableException;
 
@@ -24,77 +46,121 @@ import org.jboss.modcluster.load.metric.NodeUnavailableException;
  * @author Paul Ferraro
  * @author Radoslav Husar
  */
-public class DynamicLoadBalanceFactorProvider implements LoadBalanceFactorProvider, DynamicLoadBalanceFactorProviderMBean {
+public class DynamicLoadBalanceFactorProvider implements LoadBalanceFactorProvider, DynamicLoadBalanceFactorProviderMBean, AutoCloseable {
     public static final int DEFAULT_INITIAL_LOAD = 0; // default to pre-populating with full load
     public static final float DEFAULT_DECAY_FACTOR = 2;
     public static final int DEFAULT_HISTORY = 9;
+    /** Number of intervals between computations of its load balance factor after which an engine is no longer sampled. */
+    private static final int EXPIRATION_INTERVALS = 3;
 
     private final Logger log = Logger.getLogger(this.getClass());
 
-    private final Map<LoadMetric, List<Double>> loadHistory = new LinkedHashMap<LoadMetric, List<Double>>();
+    /** Not modified after construction. */
+    private final Collection<LoadMetric> metrics;
+    /** Normalized load with which the history of each engine is pre-populated, or -1 if none. */
+    private final double initialLoad;
+    /** Load history of each engine, created upon the first computation of its load balance factor and expired once it stops. */
+    private final ConcurrentMap<Engine, EngineLoad> engineLoads = new ConcurrentHashMap<Engine, EngineLoad>();
+    /** Most recent load of each metric, shared by every engine if the metric is independent of the engine. */
+    private final ConcurrentMap<LoadMetric, Sample> samples = new ConcurrentHashMap<LoadMetric, Sample>();
 
     private volatile float decayFactor = DEFAULT_DECAY_FACTOR;
     private volatile int history = DEFAULT_HISTORY;
+    /** Seconds after which the weight of a load halves, or 0 if loads decay by sample count. */
+    private volatile float halfLife = 0;
+    /** Milliseconds between samples taken in the background, or 0 if loads are sampled when computing the load balance factor. */
+    private volatile int samplingInterval = 0;
+
+    @GuardedBy("this")
+    private volatile ScheduledExecutorService sampler;
+    /** Milliseconds within which each metric is evaluated in parallel, or 0 if metrics are evaluated one after another. */
+    private volatile int metricTimeout = 0;
+    @GuardedBy("this")
+    private ExecutorService evaluator;
+    private final AtomicLong slowMetricCount = new AtomicLong();
+
+    /** Decay weights for the current decay factor and history, rebuilt only when either changes. */
+    private volatile DecayWeights weights = new DecayWeights(DEFAULT_DECAY_FACTOR, DEFAULT_HISTORY);
 
     public DynamicLoadBalanceFactorProvider(Set<LoadMetric> metrics) {
         this(metrics, DEFAULT_INITIAL_LOAD);
     }
 
     public DynamicLoadBalanceFactorProvider(Set<LoadMetric> metrics, int initialLoad) {
-        for (LoadMetric metric : metrics) {
-            ArrayList<Double> history = new ArrayList<>(this.history + 1);
-            if (initialLoad != -1) {
-                if (initialLoad < 0 || initialLoad > 100) {
-                    throw ModClusterLogger.LOGGER.invalidInitialLoad(initialLoad);
-                }
-
-                double transformedLoad = 1d - ((double) initialLoad)/100d;
-
-                // Pre-populate historical values with full load by default to gradually ramp-up
-                for (int i = 0; i < this.history; i++) {
-                    history.add(transformedLoad);
-                }
+        if (initialLoad != -1) {
+            if (initialLoad < 0 || initialLoad > 100) {
+                throw ModClusterLogger.LOGGER.invalidInitialLoad(initialLoad);
             }
-            this.loadHistory.put(metric, history);
         }
+        this.metrics = new ArrayList<LoadMetric>(metrics);
+        this.initialLoad = (initialLoad != -1) ? 1d - ((double) initialLoad)/100d : -1;
     }
 
     @Override
-    public synchronized Map<String, Double> getMetrics() {
+    public Map<String, Double> getMetrics() {
+        // Reads the most recent load of each metric without contending with the load balance factor computation
         Map<String, Double> metrics = new TreeMap<>();
-        for (Map.Entry<LoadMetric, List<Double>> entry : this.loadHistory.entrySet()) {
-            List<Double> history = entry.getValue();
-            metrics.put(entry.getKey().getClass().getSimpleName(), history.isEmpty() ? 0 : history.get(0));
+        for (LoadMetric metric : this.metrics) {
+            Sample sample = this.samples.get(metric);
+            metrics.put(metric.getClass().getSimpleName(), (sample != null) ? sample.load : Math.max(this.initialLoad, 0));
         }
         return metrics;
     }
 
     @Override
-    public synchronized int getLoadBalanceFactor(Engine engine) {
+    public int getLoadBalanceFactor(Engine engine) {
+        EngineLoad engineLoad = this.getEngineLoad(engine);
+
+        if ((this.samplingInterval > 0) && this.schedule() && engineLoad.sampled) {
+            // Loads are sampled in the background, so only aggregate the recorded loads
+            return this.aggregate(engineLoad);
+        }
+
+        this.trySample(engine, engineLoad);
+        return this.aggregate(engineLoad);
+    }
+
+    private EngineLoad getEngineLoad(Engine engine) {
+        EngineLoad engineLoad = this.engineLoads.get(engine);
+
+        if (engineLoad != null) {
+            engineLoad.access(System.nanoTime());
+        } else {
+            engineLoad = new EngineLoad(this.metrics, this.initialLoad, this.history);
+            EngineLoad existing = this.engineLoads.putIfAbsent(engine, engineLoad);
+
+            if (existing != null) {
+                engineLoad = existing;
+                engineLoad.access(System.nanoTime());
+            }
+        }
+
+        return engineLoad;
+    }
+
+    /**
+     * Aggregates the loads recorded for the specified engine.
+     */
+    private int aggregate(EngineLoad engineLoad) {
         boolean nodeUnavailable = false;
         int totalWeight = 0;
         double totalWeightedLoad = 0;
 
-        for (Map.Entry<LoadMetric, List<Double>> entry : this.loadHistory.entrySet()) {
-            LoadMetric metric = entry.getKey();
-
-            int weight = metric.getWeight();
+        DecayWeights weights = this.getWeights();
 
-            if (weight > 0) {
-                List<Double> metricLoadHistory = entry.getValue();
+        synchronized (engineLoad) {
+            for (Map.Entry<LoadMetric, LoadHistory> entry : engineLoad.histories.entrySet()) {
+                int weight = entry.getKey().getWeight();
 
-                try {
-                    // Normalize load with respect to capacity
-                    this.recordLoad(metricLoadHistory, metric.getLoad(engine) / metric.getCapacity());
+                if (weight > 0) {
+                    LoadHistory metricLoadHistory = entry.getValue();
 
-                    totalWeight += weight;
-                    totalWeightedLoad += this.average(metricLoadHistory) * weight;
-                } catch (NodeUnavailableException e) {
-                    // The metric requested to put the node into error state
-                    // Call LoadMetric#getLoad on remaining metrics so that historical values are populated
-                    nodeUnavailable = true;
-                } catch (Exception e) {
-                    this.log.error(e.getLocalizedMessage(), e);
+                    if (metricLoadHistory.unavailable) {
+                        nodeUnavailable = true;
+                    } else if (!metricLoadHistory.failed && (metricLoadHistory.size() > 0)) {
+                        totalWeight += weight;
+                        totalWeightedLoad += this.average(metricLoadHistory, weights) * weight;
+                    }
                 }
             }
         }
@@ -111,37 +177,347 @@ public class DynamicLoadBalanceFactorProvider implements LoadBalanceFactorProvid
         return 100 - Math.max(0, Math.min(load, 99));
     }
 
-    private void recordLoad(List<Double> queue, double load) {
-        if (!queue.isEmpty()) {
-            // History could have changed, so prune queue accordingly
-            for (int i = (queue.size() - 1); i >= this.history; --i) {
-                queue.remove(i);
+    /**
+     * Samples the load of each metric of every known engine into its history, outside of the provider lock such that a slow
+     * metric never delays the computation of the load balance factor. Engines whose load balance factor is no longer computed,
+     * e.g. since they were stopped, are forgotten instead.
+     */
+    void sample() {
+        long interval = TimeUnit.MILLISECONDS.toNanos(this.samplingInterval);
+
+        for (Map.Entry<Engine, EngineLoad> entry : this.engineLoads.entrySet()) {
+            Engine engine = entry.getKey();
+            EngineLoad engineLoad = entry.getValue();
+
+            if (engineLoad.isExpired(System.nanoTime(), interval)) {
+                this.engineLoads.remove(engine, engineLoad);
+            } else {
+                this.trySample(engine, engineLoad);
+            }
+        }
+    }
+
+    /**
+     * Samples the specified engine, unless another thread is already sampling it, in which case only the loads recorded so far
+     * are aggregated. Sampling an engine concurrently would record the same interval twice and evaluate a slow metric more than
+     * once at a time. Until an engine was sampled once, there are no loads to aggregate, so its first sample is awaited instead.
+     */
+    private void trySample(Engine engine, EngineLoad engineLoad) {
+        if (engineLoad.sampled) {
+            if (!engineLoad.sampling.tryLock()) {
+                return;
+            }
+        } else {
+            engineLoad.sampling.lock();
+
+            if (engineLoad.sampled) {
+                // Sampled by another thread in the meantime
+                engineLoad.sampling.unlock();
+                return;
+            }
+        }
+
+        try {
+            this.sample(engine, engineLoad);
+        } finally {
+            engineLoad.sampling.unlock();
+        }
+    }
+
+    @GuardedBy("engineLoad.sampling")
+    private void sample(Engine engine, EngineLoad engineLoad) {
+        int timeout = this.metricTimeout;
+        long now = System.nanoTime();
+        long previousSampleTime = engineLoad.sampleTime;
+        engineLoad.sampleTime = now;
+
+        // Loads of engine independent metrics sampled for another engine since the previous sample of this engine are reused
+        Map<LoadMetric, Sample> shared = new HashMap<LoadMetric, Sample>();
+        for (LoadMetric metric : this.metrics) {
+            if (metric instanceof EngineIndependentLoadMetric) {
+                Sample sample = this.samples.get(metric);
+
+                if ((sample != null) && (sample.time - previousSampleTime > 0)) {
+                    shared.put(metric, sample);
+                }
+            }
+        }
+
+        Map<LoadMetric, Future<Double>> evaluations = (timeout > 0) ? this.submit(engine, engineLoad, shared.keySet()) : Collections.<LoadMetric, Future<Double>>emptyMap();
+        long deadline = now + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+        for (Map.Entry<LoadMetric, LoadHistory> entry : engineLoad.histories.entrySet()) {
+            LoadMetric metric = entry.getKey();
+
+            if (metric.getWeight() > 0) {
+                LoadHistory metricLoadHistory = entry.getValue();
+                Sample sample = shared.get(metric);
+                Future<Double> evaluation = evaluations.get(metric);
+
+                try {
+                    double load = (sample != null) ? sample.load : evaluations.containsKey(metric) ? await(metricLoadHistory, evaluation, deadline) : load(metric, engine);
+
+                    if (sample == null) {
+                        this.samples.put(metric, new Sample(load, now));
+                    }
+
+                    synchronized (engineLoad) {
+                        metricLoadHistory.unavailable = false;
+                        metricLoadHistory.failed = false;
+                        this.recordLoad(metricLoadHistory, load, this.history);
+                    }
+                } catch (TimeoutException e) {
+                    this.slowMetricCount.incrementAndGet();
+                    this.log.debugf("%s did not complete within its time budget of %d ms, reusing its last known load", metric.getClass().getSimpleName(), timeout);
+
+                    synchronized (engineLoad) {
+                        if (metricLoadHistory.size() > 0) {
+                            this.recordLoad(metricLoadHistory, metricLoadHistory.current, this.history);
+                        }
+                    }
+                } catch (NodeUnavailableException e) {
+                    // The metric requested to put the node into error state
+                    // Call LoadMetric#getLoad on remaining metrics so that historical values are populated
+                    synchronized (engineLoad) {
+                        metricLoadHistory.unavailable = true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    this.log.error(e.getLocalizedMessage(), e);
+
+                    synchronized (engineLoad) {
+                        metricLoadHistory.unavailable = false;
+                        metricLoadHistory.failed = true;
+                    }
+                }
+            }
+        }
+
+        engineLoad.sampled = true;
+    }
+
+    /**
+     * Starts evaluating each metric of the specified engine in parallel, unless a previous evaluation that exceeded its time
+     * budget is still pending, or its load is shared. The evaluation of a metric is null if the evaluator was saturated.
+     */
+    @GuardedBy("engineLoad.sampling")
+    private Map<LoadMetric, Future<Double>> submit(final Engine engine, EngineLoad engineLoad, Set<LoadMetric> shared) {
+        Map<LoadMetric, Future<Double>> evaluations = new HashMap<LoadMetric, Future<Double>>();
+        ExecutorService evaluator = this.getEvaluator();
+
+        for (Map.Entry<LoadMetric, LoadHistory> entry : engineLoad.histories.entrySet()) {
+            final LoadMetric metric = entry.getKey();
+
+            if ((metric.getWeight() > 0) && !shared.contains(metric)) {
+                LoadHistory metricLoadHistory = entry.getValue();
+                Future<Double> evaluation = metricLoadHistory.evaluation;
+
+                if (evaluation != null) {
+                    metricLoadHistory.evaluation = null;
+                } else {
+                    try {
+                        evaluation = evaluator.submit(new Callable<Double>() {
+                            @Override
+                            public Double call() throws Exception {
+                                return load(metric, engine);
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        if (evaluator.isShutdown()) {
+                            // Provider was closed concurrently, so evaluate in the calling thread instead
+                            continue;
+                        }
+                        // Evaluations that exceeded their time budget occupy the evaluator, so reuse the last known load
+                        evaluation = null;
+                    }
+                }
+
+                evaluations.put(metric, evaluation);
             }
         }
 
-        // Add new load to the head
-        queue.add(0, load);
+        return evaluations;
+    }
+
+    /**
+     * Waits for the specified evaluation of a metric until the deadline.
+     *
+     * @throws TimeoutException if the evaluation did not complete before the deadline, in which case it remains pending, or if
+     *                          there is no evaluation since the evaluator was saturated
+     */
+    private static double await(LoadHistory metricLoadHistory, Future<Double> evaluation, long deadline) throws Exception {
+        if (evaluation == null) {
+            throw new TimeoutException();
+        }
+        try {
+            return evaluation.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Wait for the same evaluation next time, rather than piling up evaluations of a slow metric
+            metricLoadHistory.evaluation = evaluation;
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw (cause instanceof Exception) ? (Exception) cause : e;
+        }
+    }
+
+    /**
+     * Returns the load of the specified metric, normalized with respect to its capacity.
+     */
+    static double load(LoadMetric metric, Engine engine) throws Exception {
+        return metric.getLoad(engine) / metric.getCapacity();
+    }
+
+    private synchronized ExecutorService getEvaluator() {
+        ExecutorService evaluator = this.evaluator;
+
+        if (evaluator == null) {
+            // Enough to evaluate every metric of an engine at once, plus as many queued evaluations. Evaluations that hang hold on
+            // to their thread, so further evaluations are rejected, rather than queued behind them where they would never
+            // complete within their time budget.
+            int threads = Math.max(1, this.metrics.size());
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(threads), createThreadFactory("mod_cluster load metric"));
+            executor.allowCoreThreadTimeOut(true);
+            evaluator = executor;
+            this.evaluator = evaluator;
+        }
+
+        return evaluator;
+    }
+
+    private static ThreadFactory createThreadFactory(final String name) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Starts sampling every known engine in the background, unless already started.
+     *
+     * @return true, if loads were already sampled in the background, false otherwise
+     */
+    private boolean schedule() {
+        // Avoid contention once started
+        if (this.sampler != null) {
+            return true;
+        }
+
+        synchronized (this) {
+            return this.startSampler();
+        }
+    }
+
+    @GuardedBy("this")
+    private boolean startSampler() {
+        if (this.sampler != null) {
+            return true;
+        }
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(createThreadFactory("mod_cluster load sampler"));
+        int interval = this.samplingInterval;
+
+        sampler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                DynamicLoadBalanceFactorProvider.this.sample();
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+
+        this.sampler = sampler;
+
+        // Sample once in the calling thread, as the sampler did not record any loads yet
+        return false;
+    }
+
+    /**
+     * Stops sampling in the background and evaluating metrics in parallel, if started, and forgets the load history of every
+     * engine. Either resumes upon the next computation of the load balance factor.
+     */
+    @Override
+    public synchronized void close() {
+        this.stop();
+        this.engineLoads.clear();
+    }
+
+    @GuardedBy("this")
+    private void stop() {
+        ScheduledExecutorService sampler = this.sampler;
+
+        if (sampler != null) {
+            this.sampler = null;
+            sampler.shutdownNow();
+        }
+
+        ExecutorService evaluator = this.evaluator;
+
+        if (evaluator != null) {
+            this.evaluator = null;
+            evaluator.shutdownNow();
+        }
+    }
+
+    private DecayWeights getWeights() {
+        int history = this.history;
+        float decayFactor = this.decayFactor;
+        DecayWeights weights = this.weights;
+
+        if ((weights.history != history) || (weights.decayFactor != decayFactor)) {
+            weights = new DecayWeights(decayFactor, history);
+            this.weights = weights;
+        }
+
+        return weights;
+    }
+
+    private void recordLoad(LoadHistory queue, double load, int history) {
+        long now = System.nanoTime();
+        float halfLife = this.halfLife;
+
+        if ((halfLife > 0) && (queue.size() > 0)) {
+            // Weigh the previous average by the real age of the loads, regardless of how often they are recorded
+            double age = (now - queue.smoothedTime) / (halfLife * 1e9);
+            queue.smoothed += (load - queue.smoothed) * (1 - Math.pow(2, -age));
+        } else {
+            queue.smoothed = load;
+        }
+        queue.smoothedTime = now;
+
+        // History could have changed, so resize queue accordingly, retaining the most recent loads
+        if (queue.capacity() != history + 1) {
+            queue.resize(history + 1);
+        }
+
+        // Add new load to the head, evicting the oldest load if full
+        queue.add(load);
     }
 
     /**
      * Compute historical average using time decay function
      */
-    private double average(List<Double> queue) {
-        assert !queue.isEmpty();
+    private double average(LoadHistory queue, DecayWeights weights) {
+        assert queue.size() > 0;
+
+        if (this.halfLife > 0) {
+            return queue.smoothed;
+        }
 
         double totalLoad = 0;
-        double totalDecay = 0;
-        double decayFactor = this.decayFactor;
+        // History could have shrunk since the last load was recorded
+        int size = Math.min(queue.size(), weights.decays.length);
 
         // Historical value contribute an exponentially decayed factor
-        for (int i = 0; i < queue.size(); ++i) {
-            double decay = 1 / Math.pow(decayFactor, i);
-
-            totalDecay += decay;
-            totalLoad += queue.get(i) * decay;
+        for (int i = 0; i < size; ++i) {
+            totalLoad += queue.get(i) * weights.decays[i];
         }
 
-        return totalLoad / totalDecay;
+        return totalLoad / weights.totalDecays[size - 1];
     }
 
     @Override
@@ -163,4 +539,198 @@ public class DynamicLoadBalanceFactorProvider implements LoadBalanceFactorProvid
     public void setHistory(int history) {
         this.history = Math.max(0, history);
     }
+
+    @Override
+    public float getHalfLife() {
+        return this.halfLife;
+    }
+
+    @Override
+    public void setHalfLife(float halfLife) {
+        this.halfLife = Math.max(0, halfLife);
+    }
+
+    @Override
+    public int getMetricTimeout() {
+        return this.metricTimeout;
+    }
+
+    @Override
+    public void setMetricTimeout(int metricTimeout) {
+        this.metricTimeout = Math.max(0, metricTimeout);
+    }
+
+    @Override
+    public long getSlowMetricCount() {
+        return this.slowMetricCount.get();
+    }
+
+    @Override
+    public int getSamplingInterval() {
+        return this.samplingInterval;
+    }
+
+    @Override
+    public synchronized void setSamplingInterval(int samplingInterval) {
+        int interval = Math.max(0, samplingInterval);
+
+        if (interval != this.samplingInterval) {
+            this.samplingInterval = interval;
+            // Reschedule upon the next computation of the load balance factor, if still enabled
+            this.stop();
+        }
+    }
+
+    /**
+     * Load history of each metric of an engine, guarded by itself such that engines never contend with each other.
+     */
+    private static class EngineLoad {
+        /** Not modified after construction. */
+        final Map<LoadMetric, LoadHistory> histories = new LinkedHashMap<LoadMetric, LoadHistory>();
+        /** Held while this engine is sampled, which the sampler and callers computing its load balance factor never do at once. */
+        final Lock sampling = new ReentrantLock();
+        /** Value of {@link System#nanoTime()} at which this engine was last sampled. */
+        volatile long sampleTime = System.nanoTime();
+        /** Whether this engine was sampled before, such that its first load balance factor is computed from a sample exactly once. */
+        volatile boolean sampled = false;
+        /** Value of {@link System#nanoTime()} at which the load balance factor of this engine was last computed. */
+        private volatile long accessTime = System.nanoTime();
+        /** Nanoseconds between the last two computations of the load balance factor of this engine, or 0 if computed once. */
+        private volatile long accessInterval = 0;
+
+        EngineLoad(Collection<LoadMetric> metrics, double initialLoad, int history) {
+            for (LoadMetric metric : metrics) {
+                LoadHistory metricLoadHistory = new LoadHistory(history + 1);
+                if (initialLoad != -1) {
+                    // Pre-populate historical values with full load by default to gradually ramp-up
+                    for (int i = 0; i < history; i++) {
+                        metricLoadHistory.add(initialLoad);
+                    }
+                    metricLoadHistory.smoothed = initialLoad;
+                    metricLoadHistory.smoothedTime = System.nanoTime();
+                }
+                this.histories.put(metric, metricLoadHistory);
+            }
+        }
+
+        void access(long now) {
+            this.accessInterval = now - this.accessTime;
+            this.accessTime = now;
+        }
+
+        /**
+         * Indicates whether the load balance factor of this engine was not computed for several of its usual intervals, or
+         * sampling intervals if longer. An engine whose load balance factor was computed only once is only forgotten upon {@link
+         * DynamicLoadBalanceFactorProvider#close()}.
+         */
+        boolean isExpired(long now, long samplingInterval) {
+            long accessInterval = this.accessInterval;
+            return (accessInterval > 0) && (now - this.accessTime > EXPIRATION_INTERVALS * Math.max(accessInterval, samplingInterval));
+        }
+    }
+
+    /**
+     * Load of a metric, and the value of {@link System#nanoTime()} at which it was sampled.
+     */
+    @Immutable
+    private static class Sample {
+        final double load;
+        final long time;
+
+        Sample(double load, long time) {
+            this.load = load;
+            this.time = time;
+        }
+    }
+
+    /**
+     * Fixed-capacity ring buffer of the most recent loads of a metric, which evicts the oldest load once full.
+     */
+    private static class LoadHistory {
+        private double[] loads;
+        /** Index of the most recent load. */
+        private int head = -1;
+        private int size = 0;
+        /** Most recent load, or 0 if none was recorded yet. */
+        double current = 0;
+        /** Whether the metric requested to put the node into error state when it was last sampled. */
+        boolean unavailable = false;
+        /** Whether the metric failed to determine its load when it was last sampled. */
+        boolean failed = false;
+        /** Time decayed average of the recorded loads. */
+        double smoothed = 0;
+        /** Value of {@link System#nanoTime()} at which the time decayed average was last updated. */
+        long smoothedTime;
+        /**
+         * Evaluation of the metric that exceeded its time budget, awaited again before evaluating the metric anew. Only accessed
+         * while sampling the engine.
+         */
+        Future<Double> evaluation;
+
+        LoadHistory(int capacity) {
+            this.loads = new double[capacity];
+        }
+
+        int capacity() {
+            return this.loads.length;
+        }
+
+        int size() {
+            return this.size;
+        }
+
+        void add(double load) {
+            this.head = (this.head + 1) % this.loads.length;
+            this.loads[this.head] = load;
+            if (this.size < this.loads.length) {
+                this.size += 1;
+            }
+            this.current = load;
+        }
+
+        /**
+         * Returns the load recorded the specified number of samples ago, where 0 is the most recent load.
+         */
+        double get(int age) {
+            return this.loads[(this.head - age + this.loads.length) % this.loads.length];
+        }
+
+        void resize(int capacity) {
+            int size = Math.min(this.size, capacity);
+            double[] loads = new double[capacity];
+            // Copy the retained loads, oldest first
+            for (int i = 0; i < size; ++i) {
+                loads[i] = this.get(size - 1 - i);
+            }
+            this.loads = loads;
+            this.size = size;
+            this.head = size - 1;
+        }
+    }
+
+    /**
+     * Decay of each historical load, the most recent first, along with their cumulative sums.
+     */
+    private static class DecayWeights {
+        final float decayFactor;
+        final int history;
+        final double[] decays;
+        final double[] totalDecays;
+
+        DecayWeights(float decayFactor, int history) {
+            this.decayFactor = decayFactor;
+            this.history = history;
+            this.decays = new double[history + 1];
+            this.totalDecays = new double[history + 1];
+
+            double totalDecay = 0;
+            for (int i = 0; i <= history; ++i) {
+                double decay = 1 / Math.pow(decayFactor, i);
+
+                totalDecay += decay;
+                this.decays[i] = decay;
+                this.totalDecays[i] = totalDecay;
+            }
+        }
+    }
 }
@@ -38,6 +38,58 @@ public interface DynamicLoadBalanceFactorProviderMBean {
      */
     void setDecayFactor(float decayFactor);
 
+    /**
+     * Returns the number of seconds after which the contribution of a load to the load balance factor halves.
+     *
+     * @return a positive number, or 0 if loads decay by the number of samples recorded since, per the decay factor and history
+     */
+    float getHalfLife();
+
+    /**
+     * Sets the number of seconds after which the contribution of a load to the load balance factor halves. Loads are then
+     * weighted by their real age, such that the smoothing is independent of how often loads are sampled.
+     *
+     * @param halfLife a positive number, or 0 to decay loads by the number of samples recorded since
+     */
+    void setHalfLife(float halfLife);
+
+    /**
+     * Returns the number of milliseconds within which each load metric must be evaluated.
+     *
+     * @return a positive integer, or 0 if the load metrics are evaluated one after another without a time budget
+     */
+    int getMetricTimeout();
+
+    /**
+     * Sets the number of milliseconds within which each load metric must be evaluated. Load metrics are then evaluated in
+     * parallel, and a load metric that exceeds this time budget contributes its last known load instead.
+     *
+     * @param metricTimeout a positive integer, or 0 to evaluate the load metrics one after another without a time budget
+     */
+    void setMetricTimeout(int metricTimeout);
+
+    /**
+     * Returns the number of times a load metric exceeded its time budget.
+     *
+     * @return a non-negative number
+     */
+    long getSlowMetricCount();
+
+    /**
+     * Returns the number of milliseconds between samples of the load metrics taken in the background.
+     *
+     * @return a positive integer, or 0 if the load metrics are sampled when the load balance factor is computed
+     */
+    int getSamplingInterval();
+
+    /**
+     * Sets the number of milliseconds between samples of the load metrics taken in the background, independently of the
+     * computation of the load balance factor, which then only aggregates the sampled values.
+     *
+     * @param samplingInterval a positive integer, or 0 to sample the load metrics when the load balance factor is computed
+     */
+    void setSamplingInterval(int samplingInterval);
+
     /**
      * Returns the load metrics registered with this provider
      *
@@ -14,8 +14,9 @@ import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
 
 import org.jboss.modcluster.container.Engine;
+import org.jboss.modcluster.load.metric.EngineIndependentLoadMetric;
 
-public abstract class AbstractMBeanLoadMetric extends AbstractLoadMetric {
+public abstract class AbstractMBeanLoadMetric extends AbstractLoadMetric implements EngineIndependentLoadMetric {
     private MBeanServer server = ManagementFactory.getPlatformMBeanServer();
     private ObjectName pattern;
 
@@ -9,13 +9,14 @@ import java.lang.management.OperatingSystemMXBean;
 
 import org.jboss.modcluster.ModClusterLogger;
 import org.jboss.modcluster.container.Engine;
+import org.jboss.modcluster.load.metric.EngineIndependentLoadMetric;
 
 /**
  * Uses {@link OperatingSystemMXBean#getSystemLoadAverage} to calculate average system load.
  *
  * @author Paul Ferraro
  */
-public class AverageSystemLoadMetric extends AbstractLoadMetric {
+public class AverageSystemLoadMetric extends AbstractLoadMetric implements EngineIndependentLoadMetric {
     private final OperatingSystemMXBean bean;
 
     public AverageSystemLoadMetric() {
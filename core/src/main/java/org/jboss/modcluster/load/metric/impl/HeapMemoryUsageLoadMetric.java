@@ -9,6 +9,7 @@ import java.lang.management.MemoryMXBean;
 import java.lang.management.MemoryUsage;
 
 import org.jboss.modcluster.container.Engine;
+import org.jboss.modcluster.load.metric.EngineIndependentLoadMetric;
 import org.jboss.modcluster.load.metric.LoadMetric;
 
 /**
@@ -16,7 +17,7 @@ import org.jboss.modcluster.load.metric.LoadMetric;
  *
  * @author Paul Ferraro
  */
-public class HeapMemoryUsageLoadMetric extends AbstractLoadMetric {
+public class HeapMemoryUsageLoadMetric extends AbstractLoadMetric implements EngineIndependentLoadMetric {
     private final MemoryMXBean bean;
 
     public HeapMemoryUsageLoadMetric() {
@@ -9,6 +9,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.jboss.modcluster.config.ProxyConfiguration;
 
@@ -45,6 +46,28 @@ public interface MCMPHandler {
      */
     Map<MCMPServerState, List<String>> sendRequests(List<MCMPRequest> requests);
 
+    /**
+     * Asynchronous variant of {@link #sendRequest(MCMPRequest)}, which returns without waiting for any proxy to respond.
+     * The default implementation blocks in {@link #sendRequest(MCMPRequest)} and returns an already completed future.
+     *
+     * @param request the request. Cannot be <code>null</code>
+     * @return a future that completes with the response of each proxy once all proxies have responded
+     */
+    default CompletableFuture<Map<MCMPServerState, String>> sendRequestAsync(MCMPRequest request) {
+        return CompletableFuture.completedFuture(this.sendRequest(request));
+    }
+
+    /**
+     * Asynchronous variant of {@link #sendRequests(List)}, which returns without waiting for any proxy to respond.
+     * The default implementation blocks in {@link #sendRequests(List)} and returns an already completed future.
+     *
+     * @param requests the requests. Cannot be <code>null</code>
+     * @return a future that completes with the responses of each proxy once all proxies have responded
+     */
+    default CompletableFuture<Map<MCMPServerState, List<String>>> sendRequestsAsync(List<MCMPRequest> requests) {
+        return CompletableFuture.completedFuture(this.sendRequests(requests));
+    }
+
     /**
      * Add a proxy to the list of those with which this handler communicates. Communication does not begin until the next call
      * to {@link #status()}.
@@ -133,4 +156,15 @@ public interface MCMPHandler {
      * with the list of requests provided by the source.
      */
     void status();
+
+    /**
+     * Asynchronous variant of {@link #status()}, which returns without waiting for any proxy to respond.
+     * The default implementation blocks in {@link #status()} and returns an already completed future.
+     *
+     * @return a future that completes once periodic processing has completed
+     */
+    default CompletableFuture<Void> statusAsync() {
+        this.status();
+        return CompletableFuture.completedFuture(null);
+    }
 }
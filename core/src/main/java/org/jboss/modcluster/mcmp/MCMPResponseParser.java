@@ -4,6 +4,8 @@
  */
 package org.jboss.modcluster.mcmp;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.Map;
 import java.util.Set;
 
@@ -19,6 +21,23 @@ public interface MCMPResponseParser {
      */
     Map<String, Set<ResetRequestSource.VirtualHost>> parseInfoResponse(String response);
 
+    /**
+     * Parses the response from a INFO request as it is read from the specified reader.
+     *
+     * @param response a reader of an INFO-RSP
+     * @return a map of virtual hosts per jvm route.
+     * @throws IOException if the response could not be read
+     */
+    default Map<String, Set<ResetRequestSource.VirtualHost>> parseInfoResponse(Reader response) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        char[] buffer = new char[4096];
+        int read;
+        while ((read = response.read(buffer)) >= 0) {
+            builder.append(buffer, 0, read);
+        }
+        return this.parseInfoResponse(builder.toString());
+    }
+
     /**
      * Parses the response from a PING request.
      *
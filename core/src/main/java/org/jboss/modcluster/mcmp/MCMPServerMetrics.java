@@ -0,0 +1,101 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.mcmp;
+
+/**
+ * Statistics of the communication with an {@link MCMPServer}, accumulated since the server was added.
+ */
+public interface MCMPServerMetrics {
+    /** Metrics of a server whose communication is not measured, all of which are 0. */
+    MCMPServerMetrics EMPTY = new MCMPServerMetrics() {
+        @Override
+        public long getRequestCount(MCMPRequestType requestType) {
+            return 0;
+        }
+
+        @Override
+        public long getRequestLatency(MCMPRequestType requestType, double percentile) {
+            return 0;
+        }
+
+        @Override
+        public long getConnectCount() {
+            return 0;
+        }
+
+        @Override
+        public long getReconnectCount() {
+            return 0;
+        }
+
+        @Override
+        public long getRetryCount() {
+            return 0;
+        }
+
+        @Override
+        public long getBytesSent() {
+            return 0;
+        }
+
+        @Override
+        public long getBytesReceived() {
+            return 0;
+        }
+    };
+
+    /**
+     * Returns the number of requests of the specified type that were sent to the server.
+     *
+     * @param requestType a request type
+     * @return number of requests
+     */
+    long getRequestCount(MCMPRequestType requestType);
+
+    /**
+     * Returns the time, in microseconds, within which the specified percentage of the requests of the specified type completed,
+     * including connecting and retrying.
+     *
+     * @param requestType a request type
+     * @param percentile  a percentage between 0 and 100
+     * @return latency in microseconds, or 0 if no request of this type was sent
+     */
+    long getRequestLatency(MCMPRequestType requestType, double percentile);
+
+    /**
+     * Returns the number of connections opened to the server.
+     *
+     * @return number of connections, including reconnections
+     */
+    long getConnectCount();
+
+    /**
+     * Returns the number of connections opened to the server to replace a connection that was closed.
+     *
+     * @return number of reconnections
+     */
+    long getReconnectCount();
+
+    /**
+     * Returns the number of requests that were sent again on a fresh connection after a failed read or write.
+     *
+     * @return number of retries
+     */
+    long getRetryCount();
+
+    /**
+     * Returns the number of bytes sent to the server.
+     *
+     * @return number of bytes
+     */
+    long getBytesSent();
+
+    /**
+     * Returns the number of bytes received from the server.
+     *
+     * @return number of bytes
+     */
+    long getBytesReceived();
+}
@@ -16,4 +16,42 @@ public interface MCMPServerState extends MCMPServer {
     }
 
     State getState();
+
+    /**
+     * Returns the number of consecutive failed attempts to re-establish communication with this server since it was last
+     * reachable.
+     *
+     * @return number of consecutive failures
+     */
+    default int getConsecutiveFailures() {
+        return 0;
+    }
+
+    /**
+     * Returns the total number of failed attempts to re-establish communication with this server.
+     *
+     * @return total number of failures
+     */
+    default long getTotalFailures() {
+        return 0;
+    }
+
+    /**
+     * Returns the time before which no further attempt is made to re-establish communication with this server.
+     *
+     * @return time in milliseconds since the epoch, or 0 if the next status check makes an attempt
+     */
+    default long getNextRetryTime() {
+        return 0;
+    }
+
+    /**
+     * Returns the statistics of the communication with this server.
+     * The default implementation returns {@link MCMPServerMetrics#EMPTY}.
+     *
+     * @return the metrics of this server
+     */
+    default MCMPServerMetrics getMetrics() {
+        return MCMPServerMetrics.EMPTY;
+    }
 }
@@ -38,4 +38,14 @@ public interface ResetRequestSource {
      * @return a list of requests. Will not return <code>null</code>.
      */
     List<MCMPRequest> getResetRequests(Map<String, Set<VirtualHost>> response);
+
+    /**
+     * Gets a fingerprint of the local state from which reset requests are derived, such that {@link #getResetRequests(Map)}
+     * returns equivalent requests for equal responses as long as the fingerprint remains equal.
+     *
+     * @return a fingerprint, or <code>null</code> if the local state cannot be fingerprinted
+     */
+    default Object getTopologyFingerprint() {
+        return null;
+    }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.mcmp.impl;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Guards the attempts to re-establish communication with a proxy in error. After a failed attempt the breaker opens for an
+ * exponentially growing, randomized delay, during which no attempt is made. Once the delay elapsed, the breaker is half-open
+ * and allows a single probe, whose outcome either closes the breaker or opens it again for a longer delay.
+ */
+@ThreadSafe
+class CircuitBreaker {
+    private final long initialDelay;
+    private final long maxDelay;
+
+    @GuardedBy("this")
+    private int consecutiveFailures = 0;
+    @GuardedBy("this")
+    private long totalFailures = 0;
+    /** Value of {@link System#nanoTime()} at which the breaker becomes half-open. */
+    @GuardedBy("this")
+    private long nextAttempt = 0;
+    @GuardedBy("this")
+    private boolean probing = false;
+
+    /**
+     * @param initialDelay milliseconds to wait after the first failure; a non-positive value never delays a probe
+     * @param maxDelay     maximum milliseconds to wait between probes
+     */
+    CircuitBreaker(int initialDelay, int maxDelay) {
+        this.initialDelay = TimeUnit.MILLISECONDS.toNanos(Math.max(0, initialDelay));
+        this.maxDelay = TimeUnit.MILLISECONDS.toNanos(Math.max(initialDelay, maxDelay));
+    }
+
+    /**
+     * Indicates whether a probe may be sent now, i.e. the breaker is closed, or half-open without a probe in progress. If so,
+     * the caller must report the outcome of the probe via {@link #success()} or {@link #failure()}.
+     */
+    synchronized boolean allowProbe() {
+        if (this.probing || ((this.consecutiveFailures > 0) && (System.nanoTime() - this.nextAttempt < 0))) {
+            return false;
+        }
+        this.probing = true;
+        return true;
+    }
+
+    synchronized void success() {
+        this.consecutiveFailures = 0;
+        this.probing = false;
+    }
+
+    synchronized void failure() {
+        this.consecutiveFailures += 1;
+        this.totalFailures += 1;
+        this.probing = false;
+
+        long delay = this.initialDelay;
+        for (int i = 1; (i < this.consecutiveFailures) && (delay < this.maxDelay); ++i) {
+            delay *= 2;
+        }
+        delay = Math.min(delay, this.maxDelay);
+
+        // Randomize by up to half, so that nodes do not probe a recovering proxy in lock step
+        if (delay > 1) {
+            delay -= ThreadLocalRandom.current().nextLong(delay / 2);
+        }
+
+        this.nextAttempt = System.nanoTime() + delay;
+    }
+
+    /**
+     * Closes the breaker, such that the next probe is sent without delay. Failures reported so far are still counted by
+     * {@link #getTotalFailures()}.
+     */
+    synchronized void reset() {
+        this.consecutiveFailures = 0;
+    }
+
+    synchronized int getConsecutiveFailures() {
+        return this.consecutiveFailures;
+    }
+
+    synchronized long getTotalFailures() {
+        return this.totalFailures;
+    }
+
+    /**
+     * Returns the time, in milliseconds since the epoch, at which the breaker becomes half-open, or 0 if a probe is not
+     * delayed.
+     */
+    synchronized long getNextRetryTime() {
+        long remaining = this.nextAttempt - System.nanoTime();
+        return ((this.consecutiveFailures > 0) && (remaining > 0)) ? System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(remaining) : 0;
+    }
+}
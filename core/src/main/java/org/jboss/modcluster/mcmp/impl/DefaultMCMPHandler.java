@@ -4,35 +4,50 @@
  */
 package org.jboss.modcluster.mcmp.impl;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
 import java.io.Externalizable;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
+import java.io.Reader;
 import java.io.Serializable;
-import java.io.Writer;
+import java.io.UncheckedIOException;
 import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.net.URLEncoder;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import javax.net.SocketFactory;
 
 import net.jcip.annotations.GuardedBy;
@@ -48,6 +63,7 @@ import org.jboss.modcluster.mcmp.MCMPRequestFactory;
 import org.jboss.modcluster.mcmp.MCMPRequestType;
 import org.jboss.modcluster.mcmp.MCMPResponseParser;
 import org.jboss.modcluster.mcmp.MCMPServer;
+import org.jboss.modcluster.mcmp.MCMPServerMetrics;
 import org.jboss.modcluster.mcmp.MCMPServerState;
 import org.jboss.modcluster.mcmp.MCMPServerState.State;
 import org.jboss.modcluster.mcmp.ResetRequestSource;
@@ -61,11 +77,26 @@ import org.jboss.modcluster.mcmp.ResetRequestSource;
  */
 @ThreadSafe
 public class DefaultMCMPHandler implements MCMPHandler {
-    private static final String NEW_LINE = "\r\n";
 
     static final Logger log = Logger.getLogger(DefaultMCMPHandler.class);
 
-    // -------------------------------------------------------------- Constants
+    private static final int BUFFER_SIZE = 8192;
+
+    /** Materializes the body of a response. */
+    private static final Function<MCMPResponseDecoder, String> BODY = new Function<MCMPResponseDecoder, String>() {
+        @Override
+        public String apply(MCMPResponseDecoder response) {
+            return response.getBody();
+        }
+    };
+
+    /** Discards the body of an INFO response, if the proxy need not be reset. */
+    private static final Function<MCMPResponseDecoder, Map<String, Set<ResetRequestSource.VirtualHost>>> NO_INFO = new Function<MCMPResponseDecoder, Map<String, Set<ResetRequestSource.VirtualHost>>>() {
+        @Override
+        public Map<String, Set<ResetRequestSource.VirtualHost>> apply(MCMPResponseDecoder response) {
+            return null;
+        }
+    };
 
     // ----------------------------------------------------------------- Fields
 
@@ -75,25 +106,41 @@ public class DefaultMCMPHandler implements MCMPHandler {
     private final MCMPRequestFactory requestFactory;
     private final MCMPResponseParser responseParser;
 
-    private final ReadWriteLock proxiesLock = new ReentrantReadWriteLock();
-    private final Lock addRemoveProxiesLock = new ReentrantLock();
-
-    /** Proxies. */
-    @GuardedBy("proxiesLock")
-    private final List<Proxy> proxies = new ArrayList<Proxy>();
-
-    /** Add proxy list. */
-    @GuardedBy("addRemoveProxiesLock")
-    private final List<Proxy> addProxies = new ArrayList<Proxy>();
-
-    /** Remove proxy list. */
-    @GuardedBy("addRemoveProxiesLock")
-    private final List<Proxy> removeProxies = new ArrayList<Proxy>();
+    /** Proxies, and pending additions and removals, replaced atomically on every change. */
+    private final AtomicReference<Registry> registry = new AtomicReference<Registry>(Registry.EMPTY);
 
     private final AtomicBoolean established = new AtomicBoolean(false);
     private volatile MCMPConnectionListener connectionListener;
     private volatile boolean init = false;
 
+    /** Worker performing asynchronous periodic processing, created on demand. */
+    private final AtomicReference<ExecutorService> statusExecutor = new AtomicReference<ExecutorService>();
+    /** Worker re-resolving the host names of proxies, created on demand. */
+    private final AtomicReference<ExecutorService> resolverExecutor = new AtomicReference<ExecutorService>();
+
+    /** Parses the body of an INFO response from the received bytes. */
+    private final Function<MCMPResponseDecoder, Map<String, Set<ResetRequestSource.VirtualHost>>> infoResponseReader = new Function<MCMPResponseDecoder, Map<String, Set<ResetRequestSource.VirtualHost>>>() {
+        @Override
+        public Map<String, Set<ResetRequestSource.VirtualHost>> apply(MCMPResponseDecoder response) {
+            if (response.getStatus() != 200) {
+                return null;
+            }
+
+            Reader body = response.getBodyReader();
+
+            if (body == null) {
+                return DefaultMCMPHandler.this.responseParser.parseInfoResponse((String) null);
+            }
+
+            try {
+                return DefaultMCMPHandler.this.responseParser.parseInfoResponse(body);
+            } catch (IOException e) {
+                // Not thrown while reading received bytes
+                throw new UncheckedIOException(e);
+            }
+        }
+    };
+
     // ----------------------------------------------------------- Constructors
 
     public DefaultMCMPHandler(MCMPHandlerConfiguration config, ResetRequestSource source, MCMPRequestFactory requestFactory,
@@ -111,18 +158,11 @@ public class DefaultMCMPHandler implements MCMPHandler {
         this.connectionListener = connectionListener;
 
         if (proxies != null) {
-            Lock lock = this.proxiesLock.writeLock();
-            lock.lock();
-
-            try {
-                for (final ProxyConfiguration proxy : proxies) {
-                    this.add(proxy.getRemoteAddress(), proxy.getLocalAddress());
-                }
-
-                this.status(false);
-            } finally {
-                lock.unlock();
+            for (final ProxyConfiguration proxy : proxies) {
+                this.add(proxy.getRemoteAddress(), proxy.getLocalAddress());
             }
+
+            this.status(false);
         }
 
         this.init = true;
@@ -132,15 +172,13 @@ public class DefaultMCMPHandler implements MCMPHandler {
     public void shutdown() {
         this.init = false;
 
-        Lock lock = this.proxiesLock.readLock();
-        lock.lock();
+        shutdownExecutor(this.statusExecutor);
+        shutdownExecutor(this.resolverExecutor);
 
-        try {
-            for (Proxy proxy : this.proxies) {
-                proxy.closeConnection();
-            }
-        } finally {
-            lock.unlock();
+        for (Proxy proxy : this.registry.get().proxies) {
+            shutdownExecutor(proxy.executor);
+            shutdownExecutor(proxy.heartbeatExecutor);
+            proxy.closeConnections();
         }
     }
 
@@ -160,40 +198,25 @@ public class DefaultMCMPHandler implements MCMPHandler {
     }
 
     private Proxy add(InetSocketAddress socketAddress, InetSocketAddress localAddress) {
-        Proxy proxy = new Proxy(socketAddress, localAddress, this.config);
+        Proxy proxy = null;
 
-        this.addRemoveProxiesLock.lock();
+        while (true) {
+            Registry current = this.registry.get();
+            Proxy existing = current.find(socketAddress);
 
-        try {
-            Lock lock = this.proxiesLock.readLock();
-            lock.lock();
-
-            try {
-                for (Proxy candidate : this.proxies) {
-                    if (candidate.equals(proxy))
-                        return candidate;
-                }
-            } finally {
-                lock.unlock();
+            if (existing != null) {
+                return existing;
             }
 
-            for (Proxy candidate : this.addProxies) {
-                if (candidate.equals(proxy))
-                    return candidate;
-            }
-            for (Proxy candidate : this.removeProxies) {
-                if (candidate.equals(proxy))
-                    return candidate;
+            if (proxy == null) {
+                proxy = new Proxy(socketAddress, localAddress, this.config, this.resolverExecutor);
+                proxy.setState(Proxy.State.ERROR);
             }
 
-            proxy.setState(Proxy.State.ERROR);
-
-            this.addProxies.add(proxy);
-        } finally {
-            this.addRemoveProxiesLock.unlock();
+            if (this.registry.compareAndSet(current, current.add(socketAddress, proxy))) {
+                return proxy;
+            }
         }
-
-        return proxy;
     }
 
     @Override
@@ -209,84 +232,61 @@ public class DefaultMCMPHandler implements MCMPHandler {
 
     @Override
     public void removeProxy(InetSocketAddress socketAddress) {
-        Proxy proxy = new Proxy(socketAddress, this.config);
-
-        this.addRemoveProxiesLock.lock();
+        while (true) {
+            Registry current = this.registry.get();
+            Registry next = current.remove(socketAddress);
 
-        try {
-            this.removeProxies.add(proxy);
-        } finally {
-            this.addRemoveProxiesLock.unlock();
+            if ((next == current) || this.registry.compareAndSet(current, next)) {
+                return;
+            }
         }
     }
 
     @Override
     public Set<MCMPServerState> getProxyStates() {
-        Lock lock = this.proxiesLock.readLock();
-        lock.lock();
-
-        try {
-            if (this.proxies.isEmpty())
-                return Collections.emptySet();
+        Proxy[] proxies = this.registry.get().proxies;
 
-            Set<MCMPServerState> result = new LinkedHashSet<MCMPServerState>(this.proxies.size());
+        if (proxies.length == 0)
+            return Collections.emptySet();
 
-            for (Proxy proxy : this.proxies) {
-                result.add(proxy);
-            }
+        Set<MCMPServerState> result = new LinkedHashSet<MCMPServerState>(proxies.length);
 
-            return result;
-        } finally {
-            lock.unlock();
+        for (Proxy proxy : proxies) {
+            result.add(proxy);
         }
+
+        return result;
     }
 
     @Override
     public boolean isProxyHealthOK() {
-        Lock lock = this.proxiesLock.readLock();
-        lock.lock();
-
-        try {
-            for (Proxy proxy : this.proxies) {
-                if (proxy.getState() != MCMPServerState.State.OK) {
-                    return false;
-                }
+        for (Proxy proxy : this.registry.get().proxies) {
+            if (proxy.getState() != MCMPServerState.State.OK) {
+                return false;
             }
-            return true;
-        } finally {
-            lock.unlock();
         }
+        return true;
     }
 
     @Override
     public void markProxiesInError() {
-        Lock lock = this.proxiesLock.readLock();
-        lock.lock();
-
-        try {
-            for (Proxy proxy : this.proxies) {
-                if (proxy.getState() == MCMPServerState.State.OK) {
-                    proxy.setState(Proxy.State.ERROR);
-                }
+        for (Proxy proxy : this.registry.get().proxies) {
+            if (proxy.getState() == MCMPServerState.State.OK) {
+                // Enforce a full reset
+                proxy.fingerprint = null;
+                proxy.setState(Proxy.State.ERROR);
             }
-        } finally {
-            lock.unlock();
         }
     }
 
     @Override
     public void reset() {
-        Lock lock = this.proxiesLock.readLock();
-        lock.lock();
-
-        try {
-            for (Proxy proxy : this.proxies) {
-                if (proxy.getState() == Proxy.State.DOWN) {
-                    proxy.setState(Proxy.State.ERROR);
-                }
+        for (Proxy proxy : this.registry.get().proxies) {
+            if (proxy.getState() == Proxy.State.DOWN) {
+                proxy.fingerprint = null;
+                proxy.setState(Proxy.State.ERROR);
+                proxy.breaker.reset();
             }
-        } finally {
-            lock.unlock();
         }
     }
 
@@ -295,10 +295,31 @@ public class DefaultMCMPHandler implements MCMPHandler {
         if (this.init) {
             this.processPendingDiscoveryEvents();
 
-            this.status(true);
+            int timeout = this.config.getStatusTimeout();
+
+            if (timeout > 0) {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+                Map<Proxy, CompletableFuture<Void>> futures = this.submitStatus();
+
+                Futures.await(MCMPRequestType.INFO, futures, deadline, timeout);
+                markIncompleteInError(futures);
+            } else {
+                this.status(true);
+            }
         }
     }
 
+    @Override
+    public CompletableFuture<Void> statusAsync() {
+        return CompletableFuture.runAsync(new Runnable() {
+            @Override
+            public void run() {
+                DefaultMCMPHandler.this.status();
+            }
+        }, getExecutor(this.statusExecutor, "MCMP status"));
+    }
+
     /**
      * Send a periodic status request.
      *
@@ -306,84 +327,262 @@ public class DefaultMCMPHandler implements MCMPHandler {
      *        front end server
      */
     private void status(boolean sendResetRequests) {
-        Lock lock = this.proxiesLock.readLock();
-        lock.lock();
+        for (Proxy proxy : this.registry.get().proxies) {
+            proxy.evictIdleConnections();
 
-        try {
-            for (Proxy proxy : this.proxies) {
-                // Attempt to reset any proxies in error
-                if (proxy.getState() == Proxy.State.ERROR) {
+            // Attempt to reset any proxies in error, unless backing off from previous attempts
+            if ((proxy.getState() == Proxy.State.ERROR) && proxy.breaker.allowProbe()) {
+                this.recover(proxy, sendResetRequests);
+            }
+        }
+    }
+
+    /**
+     * Like {@link #status(boolean)}, but queues the attempt to reset each proxy in error on the worker of the proxy, such that
+     * the caller can stop waiting for proxies that do not respond.
+     *
+     * @return the future completion of the reset, per proxy
+     */
+    private Map<Proxy, CompletableFuture<Void>> submitStatus() {
+        Map<Proxy, CompletableFuture<Void>> futures = new LinkedHashMap<Proxy, CompletableFuture<Void>>();
 
-                    proxy.closeConnection();
+        for (final Proxy proxy : this.registry.get().proxies) {
+            proxy.evictIdleConnections();
 
-                    String response = this.sendRequest(this.requestFactory.createInfoRequest(), proxy);
+            // Attempt to reset any proxies in error, unless backing off from previous attempts, or still attempting
+            if ((proxy.getState() == Proxy.State.ERROR) && proxy.breaker.allowProbe()) {
+                CompletableFuture<Void> future;
 
-                    if (proxy.getState() == Proxy.State.OK) {
-                        // Only notify connection listener once
-                        if (this.established.compareAndSet(false, true)) {
-                            this.connectionListener.connectionEstablished(proxy.getLocalAddress());
+                try {
+                    future = CompletableFuture.runAsync(new Runnable() {
+                        @Override
+                        public void run() {
+                            DefaultMCMPHandler.this.recover(proxy, true);
                         }
+                    }, proxy.getExecutor(false));
+                } catch (RejectedExecutionException e) {
+                    // Proxy was concurrently removed
+                    proxy.breaker.failure();
+                    future = CompletableFuture.completedFuture(null);
+                }
 
-                        if (sendResetRequests) {
-                            Map<String, Set<ResetRequestSource.VirtualHost>> parsedResponse = this.responseParser
-                                    .parseInfoResponse(response);
+                futures.put(proxy, future);
+            }
+        }
 
-                            List<MCMPRequest> requests = this.resetRequestSource.getResetRequests(parsedResponse);
+        return futures;
+    }
 
-                            log.trace(requests);
+    /**
+     * Attempts to re-establish communication with the specified proxy in error, reporting the outcome to its circuit breaker.
+     *
+     * @param sendResetRequests if enabled, refreshes the configuration of the proxy once it responds
+     */
+    private void recover(Proxy proxy, boolean sendResetRequests) {
+        proxy.closeConnections();
 
-                            this.sendRequestsToProxy(requests, proxy);
-                        }
-                    } else {
-                        proxy.closeConnection();
-                    }
+        Map<String, Set<ResetRequestSource.VirtualHost>> parsedResponse = null;
+
+        try {
+            // Parse the INFO response straight from the received bytes, rather than from a copy of its body
+            parsedResponse = this.sendRequest(this.encode(this.requestFactory.createInfoRequest()), proxy, sendResetRequests ? this.infoResponseReader : NO_INFO);
+        } finally {
+            if (proxy.getState() == Proxy.State.OK) {
+                proxy.breaker.success();
+            } else {
+                proxy.breaker.failure();
+            }
+        }
+
+        if (proxy.getState() == Proxy.State.OK) {
+            // Only notify connection listener once
+            if (this.established.compareAndSet(false, true)) {
+                this.connectionListener.connectionEstablished(proxy.getLocalAddress());
+            }
+
+            if (sendResetRequests) {
+                ResetFingerprint fingerprint = ResetFingerprint.create(parsedResponse, this.resetRequestSource.getTopologyFingerprint());
+
+                if ((fingerprint != null) && fingerprint.equals(proxy.fingerprint)) {
+                    log.tracef("%s is still in sync, skipping reset", proxy);
+                    return;
+                }
+
+                proxy.fingerprint = null;
+
+                List<MCMPRequest> requests = this.resetRequestSource.getResetRequests(parsedResponse);
+
+                log.trace(requests);
+
+                int window = this.config.getResetRequestPipelineWindow();
+
+                if (window > 1) {
+                    this.pipelineRequestsToProxy(this.encode(requests), proxy, window);
+                } else {
+                    this.sendRequestsToProxy(this.encode(requests), proxy);
+                }
+
+                if ((proxy.getState() == Proxy.State.OK) && ResetFingerprint.isSynchronized(parsedResponse, requests)) {
+                    proxy.fingerprint = fingerprint;
                 }
             }
-        } finally {
-            lock.unlock();
+        } else {
+            proxy.closeConnections();
         }
     }
 
     @Override
     public Map<MCMPServerState, String> sendRequest(MCMPRequest request) {
-        Map<MCMPServerState, String> map = new HashMap<MCMPServerState, String>();
+        return this.dispatch(request.getRequestType(), this.submitRequest(request, !this.config.isConcurrentDispatch()));
+    }
 
-        Lock lock = this.proxiesLock.readLock();
-        lock.lock();
+    @Override
+    public Map<MCMPServerState, List<String>> sendRequests(List<MCMPRequest> requests) {
+        return this.dispatch(getRequestType(requests), this.submitRequests(requests, !this.config.isConcurrentDispatch()));
+    }
 
-        try {
-            for (Proxy proxy : this.proxies) {
-                map.put(proxy, this.sendRequest(request, proxy));
+    @Override
+    public CompletableFuture<Map<MCMPServerState, String>> sendRequestAsync(MCMPRequest request) {
+        return Futures.collect(this.submitRequest(request, false));
+    }
+
+    @Override
+    public CompletableFuture<Map<MCMPServerState, List<String>>> sendRequestsAsync(List<MCMPRequest> requests) {
+        return Futures.collect(this.submitRequests(requests, false));
+    }
+
+    private static MCMPRequestType getRequestType(List<MCMPRequest> requests) {
+        return requests.isEmpty() ? null : requests.get(0).getRequestType();
+    }
+
+    /**
+     * Sends the specified request to each proxy.
+     *
+     * @param inline if enabled, sends the request from the calling thread, one proxy after the other, rather than queuing it on
+     *        the worker of each proxy
+     * @return the future response, per proxy
+     */
+    private Map<Proxy, CompletableFuture<String>> submitRequest(MCMPRequest request, boolean inline) {
+        final EncodedMCMPRequest encodedRequest = this.encode(request);
+        MCMPRequestType requestType = request.getRequestType();
+
+        return this.submit(requestType, new Function<Proxy, String>() {
+            @Override
+            public String apply(Proxy proxy) {
+                return DefaultMCMPHandler.this.sendRequest(encodedRequest, proxy);
             }
-        } finally {
-            lock.unlock();
+        }, inline && !this.isBounded(requestType));
+    }
+
+    /**
+     * Sends the specified requests to each proxy, with all requests sent to a proxy before moving on to the next.
+     *
+     * @param inline if enabled, sends the requests from the calling thread, one proxy after the other, rather than queuing them on
+     *        the worker of each proxy
+     * @return the future responses, per proxy
+     */
+    private Map<Proxy, CompletableFuture<List<String>>> submitRequests(List<MCMPRequest> requests, boolean inline) {
+        final List<EncodedMCMPRequest> encodedRequests = this.encode(requests);
+        MCMPRequestType requestType = getRequestType(requests);
+
+        return this.submit(requestType, new Function<Proxy, List<String>>() {
+            @Override
+            public List<String> apply(Proxy proxy) {
+                return DefaultMCMPHandler.this.sendRequestsToProxy(encodedRequests, proxy);
+            }
+        }, inline && !this.isBounded(requestType));
+    }
+
+    /**
+     * Indicates whether requests of the specified type are bounded by their own
+     * {@link MCMPHandlerConfiguration#getStatusTimeout() time budget}.
+     */
+    private boolean isBounded(MCMPRequestType requestType) {
+        return (requestType == MCMPRequestType.STATUS) && (this.config.getStatusTimeout() > 0);
+    }
+
+    /**
+     * Waits for the result of each proxy. If {@link MCMPHandlerConfiguration#isConcurrentDispatch() concurrent dispatch} is
+     * enabled, results are awaited until the configured timeout elapses; proxies that did not complete in time are reported with
+     * a <code>null</code> result. STATUS requests are additionally bounded by their own
+     * {@link MCMPHandlerConfiguration#getStatusTimeout() time budget}, independently of the time spent by the preceding status
+     * check on other proxies; proxies that did not complete within it are marked in error.
+     *
+     * @param requestType type of the (first) request whose results are awaited, used for logging
+     * @param futures     the future result per proxy
+     */
+    private <T> Map<MCMPServerState, T> dispatch(MCMPRequestType requestType, Map<Proxy, CompletableFuture<T>> futures) {
+        boolean bounded = this.isBounded(requestType);
+
+        int timeout = this.config.isConcurrentDispatch() ? this.config.getConcurrentDispatchTimeout() : 0;
+
+        if (bounded && ((timeout <= 0) || (timeout > this.config.getStatusTimeout()))) {
+            timeout = this.config.getStatusTimeout();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        Map<MCMPServerState, T> map = Futures.await(requestType, futures, deadline, timeout);
+
+        if (bounded) {
+            markIncompleteInError(futures);
         }
 
         return map;
     }
 
-    @Override
-    public Map<MCMPServerState, List<String>> sendRequests(List<MCMPRequest> requests) {
-        Map<MCMPServerState, List<String>> map = new HashMap<MCMPServerState, List<String>>();
+    /**
+     * Marks the proxies whose future did not complete in time in error, so that no further requests queue up behind them until
+     * communication is re-established.
+     */
+    private static void markIncompleteInError(Map<Proxy, ? extends Future<?>> futures) {
+        for (Map.Entry<Proxy, ? extends Future<?>> entry : futures.entrySet()) {
+            if (!entry.getValue().isDone()) {
+                entry.getKey().setState(Proxy.State.ERROR);
+            }
+        }
+    }
 
-        Lock lock = this.proxiesLock.readLock();
-        lock.lock();
+    /**
+     * Queues the specified task on the worker of each proxy.
+     *
+     * @param requestType type of the (first) request sent by the task, which selects the worker
+     * @param task        the task to apply to each proxy
+     * @param inline      if enabled, applies the task from the calling thread instead, one proxy after the other
+     * @return the future result of the task, per proxy
+     */
+    private <T> Map<Proxy, CompletableFuture<T>> submit(MCMPRequestType requestType, final Function<Proxy, T> task, boolean inline) {
+        boolean heartbeat = isHeartbeat(requestType);
+        Proxy[] proxies = this.registry.get().proxies;
+        Map<Proxy, CompletableFuture<T>> futures = new LinkedHashMap<Proxy, CompletableFuture<T>>(proxies.length);
 
-        try {
-            for (Proxy proxy : this.proxies) {
-                List<String> list = new ArrayList<String>(requests.size());
+        for (final Proxy proxy : proxies) {
+            CompletableFuture<T> future;
 
-                for (MCMPRequest request : requests) {
-                    list.add(this.sendRequest(request, proxy));
+            if (inline) {
+                future = new CompletableFuture<T>();
+                try {
+                    future.complete(task.apply(proxy));
+                } catch (RuntimeException | Error e) {
+                    future.completeExceptionally(e);
+                }
+            } else {
+                try {
+                    future = CompletableFuture.supplyAsync(new Supplier<T>() {
+                        @Override
+                        public T get() {
+                            return task.apply(proxy);
+                        }
+                    }, proxy.getExecutor(heartbeat));
+                } catch (RejectedExecutionException e) {
+                    // Proxy was concurrently removed
+                    future = CompletableFuture.completedFuture(null);
                 }
-
-                map.put(proxy, list);
             }
-        } finally {
-            lock.unlock();
+
+            futures.put(proxy, future);
         }
 
-        return map;
+        return futures;
     }
 
     /**
@@ -392,299 +591,467 @@ public class DefaultMCMPHandler implements MCMPHandler {
      * @param requests list of MCMP requests to send
      * @param proxy    The designated proxy to send the requests to
      */
-    private List<String> sendRequestsToProxy(List<MCMPRequest> requests, Proxy proxy) {
+    private List<String> sendRequestsToProxy(List<EncodedMCMPRequest> requests, Proxy proxy) {
         List<String> list = new ArrayList<String>(requests.size());
-        for (MCMPRequest request : requests) {
+        for (EncodedMCMPRequest request : requests) {
             list.add(this.sendRequest(request, proxy));
         }
 
         return list;
     }
 
-    // ---------------------------------------------------------------- Private
+    /**
+     * Like {@link #sendRequestsToProxy(List, Proxy)}, but writes up to <code>window</code> requests to the connection before
+     * reading their responses, in order. If the connection is closed or fails part way through a window, the requests whose
+     * responses were not read are sent again one at a time. Reset requests are idempotent, so it is harmless if the proxy
+     * had already processed some of them.
+     *
+     * @param requests list of MCMP requests to send
+     * @param proxy    The designated proxy to send the requests to
+     * @param window   maximum number of requests awaiting a response
+     */
+    private List<String> pipelineRequestsToProxy(List<EncodedMCMPRequest> requests, Proxy proxy, int window) {
+        List<String> list = new ArrayList<String>(requests.size());
 
-    private void processPendingDiscoveryEvents() {
-        this.addRemoveProxiesLock.lock();
+        if (requests.isEmpty()) {
+            return list;
+        }
+
+        // Require exclusive access to a connection for the whole exchange
+        Connection connection = this.acquire(requests.get(0).getRequest().getRequestType(), proxy, false);
+
+        if (connection == null) {
+            return list;
+        }
 
         try {
-            // Check to add or remove proxies, and rebuild a new list if needed
-            if (!this.addProxies.isEmpty() || !this.removeProxies.isEmpty()) {
-                Lock lock = this.proxiesLock.writeLock();
-                lock.lock();
+            while ((list.size() < requests.size()) && (proxy.getState() == Proxy.State.OK)) {
+                List<EncodedMCMPRequest> batch = requests.subList(list.size(), Math.min(list.size() + window, requests.size()));
 
-                try {
-                    this.proxies.addAll(this.addProxies);
-                    this.proxies.removeAll(this.removeProxies);
+                if (!this.pipelineRequests(batch, proxy, connection, list)) {
+                    break;
+                }
+            }
+
+            // Fall back to sending the remaining requests one at a time
+            for (EncodedMCMPRequest request : requests.subList(list.size(), requests.size())) {
+                list.add(this.sendRequest(request, proxy, connection));
+            }
+        } finally {
+            proxy.release(connection);
+        }
 
-                    this.addProxies.clear();
-                    this.removeProxies.clear();
+        return list;
+    }
 
-                    // Reset all connections
-                    for (Proxy proxy : this.proxies) {
-                        proxy.closeConnection();
-                    }
-                } finally {
-                    lock.unlock();
+    /**
+     * Writes the specified requests to the specified connection, then reads their responses.
+     *
+     * @return true, if the responses to all requests were read and the connection is still usable, false otherwise
+     */
+    private boolean pipelineRequests(List<EncodedMCMPRequest> requests, Proxy proxy, Connection connection, List<String> responses) {
+        try {
+            OutputStream output = connection.getOutput();
+            long start = System.nanoTime();
+
+            for (EncodedMCMPRequest request : requests) {
+                log.tracef("Sending to %s: %s", proxy, request.getRequest());
+
+                proxy.metrics.sent(request.writeTo(output, proxy.getHost()));
+            }
+            output.flush();
+
+            for (EncodedMCMPRequest request : requests) {
+                MCMPResponseDecoder response = this.receive(request.getRequest(), connection);
+
+                if (response == null) {
+                    // Connection closed by the proxy
+                    connection.close();
+                    return false;
+                }
+
+                proxy.metrics.requestCompleted(request.getRequest().getRequestType(), start);
+                responses.add(this.processResponse(request.getRequest(), proxy, connection, response, BODY));
+
+                if ((proxy.getState() != Proxy.State.OK) || !connection.isConnected()) {
+                    return false;
                 }
             }
+
+            return true;
+        } catch (IOException e) {
+            ModClusterLogger.LOGGER.catchingDebug(e);
+            connection.close();
+            return false;
         } finally {
-            this.addRemoveProxiesLock.unlock();
+            if (proxy.getState() != Proxy.State.OK) {
+                connection.close();
+                proxy.closeConnections();
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- Private
+
+    private void processPendingDiscoveryEvents() {
+        Registry current;
+        Registry next;
+
+        do {
+            current = this.registry.get();
+            next = current.apply();
+        } while ((next != current) && !this.registry.compareAndSet(current, next));
+
+        // Only close the connections of removed proxies; added proxies connect once probed, while the connections to the
+        // remaining proxies stay open
+        if (next != current) {
+            for (Proxy proxy : current.removed(next)) {
+                shutdownExecutor(proxy.executor);
+                shutdownExecutor(proxy.heartbeatExecutor);
+                proxy.closeConnections();
+            }
         }
     }
 
-    private String sendRequest(Proxy proxy, String command, String body) throws IOException {
-        Writer writer = proxy.getConnectionWriter();
+    private MCMPResponseDecoder sendRequest(Connection connection, EncodedMCMPRequest request) throws IOException {
+        OutputStream output = connection.getOutput();
 
-        writer.append(command).append(NEW_LINE);
+        connection.proxy.metrics.sent(request.writeTo(output, connection.proxy.getHost()));
+        output.flush();
+
+        return this.receive(request.getRequest(), connection);
+    }
 
-        if (body.length()>0)
-            writer.append("Content-Length: ").append(String.valueOf(body.length())).append(NEW_LINE);
-        writer.append("User-Agent: ClusterListener/1.0").append(NEW_LINE);
-        writer.append("Connection: Keep-Alive").append(NEW_LINE);
-        writer.write(NEW_LINE);
-        if (body.length()>0) {
-            writer.write(body);
+    /**
+     * Reads the next response from the specified connection.
+     *
+     * @return the decoded response, or null if the connection was closed before any of it was received
+     */
+    private MCMPResponseDecoder receive(MCMPRequest request, Connection connection) throws IOException {
+        try {
+            return connection.readResponse();
+        } catch (IllegalArgumentException e) {
+            ModClusterLogger.LOGGER.parseHeaderFailed(e, request.getRequestType(), connection.proxy.getSocketAddress());
+            // The decoder retains what was parsed so far and flags the connection to be closed
+            return connection.getResponse();
         }
-        writer.flush();
+    }
 
-        // Read the first response line and skip the rest of the HTTP header
-        return proxy.getConnectionReader().readLine();
+    private EncodedMCMPRequest encode(MCMPRequest request) {
+        return EncodedMCMPRequest.encode(request, this.config.getProxyURL());
     }
 
-    private void appendParameter(Appendable appender, String name, String value, boolean more) throws IOException {
-        appender.append(URLEncoder.encode(name, "UTF-8")).append('=').append(URLEncoder.encode(value, "UTF-8"));
+    private List<EncodedMCMPRequest> encode(List<MCMPRequest> requests) {
+        List<EncodedMCMPRequest> encodedRequests = new ArrayList<EncodedMCMPRequest>(requests.size());
 
-        if (more) {
-            appender.append('&');
+        for (MCMPRequest request : requests) {
+            encodedRequests.add(this.encode(request));
         }
+
+        return encodedRequests;
+    }
+
+    private String sendRequest(EncodedMCMPRequest encodedRequest, Proxy proxy) {
+        return this.sendRequest(encodedRequest, proxy, BODY);
     }
 
-    private String sendRequest(MCMPRequest request, Proxy proxy) {
-        // Never proceed with requests on a proxy in ERROR state unless the request type is INFO to return proxy back to OK state.
-        if (!(proxy.getState() == Proxy.State.OK || request.getRequestType() == MCMPRequestType.INFO)) {
+    /**
+     * Sends the specified request to the specified proxy, and reads the body of its response using the specified reader.
+     */
+    private <T> T sendRequest(EncodedMCMPRequest encodedRequest, Proxy proxy, Function<MCMPResponseDecoder, T> reader) {
+        MCMPRequest request = encodedRequest.getRequest();
+
+        // Do not wait for a connection to a proxy that would not be sent the request anyway
+        if (!isSendable(request, proxy)) {
+            return null;
+        }
+
+        // Require exclusive access to a connection
+        Connection connection = this.acquire(request.getRequestType(), proxy, isHeartbeat(request.getRequestType()));
+
+        if (connection == null) {
+            return null;
+        }
+
+        try {
+            return this.sendRequest(encodedRequest, proxy, connection, reader);
+        } finally {
+            proxy.release(connection);
+        }
+    }
+
+    private String sendRequest(EncodedMCMPRequest encodedRequest, Proxy proxy, Connection connection) {
+        return this.sendRequest(encodedRequest, proxy, connection, BODY);
+    }
+
+    private <T> T sendRequest(EncodedMCMPRequest encodedRequest, Proxy proxy, Connection connection, Function<MCMPResponseDecoder, T> reader) {
+        MCMPRequest request = encodedRequest.getRequest();
+
+        if (!isSendable(request, proxy)) {
             return null;
         }
 
         log.tracef("Sending to %s: %s", proxy, request);
 
         MCMPRequestType requestType = request.getRequestType();
-        boolean wildcard = request.isWildcard();
-        String jvmRoute = request.getJvmRoute();
-        Map<String, String> parameters = request.getParameters();
+        long start = System.nanoTime();
 
-        StringBuilder bodyBuilder = new StringBuilder();
-
-        // First, encode the POST body
         try {
-            if (jvmRoute != null) {
-                this.appendParameter(bodyBuilder, "JVMRoute", jvmRoute, !parameters.isEmpty());
+            MCMPResponseDecoder response = null;
+
+            try {
+                response = sendRequest(connection, encodedRequest);
+            } catch (IOException e) {
+                // Ignore first write failure
             }
 
-            Iterator<Map.Entry<String, String>> entries = parameters.entrySet().iterator();
+            if (response == null) {
+                // Retry failed read/write with fresh connection
+                proxy.metrics.retried();
+                connection.close();
+                response = sendRequest(connection, encodedRequest);
+            }
 
-            while (entries.hasNext()) {
-                Map.Entry<String, String> entry = entries.next();
+            return this.processResponse(request, proxy, connection, response, reader);
+        } catch (IOException e) {
+            this.sendFailed(requestType, proxy, e);
+            return null;
+        } finally {
+            proxy.metrics.requestCompleted(requestType, start);
 
-                this.appendParameter(bodyBuilder, entry.getKey(), entry.getValue(), entries.hasNext());
+            // If there's an error of any sort, or if the proxy did not return 200, it is an error
+            if (proxy.getState() != Proxy.State.OK) {
+                connection.close();
+                proxy.closeConnections();
             }
+        }
+    }
+
+    /**
+     * Takes a connection to the specified proxy for the exclusive use of the caller. If none is released in time, the proxy is
+     * marked in error, as requests are evidently not getting through.
+     *
+     * @param requestType type of the (first) request to send, used for logging
+     * @return a connection, or null if none could be acquired
+     */
+    private Connection acquire(MCMPRequestType requestType, Proxy proxy, boolean heartbeat) {
+        try {
+            return proxy.acquire(heartbeat);
         } catch (IOException e) {
-            // Error encoding URL, should not happen
-            throw new IllegalArgumentException(e);
+            this.sendFailed(requestType, proxy, e);
+            proxy.closeConnections();
+            return null;
         }
+    }
 
-        // Then, connect to the proxy
-        // Generate and write request
-        StringBuilder headBuilder = new StringBuilder();
+    private void sendFailed(MCMPRequestType requestType, Proxy proxy, IOException e) {
+        // Most likely this is a connection error with the proxy
+        proxy.setState(Proxy.State.ERROR);
 
-        headBuilder.append(requestType).append(" ");
+        // Log it only if we haven't done so already. Don't spam the log
+        if (!proxy.isIoExceptionLogged()) {
+            ModClusterLogger.LOGGER.sendFailed(requestType, proxy.getSocketAddress(), e.getLocalizedMessage());
+            ModClusterLogger.LOGGER.catchingDebug(e);
+            proxy.setIoExceptionLogged(true);
+        }
+    }
 
-        String proxyURL = this.config.getProxyURL();
+    /**
+     * Never proceed with requests on a proxy in ERROR state unless the request type is INFO to return proxy back to OK state.
+     */
+    private static boolean isSendable(MCMPRequest request, Proxy proxy) {
+        return proxy.getState() == Proxy.State.OK || request.getRequestType() == MCMPRequestType.INFO;
+    }
 
-        if (proxyURL != null) {
-            headBuilder.append(proxyURL);
+    /**
+     * Indicates whether requests of the specified type are heartbeats, which may use a dedicated connection and worker.
+     */
+    static boolean isHeartbeat(MCMPRequestType requestType) {
+        return (requestType == MCMPRequestType.STATUS) || (requestType == MCMPRequestType.PING);
+    }
+
+    /**
+     * Updates the state of the proxy according to the response to the specified request, and returns its body.
+     *
+     * @param response the decoded response, or null if the connection was closed before any of it was received
+     * @param reader reads the body of the response
+     */
+    private <T> T processResponse(MCMPRequest request, Proxy proxy, Connection connection, MCMPResponseDecoder response, Function<MCMPResponseDecoder, T> reader) {
+        MCMPRequestType requestType = request.getRequestType();
+        int status = (response != null) ? response.getStatus() : 500;
+        String errorType = (response != null) ? response.getErrorType() : null;
+        String message = (response != null) ? response.getMessage() : null;
+
+        // Mark as error if the front end server did not return 200; the configuration will
+        // be refreshed during the next periodic event
+        if (status == 200) {
+            proxy.setState(State.OK);
+
+            if (request.getRequestType().getEstablishesServer()) {
+                // We know the request succeeded, so if appropriate
+                // mark the proxy as established before any possible
+                // later exception happens
+                proxy.setEstablished(true);
+            }
+        } else {
+            if ("SYNTAX".equals(errorType)) {
+                // Syntax error means the protocol is incorrect, which cannot be automatically fixed
+                proxy.setState(Proxy.State.DOWN);
+                ModClusterLogger.LOGGER.unrecoverableErrorResponse(errorType, requestType, proxy.getSocketAddress(), message);
+            } else {
+                proxy.setState(Proxy.State.ERROR);
+                ModClusterLogger.LOGGER.recoverableErrorResponse(errorType, requestType, proxy.getSocketAddress(), message);
+            }
         }
 
-        if (headBuilder.charAt(headBuilder.length() - 1) != '/') {
-            headBuilder.append('/');
+        if (response == null) {
+            return null;
         }
 
-        if (wildcard) {
-            headBuilder.append('*');
+        if (proxy.getState() == State.OK) {
+            proxy.setIoExceptionLogged(false);
         }
 
-        headBuilder.append(" HTTP/1.1\r\n");
-        headBuilder.append("Host: ");
+        // Read the body before the decoder can be reused
+        try {
+            return reader.apply(response);
+        } finally {
+            if (response.isClose()) {
+                connection.close();
+            }
+        }
+    }
 
-        String head = headBuilder.toString();
-        String body = bodyBuilder.toString();
+    /**
+     * Returns the single-threaded worker held by the specified reference, creating it if necessary. Its thread is released
+     * when idle.
+     */
+    static ExecutorService getExecutor(AtomicReference<ExecutorService> reference, final String name) {
+        ExecutorService executor = reference.get();
+
+        if (executor == null) {
+            ThreadPoolExecutor newExecutor = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable task) {
+                    Thread thread = new Thread(task, name);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            newExecutor.allowCoreThreadTimeOut(true);
+
+            if (reference.compareAndSet(null, newExecutor)) {
+                executor = newExecutor;
+            } else {
+                newExecutor.shutdown();
+                executor = reference.get();
+            }
+        }
 
-        // Require exclusive access to proxy socket
-        synchronized (proxy) {
-            try {
-                String line = null;
-                String host = proxy.getSocketAddress().getHostString();
-                String proxyhead;
+        return executor;
+    }
 
-                if (host != null && host.contains(":")) {
-                    proxyhead = head + "[" + host + "]:" + proxy.getSocketAddress().getPort();
-                } else {
-                    proxyhead = head + host + ":" + proxy.getSocketAddress().getPort();
-                }
+    /**
+     * Stops accepting tasks into the worker held by the specified reference; already queued tasks still complete.
+     */
+    static void shutdownExecutor(AtomicReference<ExecutorService> reference) {
+        ExecutorService executor = reference.getAndSet(null);
 
-                try {
-                    line = sendRequest(proxy, proxyhead, body);
-                } catch (IOException e) {
-                    // Ignore first write failure
-                }
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
 
-                if (line == null) {
-                    // Retry failed read/write with fresh connection
-                    proxy.closeConnection();
-                    line = sendRequest(proxy, proxyhead, body);
-                }
+    /**
+     * Immutable snapshot of the proxies of this handler, keyed by socket address, together with the additions and removals that
+     * take effect on the next status check.
+     */
+    private static final class Registry {
+        static final Registry EMPTY = new Registry(new Proxy[0], Collections.<InetSocketAddress, Proxy>emptyMap(), Collections.<InetSocketAddress, Proxy>emptyMap(), Collections.<InetSocketAddress>emptySet());
+
+        /** Proxies with which this handler communicates, in the order in which they were added. */
+        final Proxy[] proxies;
+        private final Map<InetSocketAddress, Proxy> index;
+        private final Map<InetSocketAddress, Proxy> added;
+        private final Set<InetSocketAddress> removed;
+
+        private Registry(Proxy[] proxies, Map<InetSocketAddress, Proxy> index, Map<InetSocketAddress, Proxy> added, Set<InetSocketAddress> removed) {
+            this.proxies = proxies;
+            this.index = index;
+            this.added = added;
+            this.removed = removed;
+        }
 
-                BufferedReader reader = proxy.getConnectionReader();
-                // Parse the line, which is formed like HTTP/1.x YYY Message
-                int status = 500;
-                // String version = "0";
-                String message = null;
-                String errorType = null;
-                int contentLength = 0;
-                boolean close = false;
-                boolean chunked = false;
-                if (line != null) {
-                    try {
-                        int spaceIndex = line.indexOf(' ');
-
-                        /* Ignore everything until we have a HTTP headers */
-                        while (spaceIndex == -1) {
-                            line = reader.readLine();
-                            if (line == null) {
-                                return null; // Connection closed...
-                            }
-                            spaceIndex = line.indexOf(' ');
-                        }
-                        String responseStatus = line.substring(spaceIndex + 1, line.indexOf(' ', spaceIndex + 1));
-                        status = Integer.parseInt(responseStatus);
-                        line = reader.readLine();
-                        while ((line != null) && (line.length() > 0)) {
-                            int colon = line.indexOf(':');
-                            String headerName = line.substring(0, colon).trim();
-                            String headerValue = line.substring(colon + 1).trim();
-                            if ("version".equalsIgnoreCase(headerName)) {
-                                // version = headerValue;
-                            } else if ("type".equalsIgnoreCase(headerName)) {
-                                errorType = headerValue;
-                            } else if ("mess".equalsIgnoreCase(headerName)) {
-                                message = headerValue;
-                            } else if ("content-length".equalsIgnoreCase(headerName)) {
-                                contentLength = Integer.parseInt(headerValue);
-                            } else if ("connection".equalsIgnoreCase(headerName)) {
-                                close = "close".equalsIgnoreCase(headerValue);
-                            } else if ("Transfer-Encoding".equalsIgnoreCase(headerName)) {
-                                if ("chunked".equalsIgnoreCase(headerValue))
-                                    chunked = true;
-                            }
-                            line = reader.readLine();
-                        }
-                    } catch (Exception e) {
-                        ModClusterLogger.LOGGER.parseHeaderFailed(e, requestType, proxy.getSocketAddress());
-                    }
-                }
+        /**
+         * Returns the proxy with the specified address, whether active or pending addition, or null if there is none.
+         */
+        Proxy find(InetSocketAddress socketAddress) {
+            Proxy proxy = this.index.get(socketAddress);
+            return (proxy != null) ? proxy : this.added.get(socketAddress);
+        }
 
-                // Mark as error if the front end server did not return 200; the configuration will
-                // be refreshed during the next periodic event
-                if (status == 200) {
-                    proxy.setState(State.OK);
+        /**
+         * Returns a registry in which the specified proxy is pending addition.
+         */
+        Registry add(InetSocketAddress socketAddress, Proxy proxy) {
+            Map<InetSocketAddress, Proxy> added = new LinkedHashMap<InetSocketAddress, Proxy>(this.added);
+            added.put(socketAddress, proxy);
+            return new Registry(this.proxies, this.index, added, this.removed);
+        }
 
-                    if (request.getRequestType().getEstablishesServer()) {
-                        // We know the request succeeded, so if appropriate
-                        // mark the proxy as established before any possible
-                        // later exception happens
-                        proxy.setEstablished(true);
-                    }
-                } else {
-                    if ("SYNTAX".equals(errorType)) {
-                        // Syntax error means the protocol is incorrect, which cannot be automatically fixed
-                        proxy.setState(Proxy.State.DOWN);
-                        ModClusterLogger.LOGGER.unrecoverableErrorResponse(errorType, requestType, proxy.getSocketAddress(), message);
-                    } else {
-                        proxy.setState(Proxy.State.ERROR);
-                        ModClusterLogger.LOGGER.recoverableErrorResponse(errorType, requestType, proxy.getSocketAddress(), message);
-                    }
-                }
+        /**
+         * Returns a registry in which the proxy with the specified address is pending removal, or this registry if there is no
+         * such proxy.
+         */
+        Registry remove(InetSocketAddress socketAddress) {
+            boolean active = this.index.containsKey(socketAddress) && !this.removed.contains(socketAddress);
+            boolean pending = this.added.containsKey(socketAddress);
 
-                if (close) {
-                    contentLength = Integer.MAX_VALUE;
-                } else if (contentLength == 0 && ! chunked) {
-                    return null;
-                }
+            if (!active && !pending) {
+                return this;
+            }
 
-                // Read the request body
-                StringBuilder result = new StringBuilder();
-                char[] buffer = new char[512];
-
-                if (chunked) {
-                    boolean skipcrlf = false;
-                    for (;;) {
-                        if (skipcrlf) {
-                            reader.readLine(); // Skip CRLF
-                        } else {
-                            skipcrlf = true;
-                        }
-                        line = reader.readLine();
-                        contentLength = Integer.parseInt(line, 16);
-                        if (contentLength == 0) {
-                            reader.readLine(); // Skip last CRLF.
-                            break;
-                        }
-                        while (contentLength > 0) {
-                            int bytes = reader.read(buffer, 0, (contentLength > buffer.length) ? buffer.length : contentLength);
-                            if (bytes <= 0) {
-                                break;
-                            }
-                            result.append(buffer, 0, bytes);
-                            contentLength -= bytes;
-                        }
-                    }
-                } else {
-                    while (contentLength > 0) {
-                        int bytes = reader.read(buffer, 0, (contentLength > buffer.length) ? buffer.length : contentLength);
-                        if (bytes <= 0) {
-                            break;
-                        }
-                        result.append(buffer, 0, bytes);
-                        contentLength -= bytes;
-                    }
-                }
+            Map<InetSocketAddress, Proxy> added = this.added;
+            if (pending) {
+                added = new LinkedHashMap<InetSocketAddress, Proxy>(this.added);
+                added.remove(socketAddress);
+            }
 
-                if (proxy.getState() == State.OK) {
-                    proxy.setIoExceptionLogged(false);
-                }
+            Set<InetSocketAddress> removed = this.removed;
+            if (active) {
+                removed = new HashSet<InetSocketAddress>(this.removed);
+                removed.add(socketAddress);
+            }
 
-                if (close) {
-                    proxy.closeConnection();
-                }
+            return new Registry(this.proxies, this.index, added, removed);
+        }
 
-                return result.toString();
-            } catch (IOException e) {
-                // Most likely this is a connection error with the proxy
-                proxy.setState(Proxy.State.ERROR);
+        /**
+         * Returns a registry in which the pending additions and removals took effect, or this registry if there are none.
+         */
+        Registry apply() {
+            if (this.added.isEmpty() && this.removed.isEmpty()) {
+                return this;
+            }
 
-                // Log it only if we haven't done so already. Don't spam the log
-                if (!proxy.isIoExceptionLogged()) {
-                    ModClusterLogger.LOGGER.sendFailed(requestType, proxy.getSocketAddress(), e.getLocalizedMessage());
-                    ModClusterLogger.LOGGER.catchingDebug(e);
-                    proxy.setIoExceptionLogged(true);
-                }
+            Map<InetSocketAddress, Proxy> index = new LinkedHashMap<InetSocketAddress, Proxy>(this.index);
+            index.keySet().removeAll(this.removed);
+            index.putAll(this.added);
 
-                return null;
-            } finally {
-                // If there's an error of any sort, or if the proxy did not return 200, it is an error
-                if (proxy.getState() != Proxy.State.OK) {
-                    proxy.closeConnection();
+            return new Registry(index.values().toArray(new Proxy[index.size()]), index, Collections.<InetSocketAddress, Proxy>emptyMap(), Collections.<InetSocketAddress>emptySet());
+        }
+
+        /**
+         * Returns the proxies of this registry that are no longer part of the specified registry.
+         */
+        List<Proxy> removed(Registry next) {
+            List<Proxy> result = new ArrayList<Proxy>(this.removed.size());
+            for (Map.Entry<InetSocketAddress, Proxy> entry : this.index.entrySet()) {
+                if (!next.index.containsKey(entry.getKey())) {
+                    result.add(entry.getValue());
                 }
             }
+            return result;
         }
     }
 
@@ -696,8 +1063,11 @@ public class DefaultMCMPHandler implements MCMPHandler {
         /** The serialVersionUID */
         private static final long serialVersionUID = 5219680414337319908L;
 
-        private InetSocketAddress socketAddress;
+        /** Configured address of this proxy, which identifies it. */
+        private final InetSocketAddress socketAddress;
         private final InetSocketAddress sourceAddress;
+        /** Resolved address to which this proxy was last connected, if configured by host name. */
+        private transient volatile InetSocketAddress connectedAddress;
 
         private volatile State state = State.OK;
         private volatile boolean established = false;
@@ -708,22 +1078,32 @@ public class DefaultMCMPHandler implements MCMPHandler {
         private transient volatile boolean ioExceptionLogged = false;
         private transient volatile InetAddress localAddress = null;
 
-        @GuardedBy("Proxy.this")
-        private transient volatile Socket socket = null;
-        @GuardedBy("Proxy.this")
-        private transient volatile BufferedReader reader = null;
-        @GuardedBy("Proxy.this")
-        private transient volatile BufferedWriter writer = null;
-
-        Proxy(InetSocketAddress socketAddress, MCMPHandlerConfiguration config) {
-            this(socketAddress, null, config);
-        }
-
-        Proxy(InetSocketAddress socketAddress, InetSocketAddress sourceAddress, MCMPHandlerConfiguration config) {
+        /** Worker to which requests are queued when dispatching concurrently, created on demand. */
+        private final transient AtomicReference<ExecutorService> executor = new AtomicReference<ExecutorService>();
+        /** Worker to which heartbeats are queued when they have a dedicated connection, created on demand. */
+        private final transient AtomicReference<ExecutorService> heartbeatExecutor = new AtomicReference<ExecutorService>();
+
+        /** Delays the attempts to re-establish communication while this proxy is in error. */
+        private final transient CircuitBreaker breaker;
+        private final transient ProxyMetrics metrics = new ProxyMetrics();
+        /** Fingerprint of the last reset that found this proxy in sync, if any. */
+        transient volatile ResetFingerprint fingerprint = null;
+        private final transient ConnectionPool connections;
+        /** Connection reserved for heartbeats, if configured. */
+        private final transient ConnectionPool heartbeatConnections;
+        /** Re-resolves the host name of this proxy in the background, if configured by host name. */
+        private final transient ProxyAddressResolver resolver;
+        private transient volatile byte[] host = null;
+
+        Proxy(InetSocketAddress socketAddress, InetSocketAddress sourceAddress, MCMPHandlerConfiguration config, AtomicReference<ExecutorService> resolverExecutor) {
             this.socketAddress = socketAddress;
+            this.resolver = ProxyAddressResolver.isHostName(socketAddress) ? new ProxyAddressResolver(socketAddress, resolverExecutor) : null;
             this.sourceAddress = sourceAddress;
             this.socketFactory = config.getSocketFactory();
             this.socketTimeout = config.getSocketTimeout();
+            this.breaker = new CircuitBreaker(config.getProxyRetryInitialDelay(), config.getProxyRetryMaxDelay());
+            this.connections = new ConnectionPool(this, config.getProxyConnectionPoolSize(), config.getProxyConnectionIdleTimeout());
+            this.heartbeatConnections = config.isDedicatedHeartbeatConnection() ? new ConnectionPool(this, 1, config.getProxyConnectionIdleTimeout()) : null;
         }
 
         // -------------------------------------------- MCMPServerState
@@ -733,6 +1113,26 @@ public class DefaultMCMPHandler implements MCMPHandler {
             return this.state;
         }
 
+        @Override
+        public int getConsecutiveFailures() {
+            return this.breaker.getConsecutiveFailures();
+        }
+
+        @Override
+        public long getTotalFailures() {
+            return this.breaker.getTotalFailures();
+        }
+
+        @Override
+        public long getNextRetryTime() {
+            return this.breaker.getNextRetryTime();
+        }
+
+        @Override
+        public MCMPServerMetrics getMetrics() {
+            return this.metrics;
+        }
+
         // ----------------------------------------------------------- MCMPServer
 
         @Override
@@ -778,83 +1178,363 @@ public class DefaultMCMPHandler implements MCMPHandler {
         }
 
         /**
-         * Return a reader to the proxy.
+         * Opens a new socket to the proxy. If configured by host name, each of its pre-resolved addresses is tried in turn,
+         * starting with the address connected last.
          */
-        private synchronized Socket getConnection() throws IOException {
-            if (this.socket == null || this.socket.isClosed()) {
-                this.socket = this.socketFactory.createSocket();
-
-                // If a proxy is in ERROR or DOWN and has been configured with a hostname, as opposed to an IP address, attempt to resolve the address again.
-                // Note that java.net.InetAddress.toString avoids a reverse name lookup.
-                // Also note that JVM caches DNS name lookups.
-                // See MODCLUSTER-728.
-                if ((this.getState() != State.OK) && (this.socketAddress.isUnresolved() || this.socketAddress.getAddress().toString().indexOf('/') > 0)) {
-                    this.socketAddress = new InetSocketAddress(this.socketAddress.getHostString(), this.socketAddress.getPort());
+        Socket connect() throws IOException {
+            if (this.resolver == null) {
+                return this.connect(this.socketAddress);
+            }
+
+            InetAddress[] addresses = this.resolver.getAddresses();
+
+            if (addresses.length == 0) {
+                // Not resolved yet, or the host name is unknown
+                throw new UnknownHostException(this.socketAddress.getHostString());
+            }
+
+            InetSocketAddress current = this.connectedAddress;
+            int start = (current != null) ? Math.max(Arrays.asList(addresses).indexOf(current.getAddress()), 0) : 0;
+            IOException failure = null;
+
+            for (int i = 0; i < addresses.length; ++i) {
+                InetSocketAddress socketAddress = new InetSocketAddress(addresses[(start + i) % addresses.length], this.socketAddress.getPort());
+
+                try {
+                    Socket socket = this.connect(socketAddress);
+
+                    // Start with the address that was connected next time
+                    this.connectedAddress = socketAddress;
+                    return socket;
+                } catch (IOException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
                 }
+            }
+
+            // None of the addresses could be connected, so they might have changed
+            this.resolver.invalidate();
+
+            throw failure;
+        }
 
-                InetAddress address = this.socketAddress.getAddress();
+        private Socket connect(InetSocketAddress socketAddress) throws IOException {
+            Socket socket = this.socketFactory.createSocket();
+
+            try {
+                InetAddress address = socketAddress.getAddress();
                 if (sourceAddress != null) {
                     // If using a specific port enable SO_REUSEADDR to avoid "Address already in use" errors
                     if (sourceAddress.getPort() != 0) {
-                        this.socket.setReuseAddress(true);
+                        socket.setReuseAddress(true);
                     }
                     // If bind address is specified for the proxy, use it
-                    this.socket.bind(sourceAddress);
+                    socket.bind(sourceAddress);
                 } else if (address instanceof Inet6Address && address.isLinkLocalAddress()) {
                     // If the bind address is unspecified, workaround a JDK 6 IPv6 bug
                     InetSocketAddress bindAddr = new InetSocketAddress(address, 0);
-                    this.socket.bind(bindAddr);
+                    socket.bind(bindAddr);
                 }
-                this.socket.connect(this.socketAddress, this.socketTimeout);
-                this.socket.setSoTimeout(this.socketTimeout);
-                this.localAddress = this.socket.getLocalAddress();
+                socket.connect(socketAddress, this.socketTimeout);
+                socket.setSoTimeout(this.socketTimeout);
+                this.localAddress = socket.getLocalAddress();
+                return socket;
+            } catch (IOException e) {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                    // Ignore
+                }
+                throw e;
             }
-            return this.socket;
         }
 
         /**
-         * Convenience method that returns a reader to the proxy.
+         * Takes a connection to this proxy for the exclusive use of the caller, waiting for one to be released if all are in
+         * use. The connection must be returned via {@link #release(Connection)}.
+         *
+         * @param heartbeat whether the connection is used for heartbeats
+         * @throws IOException if no connection was released within the socket timeout, or if interrupted while waiting
          */
-        synchronized BufferedReader getConnectionReader() throws IOException {
-            if (this.reader == null) {
-                this.reader = new BufferedReader(new InputStreamReader(this.getConnection().getInputStream()));
+        Connection acquire(boolean heartbeat) throws IOException {
+            return ((heartbeat && (this.heartbeatConnections != null)) ? this.heartbeatConnections : this.connections).acquire();
+        }
+
+        void release(Connection connection) {
+            connection.pool.release(connection);
+        }
+
+        /**
+         * Closes all connections to this proxy. Connections in use are closed when they are released.
+         */
+        void closeConnections() {
+            this.connections.close();
+            if (this.heartbeatConnections != null) {
+                this.heartbeatConnections.close();
             }
-            return this.reader;
         }
 
         /**
-         * Convenience method that returns a writer to the proxy.
+         * Closes the connections to this proxy that have not been used within the idle timeout.
          */
-        synchronized BufferedWriter getConnectionWriter() throws IOException {
-            if (this.writer == null) {
-                this.writer = new BufferedWriter(new OutputStreamWriter(this.getConnection().getOutputStream()));
+        void evictIdleConnections() {
+            this.connections.evict();
+            if (this.heartbeatConnections != null) {
+                this.heartbeatConnections.evict();
             }
-            return this.writer;
+        }
+
+        /**
+         * Returns the encoded value of the Host header for requests to this proxy.
+         */
+        byte[] getHost() {
+            byte[] host = this.host;
+            if (host == null) {
+                host = EncodedMCMPRequest.encodeHost(this.socketAddress);
+                this.host = host;
+            }
+            return host;
         }
 
         InetAddress getLocalAddress() {
             return this.localAddress;
         }
 
+        /**
+         * Returns the single-threaded worker of this proxy, which preserves the order in which requests are queued.
+         *
+         * @param heartbeat whether the worker is used for heartbeats
+         */
+        ExecutorService getExecutor(boolean heartbeat) {
+            if (heartbeat && (this.heartbeatConnections != null)) {
+                return DefaultMCMPHandler.getExecutor(this.heartbeatExecutor, "MCMP heartbeat " + this.socketAddress);
+            }
+            return DefaultMCMPHandler.getExecutor(this.executor, "MCMP " + this.socketAddress);
+        }
+
+        boolean isIoExceptionLogged() {
+            return this.ioExceptionLogged;
+        }
+
+        void setIoExceptionLogged(boolean ioErrorLogged) {
+            this.ioExceptionLogged = ioErrorLogged;
+        }
+    }
+
+    /**
+     * Bounded pool of the connections to a proxy. Connections are handed out most recently used first, so that surplus
+     * connections remain idle and are evicted.
+     */
+    @ThreadSafe
+    private static class ConnectionPool {
+        private final Proxy proxy;
+        private final int size;
+        private final long idleTimeout;
+
+        @GuardedBy("this")
+        private final Deque<Connection> idle = new ArrayDeque<Connection>();
+        @GuardedBy("this")
+        private int created = 0;
+        /** Incremented whenever all connections of the pool are closed. */
+        private volatile int generation = 0;
+
+        ConnectionPool(Proxy proxy, int size, int idleTimeout) {
+            this.proxy = proxy;
+            this.size = Math.max(1, size);
+            this.idleTimeout = (idleTimeout > 0) ? TimeUnit.MILLISECONDS.toNanos(idleTimeout) : 0;
+        }
+
+        /**
+         * Takes a connection from this pool, waiting for one to be released if all are in use. Like the exchange itself, waiting
+         * is bounded by the socket timeout.
+         *
+         * @throws SocketTimeoutException if no connection was released within the socket timeout
+         * @throws InterruptedIOException if interrupted while waiting
+         */
+        synchronized Connection acquire() throws IOException {
+            int timeout = this.proxy.socketTimeout;
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+            while (true) {
+                Connection connection = this.idle.pollFirst();
+
+                if (connection != null) {
+                    if (this.isExpired(connection, System.nanoTime())) {
+                        connection.close();
+                    }
+                    return connection;
+                }
+
+                if (this.created < this.size) {
+                    this.created += 1;
+                    return new Connection(this.proxy, this);
+                }
+
+                long remaining = deadline - System.nanoTime();
+
+                if ((timeout > 0) && (remaining <= 0)) {
+                    throw new SocketTimeoutException("Timed out waiting for a connection to " + this.proxy.getSocketAddress());
+                }
+
+                try {
+                    this.wait((timeout > 0) ? Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)) : 0);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for a connection to " + this.proxy.getSocketAddress());
+                }
+            }
+        }
+
+        synchronized void release(Connection connection) {
+            if (connection.generation != this.generation) {
+                connection.close();
+            }
+            connection.lastUsed = System.nanoTime();
+            this.idle.addFirst(connection);
+            this.notify();
+        }
+
+        synchronized void close() {
+            this.generation += 1;
+
+            for (Connection connection : this.idle) {
+                connection.close();
+            }
+        }
+
+        synchronized void evict() {
+            long now = System.nanoTime();
+
+            for (Connection connection : this.idle) {
+                if (this.isExpired(connection, now)) {
+                    connection.close();
+                }
+            }
+        }
+
+        private boolean isExpired(Connection connection, long now) {
+            return (this.idleTimeout > 0) && connection.isConnected() && (now - connection.lastUsed > this.idleTimeout);
+        }
+    }
+
+    /**
+     * A connection to a proxy, opened on demand. A connection is used by a single thread at a time, as handed out by its
+     * {@link ConnectionPool}.
+     */
+    private static class Connection {
+        final Proxy proxy;
+        final ConnectionPool pool;
+
+        private Socket socket = null;
+        private InputStream input = null;
+        private OutputStream output = null;
+        /** Bytes received on this connection but not yet decoded, e.g. the start of a pipelined response. */
+        private final ByteBuffer buffer = (ByteBuffer) ByteBuffer.allocate(BUFFER_SIZE).limit(0);
+        private final MCMPResponseDecoder response = new MCMPResponseDecoder();
+        /** Generation of the pool in which the socket was opened. */
+        int generation;
+        long lastUsed;
+        /** Whether a socket was opened by this connection before. */
+        private boolean connected = false;
+
+        Connection(Proxy proxy, ConnectionPool pool) {
+            this.proxy = proxy;
+            this.pool = pool;
+        }
+
+        private Socket getSocket() throws IOException {
+            if (this.socket == null || this.socket.isClosed()) {
+                this.generation = this.pool.generation;
+                this.socket = this.proxy.connect();
+                this.proxy.metrics.connected(this.connected);
+                this.connected = true;
+            }
+            return this.socket;
+        }
+
+        /**
+         * Returns an output stream to the proxy.
+         */
+        OutputStream getOutput() throws IOException {
+            if (this.output == null) {
+                this.output = new BufferedOutputStream(this.getSocket().getOutputStream());
+            }
+            return this.output;
+        }
+
+        /**
+         * Reads the next response from the proxy into the decoder of this connection.
+         *
+         * @return the decoded response, or null if the connection was closed before any of it was received
+         */
+        MCMPResponseDecoder readResponse() throws IOException {
+            if (this.input == null) {
+                this.input = this.getSocket().getInputStream();
+            }
+
+            ByteBuffer buffer = this.buffer;
+            MCMPResponseDecoder response = this.response;
+
+            response.reset();
+
+            while (!response.decode(buffer)) {
+                // The decoder consumed all buffered bytes
+                buffer.clear();
+                int bytes = this.input.read(buffer.array(), buffer.arrayOffset(), buffer.capacity());
+                if (bytes < 0) {
+                    buffer.limit(0);
+                    if (response.end()) {
+                        break;
+                    }
+                    if (!response.isStarted()) {
+                        return null;
+                    }
+                    throw new EOFException();
+                }
+                buffer.limit(bytes);
+                this.proxy.metrics.received(bytes);
+            }
+
+            return response;
+        }
+
+        /**
+         * Returns the decoder of the responses received on this connection.
+         */
+        MCMPResponseDecoder getResponse() {
+            return this.response;
+        }
+
+        /**
+         * Indicates whether this connection is open.
+         */
+        boolean isConnected() {
+            return (this.socket != null) && !this.socket.isClosed();
+        }
+
         /**
          * Close connection.
          */
-        synchronized void closeConnection() {
-            if (this.reader != null) {
+        void close() {
+            if (this.input != null) {
                 try {
-                    this.reader.close();
+                    this.input.close();
                 } catch (IOException e) {
                     // Ignore
                 }
-                this.reader = null;
+                this.input = null;
             }
-            if (this.writer != null) {
+            this.buffer.clear().limit(0);
+            if (this.output != null) {
                 try {
-                    this.writer.close();
+                    this.output.close();
                 } catch (IOException e) {
                     // Ignore
                 }
-                this.writer = null;
+                this.output = null;
             }
             if (this.socket != null) {
                 if (!this.socket.isClosed()) {
@@ -867,14 +1547,6 @@ public class DefaultMCMPHandler implements MCMPHandler {
                 this.socket = null;
             }
         }
-
-        boolean isIoExceptionLogged() {
-            return this.ioExceptionLogged;
-        }
-
-        void setIoExceptionLogged(boolean ioErrorLogged) {
-            this.ioExceptionLogged = ioErrorLogged;
-        }
     }
 
     public static class VirtualHostImpl implements ResetRequestSource.VirtualHost, Externalizable {
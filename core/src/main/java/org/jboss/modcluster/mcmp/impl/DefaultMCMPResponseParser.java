@@ -4,9 +4,15 @@
  */
 package org.jboss.modcluster.mcmp.impl;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -32,185 +38,347 @@ public class DefaultMCMPResponseParser implements MCMPResponseParser {
 
         log.trace(response);
 
-        // Map node id -> node name (i.e. jvm route)
-        Map<String, String> nodeMap = new HashMap<String, String>();
-        // Map node name -> vhost id -> virtual host
-        Map<String, Map<String, ResetRequestSource.VirtualHost>> virtualHostMap = new HashMap<String, Map<String, ResetRequestSource.VirtualHost>>();
-
-        for (String line : response.split("\r\n|\r|\n")) {
-            if (line.startsWith("Node:")) {
-                String[] entries = line.split(",");
-                String nodeId = this.parseIds(entries[0])[0];
+        try {
+            return this.parseInfoResponse(new StringReader(response));
+        } catch (IOException e) {
+            // Not thrown by a StringReader
+            throw new IllegalStateException(e);
+        }
+    }
 
-                // We can skip the first entry
-                for (int i = 1; i < entries.length; ++i) {
-                    String entry = entries[i];
-                    int index = entry.indexOf(':');
+    @Override
+    public Map<String, Set<VirtualHost>> parseInfoResponse(Reader response) throws IOException {
+        Map<String, Set<VirtualHost>> result = new InfoResponseParser().parse(response);
 
-                    if (index < 0) {
-                        throw new IllegalArgumentException(response);
-                    }
+        log.trace(result);
 
-                    String key = entry.substring(0, index).trim();
-                    String value = entry.substring(index + 1).trim();
+        return result;
+    }
 
-                    if ("Name".equals(key)) {
-                        nodeMap.put(nodeId, value);
-                        virtualHostMap.put(value, new HashMap<String, ResetRequestSource.VirtualHost>());
-                        break;
-                    }
-                }
-            } else if (line.startsWith("Vhost:")) {
-                String[] entries = line.split(",");
-                String[] ids = this.parseIds(entries[0]);
+    @Override
+    public boolean parsePingResponse(String response) {
+        log.trace(response);
 
-                if (ids.length != 3) {
-                    throw new IllegalArgumentException(response);
-                }
+        String value = this.findProperty("State", response);
 
-                String node = nodeMap.get(ids[0]);
+        return (value != null) ? value.equals("OK") : false;
+    }
 
-                if (node == null) {
-                    throw new IllegalArgumentException(response);
-                }
+    @Override
+    public int parseStopAppResponse(String response) {
+        log.trace(response);
 
-                Map<String, ResetRequestSource.VirtualHost> hostMap = virtualHostMap.get(node);
-                String hostId = ids[1];
+        String value = this.findProperty("Requests", response);
 
-                ResetRequestSource.VirtualHost host = hostMap.get(hostId);
+        try {
+            return (value != null) ? Integer.parseInt(value) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
 
-                if (host == null) {
-                    host = new VirtualHostImpl();
-                    hostMap.put(hostId, host);
-                }
+    private String findProperty(String name, String response) {
+        if (response == null)
+            return null;
 
-                for (int i = 1; i < entries.length; ++i) {
-                    String entry = entries[i];
-                    int index = entry.indexOf(':');
+        for (String value : response.trim().split(PARAMETER_DELIMITER)) {
+            String[] pair = value.split(NAME_VALUE_DELIMITER);
 
-                    if (index < 0) {
-                        throw new IllegalArgumentException(response);
-                    }
+            if ((pair.length == 2) && pair[0].equals(name)) {
+                return pair[1];
+            }
+        }
 
-                    String key = entry.substring(0, index).trim();
-                    String value = entry.substring(index + 1).trim();
+        return null;
+    }
 
-                    if ("Alias".equals(key)) {
-                        host.getAliases().add(value);
-                        break;
+    /**
+     * Single pass parser of an INFO-RSP. Each line is read into a reusable buffer, whose fields are located in place rather than
+     * split into strings, and the virtual hosts are built as their lines are read. Node names, aliases and context paths, which
+     * repeat across the nodes of a balancer, are interned per response.
+     */
+    private static class InfoResponseParser {
+        private static final char[] NODE = "Node:".toCharArray();
+        private static final char[] VHOST = "Vhost:".toCharArray();
+        private static final char[] CONTEXT = "Context:".toCharArray();
+        private static final ResetRequestSource.Status[] STATI = ResetRequestSource.Status.values();
+
+        private final Map<String, String> strings = new HashMap<String, String>();
+        // Map node id -> node name (i.e. jvm route)
+        private final Map<String, String> nodes = new HashMap<String, String>();
+        // Map node name -> vhost id -> virtual host
+        private final Map<String, Map<String, VirtualHost>> hosts = new HashMap<String, Map<String, VirtualHost>>();
+        private final Map<String, Set<VirtualHost>> result = new HashMap<String, Set<VirtualHost>>();
+
+        private char[] line = new char[256];
+        private int length = 0;
+
+        Map<String, Set<VirtualHost>> parse(Reader reader) throws IOException {
+            char[] buffer = new char[8192];
+            boolean cr = false;
+            int read;
+
+            while ((read = reader.read(buffer)) >= 0) {
+                for (int i = 0; i < read; ++i) {
+                    char c = buffer[i];
+
+                    if ((c == '\r') || (c == '\n')) {
+                        // Lines end with \r\n, \r or \n
+                        if ((c == '\r') || !cr) {
+                            this.processLine();
+                            this.length = 0;
+                        }
+                        cr = (c == '\r');
+                    } else {
+                        if (this.length == this.line.length) {
+                            this.line = Arrays.copyOf(this.line, this.line.length * 2);
+                        }
+                        this.line[this.length++] = c;
+                        cr = false;
                     }
                 }
-            } else if (line.startsWith("Context:")) {
-                String[] entries = line.split(",");
-                String[] ids = this.parseIds(entries[0]);
+            }
 
-                if (ids.length != 3) {
-                    throw new IllegalArgumentException(response);
-                }
+            this.processLine();
 
-                String nodeId = ids[0];
-                String node = nodeMap.get(nodeId);
+            return this.result;
+        }
 
-                if (node == null) {
-                    throw new IllegalArgumentException(response);
+        private void processLine() {
+            // Ignore trailing empty entries, as String.split(...) would
+            while ((this.length > 0) && (this.line[this.length - 1] == ',')) {
+                this.length -= 1;
+            }
+
+            if (this.startsWith(NODE)) {
+                this.processNode();
+            } else if (this.startsWith(VHOST)) {
+                this.processVirtualHost();
+            } else if (this.startsWith(CONTEXT)) {
+                this.processContext();
+            }
+        }
+
+        private void processNode() {
+            int end = this.indexOf(',', 0);
+            String nodeId = this.parseIds(0, end)[0];
+
+            // We can skip the first entry
+            while (end < this.length) {
+                int start = end + 1;
+                end = this.indexOf(',', start);
+                int colon = this.colon(start, end);
+
+                if (this.keyEquals(start, colon, "Name")) {
+                    String name = this.value(colon, end);
+                    this.nodes.put(nodeId, name);
+                    this.hosts.put(name, new HashMap<String, VirtualHost>());
+                    this.result.put(name, new HashSet<VirtualHost>());
+                    break;
                 }
+            }
+        }
 
-                Map<String, ResetRequestSource.VirtualHost> hostMap = virtualHostMap.get(node);
-                String hostId = ids[1];
+        private void processVirtualHost() {
+            int end = this.indexOf(',', 0);
+            String[] ids = this.parseIds(0, end);
 
-                ResetRequestSource.VirtualHost host = hostMap.get(hostId);
+            if (ids.length != 3) {
+                throw this.malformed();
+            }
 
-                if (host == null) {
-                    throw new IllegalArgumentException(response);
-                }
+            String node = this.nodes.get(ids[0]);
 
-                String context = null;
-                ResetRequestSource.Status status = null;
+            if (node == null) {
+                throw this.malformed();
+            }
 
-                for (int i = 1; i < entries.length; ++i) {
-                    String entry = entries[i];
-                    int index = entry.indexOf(':');
+            Map<String, VirtualHost> hostMap = this.hosts.get(node);
+            String hostId = ids[1];
 
-                    if (index < 0) {
-                        throw new IllegalArgumentException(response);
-                    }
+            VirtualHost host = hostMap.get(hostId);
 
-                    String key = entry.substring(0, index).trim();
-                    String value = entry.substring(index + 1).trim();
+            if (host == null) {
+                host = new VirtualHostImpl();
+                hostMap.put(hostId, host);
+                this.result.get(node).add(host);
+            }
 
-                    if ("Context".equals(key)) {
-                        context = value;
-                    } else if ("Status".equals(key)) {
-                        status = ResetRequestSource.Status.valueOf(value);
-                    }
-                }
+            while (end < this.length) {
+                int start = end + 1;
+                end = this.indexOf(',', start);
+                int colon = this.colon(start, end);
 
-                if ((context == null) || (status == null)) {
-                    throw new IllegalArgumentException(response);
+                if (this.keyEquals(start, colon, "Alias")) {
+                    host.getAliases().add(this.value(colon, end));
+                    break;
                 }
-
-                host.getContexts().put(context, status);
             }
         }
 
-        Map<String, Set<ResetRequestSource.VirtualHost>> result = new HashMap<String, Set<ResetRequestSource.VirtualHost>>();
+        private void processContext() {
+            int end = this.indexOf(',', 0);
+            String[] ids = this.parseIds(0, end);
+
+            if (ids.length != 3) {
+                throw this.malformed();
+            }
 
-        for (Map.Entry<String, Map<String, ResetRequestSource.VirtualHost>> entry : virtualHostMap.entrySet()) {
-            result.put(entry.getKey(), new HashSet<ResetRequestSource.VirtualHost>(entry.getValue().values()));
+            String node = this.nodes.get(ids[0]);
+
+            if (node == null) {
+                throw this.malformed();
+            }
+
+            VirtualHost host = this.hosts.get(node).get(ids[1]);
+
+            if (host == null) {
+                throw this.malformed();
+            }
+
+            String context = null;
+            ResetRequestSource.Status status = null;
+
+            while (end < this.length) {
+                int start = end + 1;
+                end = this.indexOf(',', start);
+                int colon = this.colon(start, end);
+
+                if (this.keyEquals(start, colon, "Context")) {
+                    context = this.value(colon, end);
+                } else if (this.keyEquals(start, colon, "Status")) {
+                    status = this.status(colon + 1, end);
+                }
+            }
+
+            if ((context == null) || (status == null)) {
+                throw this.malformed();
+            }
+
+            host.getContexts().put(context, status);
         }
 
-        log.trace(result);
+        /**
+         * Parses the ids between the brackets of the specified entry.
+         */
+        private String[] parseIds(int start, int end) {
+            int open = this.indexOf('[', start, end);
+            int idStart = (open < end) ? open + 1 : start;
+            int idEnd = this.indexOf(']', start, end);
 
-        return result;
-    }
+            if ((idEnd == end) || (idStart >= idEnd)) {
+                throw new IllegalArgumentException(new String(this.line, start, end - start));
+            }
 
-    private String[] parseIds(String entry) {
-        int start = entry.indexOf('[') + 1;
-        int end = entry.indexOf(']');
+            if (idEnd - idStart <= 2) {
+                return new String[] { new String(this.line, idStart, idEnd - idStart) };
+            }
 
-        if (start >= end) {
-            throw new IllegalArgumentException(entry);
+            // Same as String.split(":"), i.e. without trailing empty ids
+            List<String> ids = new ArrayList<String>(3);
+            int idsEnd = idEnd;
+            while ((idsEnd > idStart) && (this.line[idsEnd - 1] == ':')) {
+                idsEnd -= 1;
+            }
+            int i = idStart;
+            while (i < idsEnd) {
+                int separator = this.indexOf(':', i, idsEnd);
+                ids.add(new String(this.line, i, separator - i));
+                i = separator + 1;
+            }
+            return ids.toArray(new String[ids.size()]);
         }
 
-        String ids = entry.substring(start, end);
+        private int colon(int start, int end) {
+            int colon = this.indexOf(':', start, end);
 
-        return (ids.length() > 2) ? ids.split(":") : new String[] { ids };
-    }
+            if (colon == end) {
+                throw this.malformed();
+            }
 
-    @Override
-    public boolean parsePingResponse(String response) {
-        log.trace(response);
+            return colon;
+        }
 
-        String value = this.findProperty("State", response);
+        private boolean keyEquals(int start, int end, String key) {
+            start = this.skipWhitespace(start, end);
+            end = this.trimWhitespace(start, end);
 
-        return (value != null) ? value.equals("OK") : false;
-    }
+            if (end - start != key.length()) {
+                return false;
+            }
+            for (int i = 0; i < key.length(); ++i) {
+                if (this.line[start + i] != key.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
 
-    @Override
-    public int parseStopAppResponse(String response) {
-        log.trace(response);
+        /**
+         * Returns the interned value following the specified colon, up to the specified end.
+         */
+        private String value(int colon, int end) {
+            int start = this.skipWhitespace(colon + 1, end);
+            String value = new String(this.line, start, this.trimWhitespace(start, end) - start);
+            String interned = this.strings.putIfAbsent(value, value);
+            return (interned != null) ? interned : value;
+        }
 
-        String value = this.findProperty("Requests", response);
+        private ResetRequestSource.Status status(int start, int end) {
+            for (ResetRequestSource.Status status : STATI) {
+                if (this.keyEquals(start, end, status.name())) {
+                    return status;
+                }
+            }
+            // Reject as Enum.valueOf(...) would
+            int valueStart = this.skipWhitespace(start, end);
+            throw new IllegalArgumentException(new String(this.line, valueStart, this.trimWhitespace(valueStart, end) - valueStart));
+        }
 
-        try {
-            return (value != null) ? Integer.parseInt(value) : 0;
-        } catch (NumberFormatException e) {
-            return 0;
+        private boolean startsWith(char[] prefix) {
+            if (this.length < prefix.length) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length; ++i) {
+                if (this.line[i] != prefix[i]) {
+                    return false;
+                }
+            }
+            return true;
         }
-    }
 
-    private String findProperty(String name, String response) {
-        if (response == null)
-            return null;
+        private int indexOf(char c, int start) {
+            return this.indexOf(c, start, this.length);
+        }
 
-        for (String value : response.trim().split(PARAMETER_DELIMITER)) {
-            String[] pair = value.split(NAME_VALUE_DELIMITER);
+        /**
+         * Returns the index of the specified character within the specified range, or the end of the range if not found.
+         */
+        private int indexOf(char c, int start, int end) {
+            for (int i = start; i < end; ++i) {
+                if (this.line[i] == c) {
+                    return i;
+                }
+            }
+            return end;
+        }
 
-            if ((pair.length == 2) && pair[0].equals(name)) {
-                return pair[1];
+        private int skipWhitespace(int start, int end) {
+            while ((start < end) && (this.line[start] <= ' ')) {
+                start += 1;
             }
+            return start;
         }
 
-        return null;
+        private int trimWhitespace(int start, int end) {
+            while ((end > start) && (this.line[end - 1] <= ' ')) {
+                end -= 1;
+            }
+            return end;
+        }
+
+        private IllegalArgumentException malformed() {
+            return new IllegalArgumentException(new String(this.line, 0, this.length));
+        }
     }
 }
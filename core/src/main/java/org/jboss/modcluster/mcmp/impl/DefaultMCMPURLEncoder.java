@@ -0,0 +1,103 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.mcmp.impl;
+
+import java.util.Arrays;
+
+import org.jboss.modcluster.mcmp.MCMPURLEncoder;
+
+/**
+ * Default implementation of {@link MCMPURLEncoder}, which encodes parameters as <code>application/x-www-form-urlencoded</code>
+ * UTF-8, equivalent to {@link java.net.URLEncoder#encode(String, String)}, into a buffer that is reused after
+ * {@link #reset()}. Since the encoded data consists of US-ASCII characters only, it can be written to a stream one byte per
+ * character.
+ */
+public class DefaultMCMPURLEncoder implements MCMPURLEncoder {
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private char[] buffer;
+    private int length = 0;
+
+    public DefaultMCMPURLEncoder() {
+        this(256);
+    }
+
+    public DefaultMCMPURLEncoder(int capacity) {
+        this.buffer = new char[capacity];
+    }
+
+    @Override
+    public void encodeParameter(String key, String value, boolean hasNext) {
+        this.encode(key);
+        this.append('=');
+        this.encode(value);
+
+        if (hasNext) {
+            this.append('&');
+        }
+    }
+
+    @Override
+    public char[] getBuffer() {
+        return this.buffer;
+    }
+
+    @Override
+    public int getLength() {
+        return this.length;
+    }
+
+    /**
+     * Discards the encoded data, such that the buffer can be reused.
+     */
+    public void reset() {
+        this.length = 0;
+    }
+
+    private void encode(String value) {
+        int length = value.length();
+
+        for (int i = 0; i < length; ++i) {
+            char c = value.charAt(i);
+
+            if (((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) || ((c >= '0') && (c <= '9')) || (c == '.') || (c == '-') || (c == '*') || (c == '_')) {
+                this.append(c);
+            } else if (c == ' ') {
+                this.append('+');
+            } else if (c < 0x80) {
+                this.appendEscaped(c);
+            } else if (c < 0x800) {
+                this.appendEscaped(0xC0 | (c >> 6));
+                this.appendEscaped(0x80 | (c & 0x3F));
+            } else if (!Character.isSurrogate(c)) {
+                this.appendEscaped(0xE0 | (c >> 12));
+                this.appendEscaped(0x80 | ((c >> 6) & 0x3F));
+                this.appendEscaped(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && (i + 1 < length) && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                this.appendEscaped(0xF0 | (codePoint >> 18));
+                this.appendEscaped(0x80 | ((codePoint >> 12) & 0x3F));
+                this.appendEscaped(0x80 | ((codePoint >> 6) & 0x3F));
+                this.appendEscaped(0x80 | (codePoint & 0x3F));
+            } else {
+                // Malformed surrogate, replaced like the UTF-8 charset encoder would
+                this.appendEscaped('?');
+            }
+        }
+    }
+
+    private void appendEscaped(int b) {
+        this.append('%');
+        this.append(HEX[(b >> 4) & 0xF]);
+        this.append(HEX[b & 0xF]);
+    }
+
+    private void append(char c) {
+        if (this.length == this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+        }
+        this.buffer[this.length++] = c;
+    }
+}
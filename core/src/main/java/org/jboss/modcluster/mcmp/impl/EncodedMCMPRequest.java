@@ -0,0 +1,202 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.mcmp.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.jboss.modcluster.mcmp.MCMPRequest;
+
+/**
+ * An {@link MCMPRequest} encoded once as a US-ASCII HTTP request, such that it can be written to any number of proxies. The
+ * value of the Host header, which differs per proxy, is supplied when the request is written.
+ */
+final class EncodedMCMPRequest {
+    private static final byte[] HTTP_HOST = " HTTP/1.1\r\nHost: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CONTENT_LENGTH = "\r\nContent-Length: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEADERS = "\r\nUser-Agent: ClusterListener/1.0\r\nConnection: Keep-Alive\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    /** Per-thread scratch space for encoding requests. */
+    private static final ThreadLocal<Encoder> ENCODER = new ThreadLocal<Encoder>() {
+        @Override
+        protected Encoder initialValue() {
+            return new Encoder();
+        }
+    };
+
+    private final MCMPRequest request;
+    private final byte[] data;
+    /** Offset into data at which the Host header value is inserted. */
+    private final int host;
+
+    /**
+     * Encodes the specified request.
+     *
+     * @param request  the request to encode
+     * @param proxyURL optional URL prefix of the MCMP handler of the proxy
+     */
+    static EncodedMCMPRequest encode(MCMPRequest request, String proxyURL) {
+        return ENCODER.get().encode(request, proxyURL);
+    }
+
+    /**
+     * Encodes the value of the Host header for a proxy listening on the specified address.
+     */
+    static byte[] encodeHost(InetSocketAddress socketAddress) {
+        String host = socketAddress.getHostString();
+        StringBuilder builder = new StringBuilder();
+
+        if (host != null && host.contains(":")) {
+            builder.append('[').append(host).append(']');
+        } else {
+            builder.append(host);
+        }
+
+        return builder.append(':').append(socketAddress.getPort()).toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private EncodedMCMPRequest(MCMPRequest request, byte[] data, int host) {
+        this.request = request;
+        this.data = data;
+        this.host = host;
+    }
+
+    MCMPRequest getRequest() {
+        return this.request;
+    }
+
+    /**
+     * Writes this request to the specified stream.
+     *
+     * @param output a stream to the proxy, which should be buffered
+     * @param host   the encoded value of the Host header of the proxy
+     * @return the number of bytes written
+     */
+    int writeTo(OutputStream output, byte[] host) throws IOException {
+        output.write(this.data, 0, this.host);
+        output.write(host);
+        output.write(this.data, this.host, this.data.length - this.host);
+        return this.data.length + host.length;
+    }
+
+    /**
+     * Returns buffers that contain this request, for a gathering write.
+     *
+     * @param host the encoded value of the Host header of the proxy
+     */
+    ByteBuffer[] toBuffers(byte[] host) {
+        return new ByteBuffer[] { ByteBuffer.wrap(this.data, 0, this.host), ByteBuffer.wrap(host), ByteBuffer.wrap(this.data, this.host, this.data.length - this.host) };
+    }
+
+    /**
+     * Reusable buffers in which requests are encoded.
+     */
+    private static class Encoder {
+        private final DefaultMCMPURLEncoder body = new DefaultMCMPURLEncoder();
+        private byte[] buffer = new byte[512];
+        private int length = 0;
+
+        EncodedMCMPRequest encode(MCMPRequest request, String proxyURL) {
+            String jvmRoute = request.getJvmRoute();
+            Map<String, String> parameters = request.getParameters();
+
+            // First, encode the POST body
+            this.body.reset();
+
+            if (jvmRoute != null) {
+                this.body.encodeParameter("JVMRoute", jvmRoute, !parameters.isEmpty());
+            }
+
+            Iterator<Map.Entry<String, String>> entries = parameters.entrySet().iterator();
+
+            while (entries.hasNext()) {
+                Map.Entry<String, String> entry = entries.next();
+
+                this.body.encodeParameter(entry.getKey(), entry.getValue(), entries.hasNext());
+            }
+
+            // Then, the request line and headers
+            this.length = 0;
+
+            this.append(request.getRequestType().toString());
+            this.append(' ');
+
+            if (proxyURL != null) {
+                this.append(proxyURL);
+            }
+
+            if (this.buffer[this.length - 1] != '/') {
+                this.append('/');
+            }
+
+            if (request.isWildcard()) {
+                this.append('*');
+            }
+
+            this.append(HTTP_HOST);
+
+            int host = this.length;
+
+            int bodyLength = this.body.getLength();
+
+            if (bodyLength > 0) {
+                this.append(CONTENT_LENGTH);
+                this.append(bodyLength);
+            }
+
+            this.append(HEADERS);
+
+            char[] chars = this.body.getBuffer();
+            for (int i = 0; i < bodyLength; ++i) {
+                this.append(chars[i]);
+            }
+
+            return new EncodedMCMPRequest(request, Arrays.copyOf(this.buffer, this.length), host);
+        }
+
+        private void append(String value) {
+            for (int i = 0; i < value.length(); ++i) {
+                this.append(value.charAt(i));
+            }
+        }
+
+        private void append(char c) {
+            this.ensureCapacity(1);
+            // Non US-ASCII characters are replaced like the US-ASCII charset encoder would
+            this.buffer[this.length++] = (byte) ((c < 0x80) ? c : '?');
+        }
+
+        private void append(byte[] bytes) {
+            this.ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, this.buffer, this.length, bytes.length);
+            this.length += bytes.length;
+        }
+
+        private void append(int value) {
+            int digits = 1;
+            for (int i = value; i >= 10; i /= 10) {
+                ++digits;
+            }
+            this.ensureCapacity(digits);
+            for (int i = this.length + digits - 1; i >= this.length; --i) {
+                this.buffer[i] = (byte) ('0' + (value % 10));
+                value /= 10;
+            }
+            this.length += digits;
+        }
+
+        private void ensureCapacity(int bytes) {
+            if (this.length + bytes > this.buffer.length) {
+                this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.length + bytes));
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.mcmp.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import org.jboss.modcluster.ModClusterLogger;
+import org.jboss.modcluster.Utils;
+import org.jboss.modcluster.mcmp.MCMPRequestType;
+import org.jboss.modcluster.mcmp.MCMPServerState;
+
+/**
+ * Utility methods for combining the per-proxy futures of asynchronous MCMP requests.
+ */
+final class Futures {
+
+    /**
+     * Returns a future that completes with the results of the specified futures, in order, once all of them have completed.
+     */
+    static <T> CompletableFuture<List<T>> all(final List<CompletableFuture<T>> futures) {
+        return allOf(futures).thenApply(new Function<Void, List<T>>() {
+            @Override
+            public List<T> apply(Void ignored) {
+                List<T> results = new ArrayList<T>(futures.size());
+                for (CompletableFuture<T> future : futures) {
+                    results.add(future.join());
+                }
+                return results;
+            }
+        });
+    }
+
+    /**
+     * Returns a future that completes with the result for each proxy once all of the specified futures have completed.
+     */
+    static <T> CompletableFuture<Map<MCMPServerState, T>> collect(final Map<? extends MCMPServerState, CompletableFuture<T>> futures) {
+        return allOf(futures.values()).thenApply(new Function<Void, Map<MCMPServerState, T>>() {
+            @Override
+            public Map<MCMPServerState, T> apply(Void ignored) {
+                Map<MCMPServerState, T> results = new HashMap<MCMPServerState, T>();
+                for (Map.Entry<? extends MCMPServerState, CompletableFuture<T>> entry : futures.entrySet()) {
+                    results.put(entry.getKey(), entry.getValue().join());
+                }
+                return results;
+            }
+        });
+    }
+
+    /**
+     * Returns a future that completes once all of the specified futures have completed.
+     */
+    static CompletableFuture<Void> allOf(Collection<? extends CompletableFuture<?>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]));
+    }
+
+    /**
+     * Waits for the result of each proxy until the specified deadline elapses. Proxies whose future did not complete in time
+     * are reported with a <code>null</code> result, and their future is left to complete in the background.
+     *
+     * @param requestType type of the (first) request whose results are awaited, used for logging
+     * @param futures     the future result per proxy
+     * @param deadline    value of {@link System#nanoTime()} until which to wait
+     * @param timeout     the timeout in milliseconds from which the deadline was computed; a non-positive value waits indefinitely
+     */
+    static <T> Map<MCMPServerState, T> await(MCMPRequestType requestType, Map<? extends MCMPServerState, ? extends Future<T>> futures, long deadline, int timeout) {
+        Map<MCMPServerState, T> results = new HashMap<MCMPServerState, T>();
+
+        for (Map.Entry<? extends MCMPServerState, ? extends Future<T>> entry : futures.entrySet()) {
+            MCMPServerState proxy = entry.getKey();
+            Future<T> future = entry.getValue();
+            T result = null;
+
+            try {
+                result = (timeout > 0) ? future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS) : future.get();
+            } catch (TimeoutException e) {
+                ModClusterLogger.LOGGER.dispatchTimeout(requestType, proxy.getSocketAddress(), timeout);
+            } catch (ExecutionException e) {
+                throw Utils.convertToUnchecked(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            results.put(proxy, result);
+        }
+
+        return results;
+    }
+
+    private Futures() {
+    }
+}
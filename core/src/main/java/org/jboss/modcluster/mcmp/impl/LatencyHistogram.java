@@ -0,0 +1,103 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.mcmp.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Lock-free histogram of latencies in microseconds, with log-linear buckets in the style of HdrHistogram. Each power of two
+ * is split into {@value #SUB_BUCKETS} linear buckets, so that recorded values are reported with a relative error below 1/16.
+ * Latencies beyond {@link #MAX_VALUE} are recorded as {@link #MAX_VALUE}.
+ */
+@ThreadSafe
+class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Largest recordable value, i.e. about 25 days. */
+    static final long MAX_VALUE = (1L << 41) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(index(MAX_VALUE) + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records the specified latency.
+     *
+     * @param value latency in microseconds
+     */
+    void record(long value) {
+        long micros = Math.min(Math.max(0, value), MAX_VALUE);
+
+        this.counts.incrementAndGet(index(micros));
+        this.count.incrementAndGet();
+
+        long max = this.max.get();
+        while ((micros > max) && !this.max.compareAndSet(max, micros)) {
+            max = this.max.get();
+        }
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     */
+    long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * Returns the latency, in microseconds, at or below which the specified percentage of the recorded latencies lie, or 0 if
+     * none were recorded. Concurrent recordings may or may not be accounted for.
+     *
+     * @param percentile a percentage between 0 and 100
+     */
+    long getValueAtPercentile(double percentile) {
+        long count = this.count.get();
+
+        if (count == 0) {
+            return 0;
+        }
+
+        long max = this.max.get();
+        long target = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) * count / 100));
+        long total = 0;
+
+        for (int i = 0; i < this.counts.length(); ++i) {
+            total += this.counts.get(i);
+
+            if (total >= target) {
+                return Math.min(highestValue(i), max);
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * Returns the bucket of the specified value.
+     */
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Returns the highest value recorded in the specified bucket.
+     */
+    static long highestValue(int index) {
+        if (index < (SUB_BUCKETS << 1)) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long subBucket = (index & (SUB_BUCKETS - 1)) + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
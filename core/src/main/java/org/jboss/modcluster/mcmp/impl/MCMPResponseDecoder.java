@@ -0,0 +1,338 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.mcmp.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Incremental decoder of the HTTP responses of a proxy, meant to be reused for all responses received on a connection. The
+ * status line and headers are parsed within a reusable line buffer: header names are matched in place and the status code,
+ * Content-Length and chunk sizes are parsed without creating strings. Only the values of the Type and Mess headers are
+ * materialized as they are received; the body is kept as bytes until {@link #getBody()} or {@link #getBodyReader()} is called.
+ */
+public class MCMPResponseDecoder {
+    private static final byte[] TYPE = ascii("type");
+    private static final byte[] MESS = ascii("mess");
+    private static final byte[] CONTENT_LENGTH = ascii("content-length");
+    private static final byte[] CONNECTION = ascii("connection");
+    private static final byte[] TRANSFER_ENCODING = ascii("transfer-encoding");
+    private static final byte[] CLOSE = ascii("close");
+    private static final byte[] CHUNKED = ascii("chunked");
+
+    /** Buffers grown beyond this size while decoding a large response are released by {@link #reset()}. */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private enum Phase {
+        STATUS_LINE, HEADERS, BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILER, DONE
+    }
+
+    private final int lineCapacity;
+    private final int bodyCapacity;
+
+    private byte[] line;
+    private int lineLength = 0;
+    private byte[] body;
+    private int bodyLength = 0;
+
+    private Phase phase = Phase.STATUS_LINE;
+    private long remaining = 0;
+    private boolean hasBody = true;
+
+    private int status = 500;
+    private String errorType = null;
+    private String message = null;
+    private int contentLength = 0;
+    private boolean close = false;
+    private boolean chunked = false;
+
+    public MCMPResponseDecoder() {
+        this(256, 512);
+    }
+
+    public MCMPResponseDecoder(int lineCapacity, int bodyCapacity) {
+        this.lineCapacity = lineCapacity;
+        this.bodyCapacity = bodyCapacity;
+        this.line = new byte[lineCapacity];
+        this.body = new byte[bodyCapacity];
+    }
+
+    /**
+     * Prepares this decoder for the next response.
+     */
+    public void reset() {
+        if (this.line.length > MAX_RETAINED_CAPACITY) {
+            this.line = new byte[this.lineCapacity];
+        }
+        if (this.body.length > MAX_RETAINED_CAPACITY) {
+            this.body = new byte[this.bodyCapacity];
+        }
+        this.lineLength = 0;
+        this.bodyLength = 0;
+        this.phase = Phase.STATUS_LINE;
+        this.remaining = 0;
+        this.hasBody = true;
+        this.status = 500;
+        this.errorType = null;
+        this.message = null;
+        this.contentLength = 0;
+        this.close = false;
+        this.chunked = false;
+    }
+
+    /**
+     * Consumes the available bytes of the response. Bytes that follow the end of the response, i.e. the start of a pipelined
+     * response, are left in the buffer.
+     *
+     * @param buffer a buffer ready to be read from
+     * @return true, if the response is complete, false otherwise
+     * @throws IllegalArgumentException if the response is malformed, in which case the decoder considers it complete, with
+     *         the connection to be closed, and whatever was parsed so far remains available
+     */
+    public boolean decode(ByteBuffer buffer) {
+        try {
+            while (buffer.hasRemaining() && (this.phase != Phase.DONE)) {
+                if ((this.phase == Phase.BODY) || (this.phase == Phase.CHUNK_DATA)) {
+                    int length = (int) Math.min(this.remaining, buffer.remaining());
+
+                    this.ensureBodyCapacity(length);
+                    buffer.get(this.body, this.bodyLength, length);
+                    this.bodyLength += length;
+                    this.remaining -= length;
+
+                    if (this.remaining == 0) {
+                        this.phase = (this.phase == Phase.BODY) ? Phase.DONE : Phase.CHUNK_END;
+                    }
+                } else {
+                    byte b = buffer.get();
+
+                    if (b == '\n') {
+                        if ((this.lineLength > 0) && (this.line[this.lineLength - 1] == '\r')) {
+                            this.lineLength -= 1;
+                        }
+                        this.processLine();
+                        this.lineLength = 0;
+                    } else {
+                        if (this.lineLength == this.line.length) {
+                            this.line = Arrays.copyOf(this.line, this.line.length * 2);
+                        }
+                        this.line[this.lineLength++] = b;
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // The remainder of the response cannot be located
+            this.close = true;
+            this.hasBody = false;
+            this.phase = Phase.DONE;
+            throw e;
+        }
+        return this.phase == Phase.DONE;
+    }
+
+    /**
+     * Signals the end of the stream.
+     *
+     * @return true, if the response is complete, false otherwise
+     */
+    public boolean end() {
+        if ((this.phase == Phase.BODY) && this.close && !this.chunked) {
+            this.phase = Phase.DONE;
+        }
+        return this.phase == Phase.DONE;
+    }
+
+    /**
+     * Indicates whether the status line of the response was received.
+     */
+    public boolean isStarted() {
+        return this.phase != Phase.STATUS_LINE;
+    }
+
+    public int getStatus() {
+        return this.status;
+    }
+
+    public String getErrorType() {
+        return this.errorType;
+    }
+
+    public String getMessage() {
+        return this.message;
+    }
+
+    /**
+     * Indicates whether the proxy closes the connection after this response.
+     */
+    public boolean isClose() {
+        return this.close;
+    }
+
+    /**
+     * Returns the body of the response, or null if it has none.
+     */
+    public String getBody() {
+        return this.hasBody ? new String(this.body, 0, this.bodyLength, StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Returns a reader of the body of the response, which decodes the received bytes as they are read, or null if it has none.
+     * The reader must be consumed before this decoder is reset.
+     */
+    public Reader getBodyReader() {
+        return this.hasBody ? new InputStreamReader(new ByteArrayInputStream(this.body, 0, this.bodyLength), StandardCharsets.UTF_8) : null;
+    }
+
+    private void processLine() {
+        byte[] line = this.line;
+        int length = this.lineLength;
+
+        switch (this.phase) {
+            case STATUS_LINE: {
+                // Ignore everything until we have a HTTP headers
+                int start = indexOf(line, 0, length, (byte) ' ');
+                if (start != -1) {
+                    int end = indexOf(line, start + 1, length, (byte) ' ');
+                    this.phase = Phase.HEADERS;
+                    this.status = (int) parseLong(line, start + 1, (end != -1) ? end : length, 10);
+                }
+                break;
+            }
+            case HEADERS: {
+                if (length > 0) {
+                    int colon = indexOf(line, 0, length, (byte) ':');
+                    if (colon == -1) {
+                        throw new IllegalArgumentException(new String(line, 0, length, StandardCharsets.US_ASCII));
+                    }
+                    int nameStart = skipWhitespace(line, 0, colon);
+                    int nameEnd = trimWhitespace(line, nameStart, colon);
+                    int valueStart = skipWhitespace(line, colon + 1, length);
+                    int valueEnd = trimWhitespace(line, valueStart, length);
+
+                    if (regionMatches(line, nameStart, nameEnd, TYPE)) {
+                        this.errorType = new String(line, valueStart, valueEnd - valueStart, StandardCharsets.UTF_8);
+                    } else if (regionMatches(line, nameStart, nameEnd, MESS)) {
+                        this.message = new String(line, valueStart, valueEnd - valueStart, StandardCharsets.UTF_8);
+                    } else if (regionMatches(line, nameStart, nameEnd, CONTENT_LENGTH)) {
+                        long contentLength = parseLong(line, valueStart, valueEnd, 10);
+                        if (contentLength > Integer.MAX_VALUE) {
+                            throw new IllegalArgumentException(Long.toString(contentLength));
+                        }
+                        this.contentLength = (int) contentLength;
+                    } else if (regionMatches(line, nameStart, nameEnd, CONNECTION)) {
+                        this.close = regionMatches(line, valueStart, valueEnd, CLOSE);
+                    } else if (regionMatches(line, nameStart, nameEnd, TRANSFER_ENCODING)) {
+                        if (regionMatches(line, valueStart, valueEnd, CHUNKED))
+                            this.chunked = true;
+                    }
+                } else if (this.chunked) {
+                    this.phase = Phase.CHUNK_SIZE;
+                } else if (this.close) {
+                    this.remaining = Long.MAX_VALUE;
+                    this.phase = Phase.BODY;
+                } else if (this.contentLength > 0) {
+                    this.remaining = this.contentLength;
+                    this.phase = Phase.BODY;
+                } else {
+                    this.hasBody = false;
+                    this.phase = Phase.DONE;
+                }
+                break;
+            }
+            case CHUNK_SIZE: {
+                int extension = indexOf(line, 0, length, (byte) ';');
+                int end = (extension != -1) ? extension : length;
+                int start = skipWhitespace(line, 0, end);
+                this.remaining = parseLong(line, start, trimWhitespace(line, start, end), 16);
+                this.phase = (this.remaining == 0) ? Phase.TRAILER : Phase.CHUNK_DATA;
+                break;
+            }
+            case CHUNK_END: {
+                this.phase = Phase.CHUNK_SIZE;
+                break;
+            }
+            case TRAILER: {
+                if (length == 0) {
+                    this.phase = Phase.DONE;
+                }
+                break;
+            }
+            default: {
+                throw new IllegalStateException(this.phase.name());
+            }
+        }
+    }
+
+    private void ensureBodyCapacity(int length) {
+        if (this.bodyLength + length > this.body.length) {
+            this.body = Arrays.copyOf(this.body, Math.max(this.body.length * 2, this.bodyLength + length));
+        }
+    }
+
+    private static int indexOf(byte[] bytes, int start, int end, byte b) {
+        for (int i = start; i < end; ++i) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(byte[] bytes, int start, int end) {
+        while ((start < end) && (bytes[start] <= ' ')) {
+            start += 1;
+        }
+        return start;
+    }
+
+    private static int trimWhitespace(byte[] bytes, int start, int end) {
+        while ((end > start) && (bytes[end - 1] <= ' ')) {
+            end -= 1;
+        }
+        return end;
+    }
+
+    /**
+     * Compares the specified region with a lower case US-ASCII value, ignoring case.
+     */
+    private static boolean regionMatches(byte[] bytes, int start, int end, byte[] value) {
+        if (end - start != value.length) {
+            return false;
+        }
+        for (int i = 0; i < value.length; ++i) {
+            int b = bytes[start + i];
+            if ((b >= 'A') && (b <= 'Z')) {
+                b += 'a' - 'A';
+            }
+            if (b != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parseLong(byte[] bytes, int start, int end, int radix) {
+        if ((start == end) || (end - start > 15)) {
+            throw new IllegalArgumentException(new String(bytes, start, end - start, StandardCharsets.US_ASCII));
+        }
+        long value = 0;
+        for (int i = start; i < end; ++i) {
+            int digit = Character.digit(bytes[i], radix);
+            if (digit < 0) {
+                throw new IllegalArgumentException(new String(bytes, start, end - start, StandardCharsets.US_ASCII));
+            }
+            value = (value * radix) + digit;
+        }
+        return value;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,1160 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.mcmp.impl;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.UnresolvedAddressException;
+import java.nio.channels.UnsupportedAddressTypeException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import javax.net.ssl.SSLSocketFactory;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import org.jboss.logging.Logger;
+import org.jboss.modcluster.ModClusterLogger;
+import org.jboss.modcluster.ModClusterMessages;
+import org.jboss.modcluster.config.MCMPHandlerConfiguration;
+import org.jboss.modcluster.config.ProxyConfiguration;
+import org.jboss.modcluster.mcmp.MCMPConnectionListener;
+import org.jboss.modcluster.mcmp.MCMPHandler;
+import org.jboss.modcluster.mcmp.MCMPRequest;
+import org.jboss.modcluster.mcmp.MCMPRequestFactory;
+import org.jboss.modcluster.mcmp.MCMPRequestType;
+import org.jboss.modcluster.mcmp.MCMPResponseParser;
+import org.jboss.modcluster.mcmp.MCMPServer;
+import org.jboss.modcluster.mcmp.MCMPServerMetrics;
+import org.jboss.modcluster.mcmp.MCMPServerState;
+import org.jboss.modcluster.mcmp.ResetRequestSource;
+
+/**
+ * Non-blocking implementation of {@link MCMPHandler}. A single thread multiplexes the connections to all proxies on one
+ * {@link Selector}, driving the connect, write and read phases of every exchange as a state machine, so that a slow or
+ * unreachable proxy never occupies a thread of its own. Requests to the same proxy are exchanged one at a time, in the order
+ * in which they were sent. Futures are completed on a separate pool of threads, such that dependent stages, e.g. the reset of
+ * a proxy, may block without stalling the selector thread.
+ * <p>
+ * This handler can be used in place of {@link DefaultMCMPHandler} via the protected
+ * {@link org.jboss.modcluster.ModClusterService} constructor. It does not support SSL connections to the proxy.
+ * </p>
+ */
+@ThreadSafe
+public class NioMCMPHandler implements MCMPHandler {
+    private static final int BUFFER_SIZE = 8192;
+
+    static final Logger log = Logger.getLogger(NioMCMPHandler.class);
+
+    private final MCMPHandlerConfiguration config;
+    /** Source for reset requests when we need to reset a proxy. */
+    private final ResetRequestSource resetRequestSource;
+    private final MCMPRequestFactory requestFactory;
+    private final MCMPResponseParser responseParser;
+
+    private final Lock addRemoveProxiesLock = new ReentrantLock();
+
+    /** Proxies. */
+    private final List<Proxy> proxies = new CopyOnWriteArrayList<Proxy>();
+
+    /** Add proxy list. */
+    @GuardedBy("addRemoveProxiesLock")
+    private final List<Proxy> addProxies = new ArrayList<Proxy>();
+
+    /** Remove proxy list. */
+    @GuardedBy("addRemoveProxiesLock")
+    private final List<Proxy> removeProxies = new ArrayList<Proxy>();
+
+    /** Work to be performed by the selector thread. */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+
+    /** Proxies with an exchange in progress, confined to the selector thread. */
+    private final Set<Proxy> busy = new HashSet<Proxy>();
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private final AtomicBoolean established = new AtomicBoolean(false);
+    private volatile MCMPConnectionListener connectionListener;
+    private volatile boolean init = false;
+
+    /** Worker re-resolving the host names of proxies, created on demand. */
+    private final AtomicReference<ExecutorService> resolverExecutor = new AtomicReference<ExecutorService>();
+    /** Threads completing the futures of exchanges, shut down along with the selector thread. */
+    private volatile ExecutorService completionExecutor;
+
+    private volatile Selector selector;
+    private volatile boolean running = false;
+    private volatile boolean terminated = true;
+
+    public NioMCMPHandler(MCMPHandlerConfiguration config, ResetRequestSource source, MCMPRequestFactory requestFactory,
+            MCMPResponseParser responseParser) {
+        if (config.getSocketFactory() instanceof SSLSocketFactory) {
+            throw ModClusterMessages.MESSAGES.sslNotSupported(this.getClass().getSimpleName());
+        }
+        this.resetRequestSource = source;
+        this.config = config;
+        this.requestFactory = requestFactory;
+        this.responseParser = responseParser;
+    }
+
+    // ------------------------------------------------------------ MCMPHandler
+
+    @Override
+    public synchronized void init(Collection<ProxyConfiguration> proxies, MCMPConnectionListener connectionListener) {
+        this.connectionListener = connectionListener;
+
+        try {
+            this.selector = Selector.open();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        this.completionExecutor = createCompletionExecutor();
+        this.running = true;
+        this.terminated = false;
+
+        Thread thread = new Thread(new SelectorLoop(this.selector, this.completionExecutor), "MCMP selector");
+        thread.setDaemon(true);
+        thread.start();
+
+        if (proxies != null) {
+            for (ProxyConfiguration proxy : proxies) {
+                this.add(proxy.getRemoteAddress(), proxy.getLocalAddress());
+            }
+
+            Futures.allOf(this.status(false).values()).join();
+        }
+
+        this.init = true;
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        this.init = false;
+        this.running = false;
+
+        DefaultMCMPHandler.shutdownExecutor(this.resolverExecutor);
+
+        Selector selector = this.selector;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    @Override
+    @Deprecated
+    public void addProxy(InetSocketAddress socketAddress) {
+        this.add(socketAddress, null);
+    }
+
+    @Override
+    public void addProxy(ProxyConfiguration proxyConfiguration) {
+        this.add(proxyConfiguration.getRemoteAddress(), proxyConfiguration.getLocalAddress());
+    }
+
+    @Override
+    @Deprecated
+    public void addProxy(InetSocketAddress socketAddress, boolean established) {
+        this.add(socketAddress, null).setEstablished(established);
+    }
+
+    @Override
+    public void addProxy(ProxyConfiguration proxyConfiguration, boolean established) {
+        this.add(proxyConfiguration.getRemoteAddress(), proxyConfiguration.getLocalAddress()).setEstablished(established);
+    }
+
+    private Proxy add(InetSocketAddress socketAddress, InetSocketAddress localAddress) {
+        Proxy proxy = new Proxy(socketAddress, localAddress);
+
+        this.addRemoveProxiesLock.lock();
+
+        try {
+            for (Proxy candidate : this.proxies) {
+                if (candidate.equals(proxy))
+                    return candidate;
+            }
+            for (Proxy candidate : this.addProxies) {
+                if (candidate.equals(proxy))
+                    return candidate;
+            }
+            for (Proxy candidate : this.removeProxies) {
+                if (candidate.equals(proxy))
+                    return candidate;
+            }
+
+            proxy.setState(Proxy.State.ERROR);
+
+            this.addProxies.add(proxy);
+        } finally {
+            this.addRemoveProxiesLock.unlock();
+        }
+
+        return proxy;
+    }
+
+    @Override
+    public void removeProxy(InetSocketAddress socketAddress) {
+        Proxy proxy = new Proxy(socketAddress, null);
+
+        this.addRemoveProxiesLock.lock();
+
+        try {
+            this.removeProxies.add(proxy);
+        } finally {
+            this.addRemoveProxiesLock.unlock();
+        }
+    }
+
+    @Override
+    public Set<MCMPServerState> getProxyStates() {
+        if (this.proxies.isEmpty())
+            return Collections.emptySet();
+
+        return new LinkedHashSet<MCMPServerState>(this.proxies);
+    }
+
+    @Override
+    public boolean isProxyHealthOK() {
+        for (Proxy proxy : this.proxies) {
+            if (proxy.getState() != MCMPServerState.State.OK) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void markProxiesInError() {
+        for (Proxy proxy : this.proxies) {
+            if (proxy.getState() == MCMPServerState.State.OK) {
+                // Enforce a full reset
+                proxy.fingerprint = null;
+                proxy.setState(Proxy.State.ERROR);
+            }
+        }
+    }
+
+    @Override
+    public void reset() {
+        for (Proxy proxy : this.proxies) {
+            if (proxy.getState() == Proxy.State.DOWN) {
+                proxy.fingerprint = null;
+                proxy.setState(Proxy.State.ERROR);
+                proxy.breaker.reset();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void status() {
+        if (this.init) {
+            this.processPendingDiscoveryEvents();
+
+            int timeout = this.config.getStatusTimeout();
+
+            if (timeout > 0) {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+                Map<Proxy, CompletableFuture<Void>> futures = this.status(true);
+
+                Futures.await(MCMPRequestType.INFO, futures, deadline, timeout);
+                markIncompleteInError(futures);
+            } else {
+                Futures.allOf(this.status(true).values()).join();
+            }
+        }
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> statusAsync() {
+        if (!this.init) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        this.processPendingDiscoveryEvents();
+
+        return Futures.allOf(this.status(true).values());
+    }
+
+    /**
+     * Send a periodic status request. INFO requests are sent to all proxies in error at once.
+     *
+     * @param sendResetRequests if enabled, when in error state, the listener will attempt to refresh the configuration on the
+     *        front end server
+     * @return the future completion of the reset, per proxy in error
+     */
+    private Map<Proxy, CompletableFuture<Void>> status(final boolean sendResetRequests) {
+        Map<Proxy, CompletableFuture<Void>> futures = new LinkedHashMap<Proxy, CompletableFuture<Void>>();
+        EncodedMCMPRequest infoRequest = null;
+
+        for (final Proxy proxy : this.proxies) {
+            // Attempt to reset any proxies in error, unless backing off from previous attempts
+            if ((proxy.getState() == Proxy.State.ERROR) && proxy.breaker.allowProbe()) {
+                if (infoRequest == null) {
+                    infoRequest = this.encode(this.requestFactory.createInfoRequest());
+                }
+
+                futures.put(proxy, this.send(proxy, infoRequest, true).whenComplete(new BiConsumer<String, Throwable>() {
+                    @Override
+                    public void accept(String response, Throwable exception) {
+                        if (proxy.getState() == Proxy.State.OK) {
+                            proxy.breaker.success();
+                        } else {
+                            proxy.breaker.failure();
+                        }
+                    }
+                }).thenCompose(new Function<String, CompletionStage<Void>>() {
+                    @Override
+                    public CompletionStage<Void> apply(String response) {
+                        return NioMCMPHandler.this.reset(proxy, response, sendResetRequests);
+                    }
+                }));
+            }
+        }
+
+        return futures;
+    }
+
+    /**
+     * Refreshes the configuration of the specified proxy, if it responded to the INFO request.
+     */
+    private CompletableFuture<Void> reset(final Proxy proxy, String response, boolean sendResetRequests) {
+        List<CompletableFuture<String>> futures = new ArrayList<CompletableFuture<String>>();
+
+        if (proxy.getState() == Proxy.State.OK) {
+            // Only notify connection listener once
+            if (this.established.compareAndSet(false, true)) {
+                this.connectionListener.connectionEstablished(proxy.getLocalAddress());
+            }
+
+            if (sendResetRequests) {
+                Map<String, Set<ResetRequestSource.VirtualHost>> parsedResponse = this.responseParser.parseInfoResponse(response);
+
+                final ResetFingerprint fingerprint = ResetFingerprint.create(parsedResponse, this.resetRequestSource.getTopologyFingerprint());
+
+                if ((fingerprint != null) && fingerprint.equals(proxy.fingerprint)) {
+                    log.tracef("%s is still in sync, skipping reset", proxy);
+                    return CompletableFuture.completedFuture(null);
+                }
+
+                proxy.fingerprint = null;
+
+                List<MCMPRequest> requests = this.resetRequestSource.getResetRequests(parsedResponse);
+
+                log.trace(requests);
+
+                for (MCMPRequest request : requests) {
+                    futures.add(this.send(proxy, this.encode(request), false));
+                }
+
+                if (ResetFingerprint.isSynchronized(parsedResponse, requests)) {
+                    return Futures.allOf(futures).thenRun(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (proxy.getState() == Proxy.State.OK) {
+                                proxy.fingerprint = fingerprint;
+                            }
+                        }
+                    });
+                }
+            }
+        }
+
+        return Futures.allOf(futures);
+    }
+
+    @Override
+    public Map<MCMPServerState, String> sendRequest(MCMPRequest request) {
+        int timeout = this.config.getStatusTimeout();
+
+        if ((request.getRequestType() != MCMPRequestType.STATUS) || (timeout <= 0)) {
+            return this.sendRequestAsync(request).join();
+        }
+
+        // Bounded by its own time budget, regardless of the time spent by the preceding status check on other proxies
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        Map<Proxy, CompletableFuture<String>> futures = this.submit(request);
+        Map<MCMPServerState, String> results = Futures.await(request.getRequestType(), futures, deadline, timeout);
+
+        markIncompleteInError(futures);
+
+        return results;
+    }
+
+    @Override
+    public Map<MCMPServerState, List<String>> sendRequests(List<MCMPRequest> requests) {
+        return this.sendRequestsAsync(requests).join();
+    }
+
+    @Override
+    public CompletableFuture<Map<MCMPServerState, String>> sendRequestAsync(MCMPRequest request) {
+        return Futures.collect(this.submit(request));
+    }
+
+    @Override
+    public CompletableFuture<Map<MCMPServerState, List<String>>> sendRequestsAsync(List<MCMPRequest> requests) {
+        Map<Proxy, CompletableFuture<List<String>>> futures = new LinkedHashMap<Proxy, CompletableFuture<List<String>>>();
+        List<EncodedMCMPRequest> encodedRequests = new ArrayList<EncodedMCMPRequest>(requests.size());
+
+        for (MCMPRequest request : requests) {
+            encodedRequests.add(this.encode(request));
+        }
+
+        for (Proxy proxy : this.proxies) {
+            List<CompletableFuture<String>> list = new ArrayList<CompletableFuture<String>>(requests.size());
+
+            for (EncodedMCMPRequest request : encodedRequests) {
+                list.add(this.send(proxy, request, false));
+            }
+
+            futures.put(proxy, Futures.all(list));
+        }
+
+        return Futures.collect(futures);
+    }
+
+    // ---------------------------------------------------------------- Private
+
+    /**
+     * Sends the specified request to each proxy.
+     *
+     * @return the future response, per proxy
+     */
+    private Map<Proxy, CompletableFuture<String>> submit(MCMPRequest request) {
+        Map<Proxy, CompletableFuture<String>> futures = new LinkedHashMap<Proxy, CompletableFuture<String>>();
+        EncodedMCMPRequest encodedRequest = this.encode(request);
+
+        for (Proxy proxy : this.proxies) {
+            futures.put(proxy, this.send(proxy, encodedRequest, false));
+        }
+
+        return futures;
+    }
+
+    /**
+     * Marks the proxies whose future did not complete in time in error, so that no further requests queue up behind them until
+     * communication is re-established.
+     */
+    private static void markIncompleteInError(Map<Proxy, ? extends CompletableFuture<?>> futures) {
+        for (Map.Entry<Proxy, ? extends CompletableFuture<?>> entry : futures.entrySet()) {
+            if (!entry.getValue().isDone()) {
+                entry.getKey().setState(Proxy.State.ERROR);
+            }
+        }
+    }
+
+    private void processPendingDiscoveryEvents() {
+        this.addRemoveProxiesLock.lock();
+
+        try {
+            // Check to add or remove proxies, and rebuild a new list if needed
+            if (!this.addProxies.isEmpty() || !this.removeProxies.isEmpty()) {
+                final List<Proxy> removed = new ArrayList<Proxy>(this.removeProxies.size());
+
+                for (Proxy proxy : this.proxies) {
+                    if (this.removeProxies.contains(proxy)) {
+                        removed.add(proxy);
+                    }
+                }
+
+                this.proxies.addAll(this.addProxies);
+                this.proxies.removeAll(this.removeProxies);
+
+                this.addProxies.clear();
+                this.removeProxies.clear();
+
+                // Only close the connections of removed proxies; the connections to the remaining proxies stay open
+                for (final Proxy proxy : removed) {
+                    this.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            proxy.close();
+                        }
+                    });
+                }
+            }
+        } finally {
+            this.addRemoveProxiesLock.unlock();
+        }
+    }
+
+    /**
+     * Queues the specified request for exchange with the specified proxy.
+     *
+     * @param freshConnection indicates whether an idle connection to the proxy should be closed before the exchange
+     * @return a future response, which completes with <code>null</code> if the request could not be exchanged
+     */
+    private CompletableFuture<String> send(final Proxy proxy, EncodedMCMPRequest request, boolean freshConnection) {
+        final Exchange exchange = new Exchange(request, freshConnection, this.completionExecutor);
+
+        this.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (NioMCMPHandler.this.running) {
+                    proxy.enqueue(exchange);
+                } else {
+                    exchange.complete(null);
+                }
+            }
+        });
+
+        return exchange.future;
+    }
+
+    /**
+     * Executes the specified task on the selector thread, or on the calling thread if the selector thread has already terminated.
+     */
+    private void execute(Runnable task) {
+        this.tasks.add(task);
+
+        Selector selector = this.selector;
+        if (selector != null) {
+            selector.wakeup();
+        }
+
+        if (this.terminated) {
+            // Selector thread is gone, tasks no longer touch any connection
+            this.runTasks();
+        }
+    }
+
+    /**
+     * Creates the threads on which the futures of exchanges are completed. Threads are added on demand, such that a dependent
+     * stage waiting for another exchange never prevents the completion of that exchange.
+     */
+    private static ExecutorService createCompletionExecutor() {
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, "MCMP completion");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    void runTasks() {
+        Runnable task = this.tasks.poll();
+        while (task != null) {
+            task.run();
+            task = this.tasks.poll();
+        }
+    }
+
+    private EncodedMCMPRequest encode(MCMPRequest request) {
+        return EncodedMCMPRequest.encode(request, this.config.getProxyURL());
+    }
+
+    /**
+     * Drives all exchanges until the handler is shut down.
+     */
+    private class SelectorLoop implements Runnable {
+        private final Selector selector;
+        private final ExecutorService completionExecutor;
+
+        SelectorLoop(Selector selector, ExecutorService completionExecutor) {
+            this.selector = selector;
+            this.completionExecutor = completionExecutor;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (NioMCMPHandler.this.running) {
+                    try {
+                        this.select();
+                    } catch (RuntimeException e) {
+                        // Never let a single exchange stop the selector thread, otherwise all subsequent requests are lost
+                        log.error(e.getLocalizedMessage(), e);
+                    }
+                }
+            } catch (IOException e) {
+                ModClusterLogger.LOGGER.catchingDebug(e);
+            } finally {
+                NioMCMPHandler.this.running = false;
+
+                for (Proxy proxy : NioMCMPHandler.this.proxies) {
+                    proxy.close();
+                }
+                for (Proxy proxy : new ArrayList<Proxy>(NioMCMPHandler.this.busy)) {
+                    proxy.close();
+                }
+
+                NioMCMPHandler.this.terminated = true;
+                NioMCMPHandler.this.runTasks();
+
+                // Exchanges abandoned above are completed by now
+                this.completionExecutor.shutdown();
+
+                try {
+                    this.selector.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+
+        private void select() throws IOException {
+            long timeout = this.expire();
+
+            this.selector.select(timeout);
+
+            NioMCMPHandler.this.runTasks();
+
+            Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+
+                Proxy proxy = (Proxy) key.attachment();
+                if (key.isValid()) {
+                    proxy.ready(key);
+                }
+            }
+        }
+
+        /**
+         * Fails exchanges whose socket timeout has elapsed.
+         *
+         * @return number of milliseconds until the next exchange would time out, or 0 if there are none.
+         */
+        private long expire() {
+            long now = System.nanoTime();
+            long next = Long.MAX_VALUE;
+
+            for (Proxy proxy : new ArrayList<Proxy>(NioMCMPHandler.this.busy)) {
+                if (proxy.exchange == null) {
+                    // Not actually busy
+                    NioMCMPHandler.this.busy.remove(proxy);
+                    continue;
+                }
+
+                long remaining = proxy.deadline - now;
+
+                if (remaining <= 0) {
+                    proxy.failure(new SocketTimeoutException());
+                } else {
+                    next = Math.min(next, remaining);
+                }
+            }
+
+            return (next == Long.MAX_VALUE) ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toMillis(next));
+        }
+    }
+
+    /**
+     * Pending request to a proxy.
+     */
+    private static class Exchange {
+        final EncodedMCMPRequest encodedRequest;
+        final MCMPRequest request;
+        final boolean freshConnection;
+        final CompletableFuture<String> future = new CompletableFuture<String>();
+        private final Executor executor;
+
+        ByteBuffer[] output;
+        MCMPResponseDecoder response;
+        boolean retried = false;
+        /** Value of {@link System#nanoTime()} when this exchange started. */
+        long start;
+
+        Exchange(EncodedMCMPRequest encodedRequest, boolean freshConnection, Executor executor) {
+            this.encodedRequest = encodedRequest;
+            this.request = encodedRequest.getRequest();
+            this.freshConnection = freshConnection;
+            this.executor = executor;
+        }
+
+        /**
+         * Completes the future of this exchange, off the calling thread, which is usually the selector thread.
+         */
+        void complete(final String response) {
+            try {
+                this.executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        Exchange.this.future.complete(response);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Selector thread already terminated, so this is not it
+                this.future.complete(response);
+            }
+        }
+    }
+
+    /**
+     * This class represents a front-end httpd server. Apart from its state, all fields are accessed by the selector thread only.
+     */
+    @ThreadSafe
+    private class Proxy implements MCMPServerState, Serializable {
+        /** The serialVersionUID */
+        private static final long serialVersionUID = -3442826146407574734L;
+
+        /** Configured address of this proxy, which identifies it. */
+        private final InetSocketAddress socketAddress;
+        private final InetSocketAddress sourceAddress;
+
+        private volatile State state = State.OK;
+        private volatile boolean established = false;
+
+        private transient volatile boolean ioExceptionLogged = false;
+        private transient volatile InetAddress localAddress = null;
+        private transient volatile byte[] host = null;
+        /** Delays the attempts to re-establish communication while this proxy is in error. */
+        private final transient CircuitBreaker breaker;
+        private final transient ProxyMetrics metrics = new ProxyMetrics();
+        /** Fingerprint of the last reset that found this proxy in sync, if any. */
+        transient volatile ResetFingerprint fingerprint = null;
+
+        private final transient Deque<Exchange> exchanges = new ArrayDeque<Exchange>();
+        private transient Exchange exchange = null;
+        private transient SocketChannel channel = null;
+        private transient SelectionKey key = null;
+        private transient long deadline = 0;
+        /** Whether a connection to this proxy was opened before. */
+        private transient boolean connected = false;
+        /** Whether the last attempt to open a connection to this proxy failed. */
+        private transient boolean connectFailed = false;
+        /** Address to which the connection to this proxy is opened, i.e. one of its resolved addresses if configured by host name. */
+        private transient InetSocketAddress connectAddress;
+        /** Decoder of the response to the exchange in progress. */
+        private final transient MCMPResponseDecoder response = new MCMPResponseDecoder();
+        /** Re-resolves the host name of this proxy in the background, if configured by host name. */
+        private final transient ProxyAddressResolver resolver;
+
+        Proxy(InetSocketAddress socketAddress, InetSocketAddress sourceAddress) {
+            this.socketAddress = socketAddress;
+            this.connectAddress = socketAddress;
+            this.resolver = ProxyAddressResolver.isHostName(socketAddress) ? new ProxyAddressResolver(socketAddress, NioMCMPHandler.this.resolverExecutor) : null;
+            this.sourceAddress = sourceAddress;
+            this.breaker = new CircuitBreaker(NioMCMPHandler.this.config.getProxyRetryInitialDelay(), NioMCMPHandler.this.config.getProxyRetryMaxDelay());
+        }
+
+        // -------------------------------------------- MCMPServerState
+
+        @Override
+        public State getState() {
+            return this.state;
+        }
+
+        @Override
+        public int getConsecutiveFailures() {
+            return this.breaker.getConsecutiveFailures();
+        }
+
+        @Override
+        public long getTotalFailures() {
+            return this.breaker.getTotalFailures();
+        }
+
+        @Override
+        public long getNextRetryTime() {
+            return this.breaker.getNextRetryTime();
+        }
+
+        @Override
+        public MCMPServerMetrics getMetrics() {
+            return this.metrics;
+        }
+
+        // ----------------------------------------------------------- MCMPServer
+
+        @Override
+        public InetSocketAddress getSocketAddress() {
+            return this.socketAddress;
+        }
+
+        @Override
+        public boolean isEstablished() {
+            return this.established;
+        }
+
+        // ------------------------------------------------------------ Overrides
+
+        @Override
+        public String toString() {
+            return this.socketAddress.toString();
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if ((object == null) || !(object instanceof MCMPServer))
+                return false;
+
+            MCMPServer proxy = (MCMPServer) object;
+
+            return this.socketAddress.equals(proxy.getSocketAddress());
+        }
+
+        @Override
+        public int hashCode() {
+            return this.socketAddress.hashCode();
+        }
+
+        // -------------------------------------------------------------- Private
+
+        void setState(State state) {
+            this.state = state;
+        }
+
+        void setEstablished(boolean established) {
+            this.established = established;
+        }
+
+        InetAddress getLocalAddress() {
+            return this.localAddress;
+        }
+
+        /**
+         * Returns the encoded value of the Host header for requests to this proxy.
+         */
+        byte[] getHost() {
+            byte[] host = this.host;
+            if (host == null) {
+                host = EncodedMCMPRequest.encodeHost(this.socketAddress);
+                this.host = host;
+            }
+            return host;
+        }
+
+        void enqueue(Exchange exchange) {
+            this.exchanges.add(exchange);
+
+            if (this.exchange == null) {
+                this.next();
+            }
+        }
+
+        /**
+         * Starts the next queued exchange, if any.
+         */
+        private void next() {
+            this.exchange = this.exchanges.poll();
+
+            while (this.exchange != null) {
+                Exchange exchange = this.exchange;
+
+                // Never proceed with requests on a proxy in ERROR state unless the request type is INFO to return proxy back to OK state.
+                if ((this.state == State.OK) || (exchange.request.getRequestType() == MCMPRequestType.INFO)) {
+                    log.tracef("Sending to %s: %s", this, exchange.request);
+
+                    if (exchange.freshConnection) {
+                        this.closeChannel();
+                    }
+                    exchange.start = System.nanoTime();
+                    this.start();
+                    return;
+                }
+
+                exchange.complete(null);
+                this.exchange = this.exchanges.poll();
+            }
+
+            this.busy(false);
+        }
+
+        /**
+         * Starts or restarts the current exchange, connecting first if necessary.
+         */
+        private void start() {
+            this.busy(true);
+
+            Exchange exchange = this.exchange;
+            exchange.output = exchange.encodedRequest.toBuffers(this.getHost());
+            this.response.reset();
+            exchange.response = this.response;
+
+            try {
+                if (this.channel == null) {
+                    this.connect();
+                } else {
+                    this.key.interestOps(SelectionKey.OP_WRITE);
+                    this.touch();
+                }
+            } catch (IOException e) {
+                this.failure(e);
+            }
+        }
+
+        private void connect() throws IOException {
+            if (this.resolver != null) {
+                // Connect to a pre-resolved address, trying the next one if connecting to the current one failed last time
+                InetSocketAddress address = this.connectFailed ? this.resolver.next(this.connectAddress) : this.resolver.current(this.connectAddress);
+
+                if (address != null) {
+                    this.connectAddress = address;
+                }
+            }
+
+            this.connectFailed = true;
+
+            SocketChannel channel = SocketChannel.open();
+
+            this.channel = channel;
+
+            channel.configureBlocking(false);
+
+            if (this.sourceAddress != null) {
+                // If using a specific port enable SO_REUSEADDR to avoid "Address already in use" errors
+                if (this.sourceAddress.getPort() != 0) {
+                    channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+                }
+                // If bind address is specified for the proxy, use it
+                channel.bind(this.sourceAddress);
+            }
+
+            this.key = channel.register(NioMCMPHandler.this.selector, 0, this);
+            this.touch();
+
+            try {
+                if (channel.connect(this.connectAddress)) {
+                    this.connected();
+                } else {
+                    this.key.interestOps(SelectionKey.OP_CONNECT);
+                }
+            } catch (UnresolvedAddressException | UnsupportedAddressTypeException e) {
+                // e.g. an IPv6 address while using the IPv4 stack, which must fail the exchange rather than leave it pending
+                throw new IOException(this.connectAddress.toString(), e);
+            }
+        }
+
+        private void connected() throws IOException {
+            this.metrics.connected(this.connected);
+            this.connected = true;
+            this.connectFailed = false;
+            this.localAddress = this.channel.socket().getLocalAddress();
+            this.key.interestOps(SelectionKey.OP_WRITE);
+            this.touch();
+        }
+
+        /**
+         * Advances the current exchange when its connection is ready.
+         */
+        void ready(SelectionKey key) {
+            if (this.exchange == null) {
+                // Idle connection closed by the proxy
+                this.closeChannel();
+                return;
+            }
+
+            try {
+                if (key.isConnectable()) {
+                    if (this.channel.finishConnect()) {
+                        this.connected();
+                    }
+                } else if (key.isWritable()) {
+                    this.write();
+                } else if (key.isReadable()) {
+                    this.read();
+                }
+            } catch (IOException e) {
+                this.failure(e);
+            } catch (RuntimeException e) {
+                ModClusterLogger.LOGGER.parseHeaderFailed(e, this.exchange.request.getRequestType(), this.socketAddress);
+                this.complete(this.exchange.response);
+            }
+        }
+
+        private void write() throws IOException {
+            ByteBuffer[] output = this.exchange.output;
+
+            this.metrics.sent(this.channel.write(output));
+            this.touch();
+
+            if (!output[output.length - 1].hasRemaining()) {
+                this.key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        private void read() throws IOException {
+            ByteBuffer buffer = NioMCMPHandler.this.buffer;
+            MCMPResponseDecoder response = this.exchange.response;
+
+            buffer.clear();
+            int bytes = this.channel.read(buffer);
+            this.touch();
+
+            if (bytes < 0) {
+                if (response.end()) {
+                    this.complete(response);
+                } else {
+                    this.failure(new IOException("Connection closed"));
+                }
+                return;
+            }
+
+            this.metrics.received(bytes);
+            buffer.flip();
+
+            if (response.decode(buffer)) {
+                this.complete(response);
+            }
+        }
+
+        private void touch() {
+            this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(NioMCMPHandler.this.config.getSocketTimeout());
+        }
+
+        private void busy(boolean busy) {
+            if (busy) {
+                NioMCMPHandler.this.busy.add(this);
+            } else {
+                NioMCMPHandler.this.busy.remove(this);
+            }
+        }
+
+        /**
+         * Completes the current exchange with the specified response, updating the state of this proxy accordingly.
+         */
+        private void complete(MCMPResponseDecoder response) {
+            Exchange exchange = this.exchange;
+            MCMPRequestType requestType = exchange.request.getRequestType();
+
+            this.metrics.requestCompleted(requestType, exchange.start);
+
+            // Mark as error if the front end server did not return 200; the configuration will
+            // be refreshed during the next periodic event
+            if (response.getStatus() == 200) {
+                this.state = State.OK;
+
+                if (requestType.getEstablishesServer()) {
+                    // We know the request succeeded, so if appropriate
+                    // mark the proxy as established
+                    this.established = true;
+                }
+
+                this.ioExceptionLogged = false;
+            } else {
+                if ("SYNTAX".equals(response.getErrorType())) {
+                    // Syntax error means the protocol is incorrect, which cannot be automatically fixed
+                    this.state = State.DOWN;
+                    ModClusterLogger.LOGGER.unrecoverableErrorResponse(response.getErrorType(), requestType, this.socketAddress, response.getMessage());
+                } else {
+                    this.state = State.ERROR;
+                    ModClusterLogger.LOGGER.recoverableErrorResponse(response.getErrorType(), requestType, this.socketAddress, response.getMessage());
+                }
+            }
+
+            if (response.isClose() || (this.state != State.OK) || !response.isStarted()) {
+                this.closeChannel();
+            } else {
+                this.key.interestOps(0);
+            }
+
+            exchange.complete(response.isStarted() ? response.getBody() : null);
+
+            this.next();
+        }
+
+        /**
+         * Fails the current exchange, retrying it once on a fresh connection if nothing was received yet.
+         */
+        void failure(IOException e) {
+            Exchange exchange = this.exchange;
+
+            this.closeChannel();
+
+            if (exchange == null) {
+                // Idle connection, so there is nothing to fail
+                this.busy(false);
+                return;
+            }
+
+            if (!exchange.retried && !exchange.response.isStarted()) {
+                // Retry failed read/write with fresh connection
+                exchange.retried = true;
+                this.metrics.retried();
+                this.start();
+                return;
+            }
+
+            this.metrics.requestCompleted(exchange.request.getRequestType(), exchange.start);
+
+            // Most likely this is a connection error with the proxy
+            this.state = State.ERROR;
+
+            // Log it only if we haven't done so already. Don't spam the log
+            if (!this.ioExceptionLogged) {
+                ModClusterLogger.LOGGER.sendFailed(exchange.request.getRequestType(), this.socketAddress, e.getLocalizedMessage());
+                ModClusterLogger.LOGGER.catchingDebug(e);
+                this.ioExceptionLogged = true;
+            }
+
+            exchange.complete(null);
+
+            this.next();
+        }
+
+        /**
+         * Closes the connection to this proxy and abandons all of its exchanges.
+         */
+        void close() {
+            this.closeChannel();
+
+            if (this.exchange != null) {
+                this.exchange.complete(null);
+                this.exchange = null;
+            }
+
+            Exchange exchange = this.exchanges.poll();
+            while (exchange != null) {
+                exchange.complete(null);
+                exchange = this.exchanges.poll();
+            }
+
+            this.busy(false);
+        }
+
+        private void closeChannel() {
+            if (this.key != null) {
+                this.key.cancel();
+                this.key = null;
+            }
+            if (this.channel != null) {
+                try {
+                    this.channel.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+                this.channel = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.mcmp.impl;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.security.Security;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Resolves the host name of a proxy in the background, such that connections are always opened to pre-resolved addresses and a
+ * slow or broken resolver never delays the sending thread. Resolved addresses are refreshed once they are older than the DNS
+ * cache TTL of the JVM, i.e. the <code>networkaddress.cache.ttl</code> security property, which is the closest approximation
+ * of the TTL of the DNS records available to Java; or sooner, if none of them could be connected.
+ */
+@ThreadSafe
+class ProxyAddressResolver {
+    /** TTL of successful lookups used by the JVM unless configured otherwise, in seconds. */
+    private static final int DEFAULT_TTL = 30;
+    /** TTL of failed lookups used by the JVM unless configured otherwise, in seconds. */
+    private static final int DEFAULT_NEGATIVE_TTL = 10;
+    private static final InetAddress[] NO_ADDRESSES = new InetAddress[0];
+
+    private final String hostName;
+    private final AtomicReference<ExecutorService> executor;
+    /** TTL of resolved addresses in nanoseconds, or negative if they never expire. */
+    private final long ttl;
+    private final long negativeTtl;
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+    private volatile InetAddress[] addresses;
+    /** Value of {@link System#nanoTime()} at which the resolved addresses expire. */
+    private volatile long expiration;
+
+    /**
+     * Indicates whether the specified address was configured by host name, as opposed to an IP address. Note that
+     * {@link InetAddress#toString()} avoids a reverse name lookup. See MODCLUSTER-728.
+     */
+    static boolean isHostName(InetSocketAddress socketAddress) {
+        return socketAddress.isUnresolved() || (socketAddress.getAddress().toString().indexOf('/') > 0);
+    }
+
+    /**
+     * @param socketAddress address of the proxy, configured by host name
+     * @param executor      worker on which lookups are performed, created on demand
+     */
+    ProxyAddressResolver(InetSocketAddress socketAddress, AtomicReference<ExecutorService> executor) {
+        this(socketAddress, executor, getTTL("networkaddress.cache.ttl", DEFAULT_TTL), getTTL("networkaddress.cache.negative.ttl", DEFAULT_NEGATIVE_TTL));
+    }
+
+    /**
+     * @param ttl         seconds for which resolved addresses are used before they are refreshed, or negative if never
+     * @param negativeTtl seconds after which a failed lookup is retried
+     */
+    ProxyAddressResolver(InetSocketAddress socketAddress, AtomicReference<ExecutorService> executor, int ttl, int negativeTtl) {
+        this.hostName = socketAddress.getHostString();
+        this.executor = executor;
+        this.ttl = (ttl < 0) ? -1 : TimeUnit.SECONDS.toNanos(ttl);
+        this.negativeTtl = TimeUnit.SECONDS.toNanos(Math.max(negativeTtl, 0));
+        // Seed with the address resolved upon configuration, if any
+        this.addresses = socketAddress.isUnresolved() ? NO_ADDRESSES : new InetAddress[] { socketAddress.getAddress() };
+        this.expiration = System.nanoTime() + (socketAddress.isUnresolved() ? 0 : Math.max(this.ttl, 0));
+    }
+
+    /**
+     * Returns the most recently resolved addresses, refreshing them in the background if they expired. Never blocks.
+     *
+     * @return the resolved addresses, possibly none if the host name was never resolved successfully
+     */
+    InetAddress[] getAddresses() {
+        InetAddress[] addresses = this.addresses;
+
+        if (((this.ttl >= 0) || (addresses.length == 0)) && (System.nanoTime() - this.expiration >= 0)) {
+            this.refresh();
+        }
+
+        return addresses;
+    }
+
+    /**
+     * Returns the specified address if it is still among the resolved addresses, or otherwise the first resolved address.
+     * Never blocks.
+     *
+     * @return an address, or null if the host name was never resolved successfully
+     */
+    InetSocketAddress current(InetSocketAddress current) {
+        InetAddress[] addresses = this.getAddresses();
+
+        if (addresses.length == 0) {
+            return null;
+        }
+
+        int index = Arrays.asList(addresses).indexOf(current.getAddress());
+
+        return (index >= 0) ? current : new InetSocketAddress(addresses[0], current.getPort());
+    }
+
+    /**
+     * Returns the address that follows the specified address among the resolved addresses, such that successive attempts to
+     * connect try every address in turn. Once every address was tried, they are refreshed in the background. Never blocks.
+     *
+     * @return an address, or null if the host name was never resolved successfully
+     */
+    InetSocketAddress next(InetSocketAddress current) {
+        InetAddress[] addresses = this.getAddresses();
+
+        if (addresses.length == 0) {
+            return null;
+        }
+
+        int index = Arrays.asList(addresses).indexOf(current.getAddress());
+
+        if (index == addresses.length - 1) {
+            // None of the addresses could be connected, so they might have changed
+            this.invalidate();
+        }
+
+        return new InetSocketAddress(addresses[(index + 1) % addresses.length], current.getPort());
+    }
+
+    /**
+     * Refreshes the resolved addresses in the background, regardless of their TTL, e.g. because none of them could be connected.
+     */
+    void invalidate() {
+        this.expiration = System.nanoTime();
+        this.refresh();
+    }
+
+    private void refresh() {
+        // Only a single lookup in flight
+        if (this.refreshing.compareAndSet(false, true)) {
+            try {
+                DefaultMCMPHandler.getExecutor(this.executor, "MCMP resolver").execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        ProxyAddressResolver.this.resolve();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Handler was shut down
+                this.refreshing.set(false);
+            }
+        }
+    }
+
+    /**
+     * Looks up the addresses of the host name, swapping them in if they changed.
+     */
+    void resolve() {
+        try {
+            InetAddress[] addresses = InetAddress.getAllByName(this.hostName);
+
+            if (!new HashSet<InetAddress>(Arrays.asList(addresses)).equals(new HashSet<InetAddress>(Arrays.asList(this.addresses)))) {
+                DefaultMCMPHandler.log.debugf("Resolved %s to %s", this.hostName, Arrays.toString(addresses));
+            }
+
+            this.addresses = addresses;
+            this.expiration = System.nanoTime() + Math.max(this.ttl, 0);
+        } catch (UnknownHostException e) {
+            // Keep using the previously resolved addresses, if any
+            DefaultMCMPHandler.log.debugf(e, "Failed to resolve %s", this.hostName);
+            this.expiration = System.nanoTime() + this.negativeTtl;
+        } finally {
+            this.refreshing.set(false);
+        }
+    }
+
+    private static int getTTL(String property, int defaultTTL) {
+        String value = Security.getProperty(property);
+
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                // Fall back to the default, like the JVM
+            }
+        }
+
+        return defaultTTL;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.mcmp.impl;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.jcip.annotations.ThreadSafe;
+import org.jboss.modcluster.mcmp.MCMPRequestType;
+import org.jboss.modcluster.mcmp.MCMPServerMetrics;
+
+/**
+ * Lock-free {@link MCMPServerMetrics} of a proxy, recorded by the handler communicating with it.
+ */
+@ThreadSafe
+class ProxyMetrics implements MCMPServerMetrics {
+    /** Latency per request type; populated on construction and never modified afterwards. */
+    private final Map<MCMPRequestType, LatencyHistogram> latencies = new EnumMap<MCMPRequestType, LatencyHistogram>(MCMPRequestType.class);
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+
+    ProxyMetrics() {
+        for (MCMPRequestType requestType : MCMPRequestType.values()) {
+            this.latencies.put(requestType, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Records a request of the specified type, which was sent at the specified value of {@link System#nanoTime()}.
+     */
+    void requestCompleted(MCMPRequestType requestType, long start) {
+        this.latencies.get(requestType).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+    }
+
+    void connected(boolean reconnect) {
+        this.connects.increment();
+        if (reconnect) {
+            this.reconnects.increment();
+        }
+    }
+
+    void retried() {
+        this.retries.increment();
+    }
+
+    void sent(long bytes) {
+        this.bytesSent.add(bytes);
+    }
+
+    void received(long bytes) {
+        this.bytesReceived.add(bytes);
+    }
+
+    @Override
+    public long getRequestCount(MCMPRequestType requestType) {
+        return this.latencies.get(requestType).getCount();
+    }
+
+    @Override
+    public long getRequestLatency(MCMPRequestType requestType, double percentile) {
+        return this.latencies.get(requestType).getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public long getConnectCount() {
+        return this.connects.sum();
+    }
+
+    @Override
+    public long getReconnectCount() {
+        return this.reconnects.sum();
+    }
+
+    @Override
+    public long getRetryCount() {
+        return this.retries.sum();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return this.bytesSent.sum();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return this.bytesReceived.sum();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.mcmp.impl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.jcip.annotations.Immutable;
+import org.jboss.modcluster.mcmp.MCMPRequest;
+import org.jboss.modcluster.mcmp.MCMPRequestType;
+import org.jboss.modcluster.mcmp.ResetRequestSource;
+
+/**
+ * Fingerprint of the parsed INFO response of a proxy along with the local topology. A proxy whose configuration was found to
+ * be in sync with the local topology need not be reset again while both fingerprints remain equal, e.g. when it merely
+ * flapped.
+ */
+@Immutable
+class ResetFingerprint {
+    private final Map<String, Set<List<Object>>> response;
+    private final Object topology;
+
+    /**
+     * Creates a fingerprint of the specified INFO response and topology.
+     *
+     * @return a fingerprint, or <code>null</code> if the topology could not be fingerprinted
+     */
+    static ResetFingerprint create(Map<String, Set<ResetRequestSource.VirtualHost>> response, Object topology) {
+        return (topology != null) ? new ResetFingerprint(response, topology) : null;
+    }
+
+    /**
+     * Indicates whether the proxy that returned the specified INFO response already reflects the local topology, i.e. the
+     * specified reset requests merely reconfigure nodes known to the proxy.
+     */
+    static boolean isSynchronized(Map<String, Set<ResetRequestSource.VirtualHost>> response, List<MCMPRequest> requests) {
+        for (MCMPRequest request : requests) {
+            if ((request.getRequestType() != MCMPRequestType.CONFIG) || !response.containsKey(request.getJvmRoute())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ResetFingerprint(Map<String, Set<ResetRequestSource.VirtualHost>> response, Object topology) {
+        // Virtual hosts do not necessarily implement equals(...)
+        this.response = new HashMap<String, Set<List<Object>>>();
+        for (Map.Entry<String, Set<ResetRequestSource.VirtualHost>> entry : response.entrySet()) {
+            Set<List<Object>> hosts = new HashSet<List<Object>>();
+            for (ResetRequestSource.VirtualHost host : entry.getValue()) {
+                hosts.add(Arrays.<Object>asList(new HashSet<String>(host.getAliases()), new HashMap<String, ResetRequestSource.Status>(host.getContexts())));
+            }
+            this.response.put(entry.getKey(), hosts);
+        }
+        this.topology = topology;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (!(object instanceof ResetFingerprint))
+            return false;
+        ResetFingerprint fingerprint = (ResetFingerprint) object;
+        return this.response.equals(fingerprint.response) && this.topology.equals(fingerprint.topology);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.response.hashCode() ^ this.topology.hashCode();
+    }
+}
@@ -152,4 +152,43 @@ public class ResetRequestSourceImpl implements ResetRequestSource {
 
         return requests;
     }
+
+    @Override
+    public Object getTopologyFingerprint() {
+        if (this.server == null)
+            return null;
+
+        List<Object> fingerprint = new ArrayList<Object>();
+
+        fingerprint.add(this.contextFilter.isAutoEnableContexts());
+
+        for (Engine engine : this.server.getEngines()) {
+            Connector connector = engine.getProxyConnector();
+            if (connector == null) {
+                continue;
+            }
+            fingerprint.add(engine.getJvmRoute());
+            fingerprint.add(connector.getType());
+            fingerprint.add(connector.getAddress());
+            fingerprint.add(connector.getPort());
+
+            for (Host host : engine.getHosts()) {
+                fingerprint.add(host.getName());
+                fingerprint.add(new HashSet<String>(host.getAliases()));
+
+                Set<String> excludedHostContexts = this.contextFilter.getExcludedContexts(host);
+
+                for (Context context : host.getContexts()) {
+                    String contextPath = context.getPath();
+
+                    if ((excludedHostContexts == null) || !excludedHostContexts.contains(contextPath)) {
+                        fingerprint.add(contextPath);
+                        fingerprint.add(context.isStarted());
+                    }
+                }
+            }
+        }
+
+        return fingerprint;
+    }
 }
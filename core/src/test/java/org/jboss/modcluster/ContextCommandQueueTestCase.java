@@ -0,0 +1,87 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster;
+
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.modcluster.mcmp.MCMPHandler;
+import org.jboss.modcluster.mcmp.MCMPRequest;
+import org.jboss.modcluster.mcmp.MCMPRequestType;
+import org.jboss.modcluster.mcmp.impl.DefaultMCMPRequest;
+import org.junit.jupiter.api.Test;
+
+class ContextCommandQueueTestCase {
+    private final MCMPHandler handler = mock(MCMPHandler.class);
+
+    @Test
+    void supersede() {
+        ContextCommandQueue queue = new ContextCommandQueue(this.handler, 60000, 10);
+
+        MCMPRequest enable = createRequest(MCMPRequestType.ENABLE_APP, "/a");
+        MCMPRequest other = createRequest(MCMPRequestType.ENABLE_APP, "/b");
+        MCMPRequest remove = createRequest(MCMPRequestType.REMOVE_APP, "/a");
+
+        queue.add(enable);
+        queue.add(other);
+        queue.add(remove);
+
+        verifyNoInteractions(this.handler);
+
+        queue.close();
+
+        verify(this.handler).sendRequests(Arrays.asList(other, remove));
+
+        // Nothing left to send
+        queue.flush();
+
+        verifyNoMoreInteractions(this.handler);
+    }
+
+    @Test
+    void capacity() {
+        ContextCommandQueue queue = new ContextCommandQueue(this.handler, 60000, 2);
+
+        MCMPRequest a = createRequest(MCMPRequestType.ENABLE_APP, "/a");
+        MCMPRequest b = createRequest(MCMPRequestType.ENABLE_APP, "/b");
+
+        queue.add(a);
+
+        verifyNoInteractions(this.handler);
+
+        queue.add(b);
+
+        verify(this.handler).sendRequests(Arrays.asList(a, b));
+
+        queue.close();
+
+        verifyNoMoreInteractions(this.handler);
+    }
+
+    @Test
+    void delay() {
+        ContextCommandQueue queue = new ContextCommandQueue(this.handler, 10, 10);
+
+        MCMPRequest request = createRequest(MCMPRequestType.DISABLE_APP, "/a");
+
+        queue.add(request);
+
+        verify(this.handler, timeout(5000)).sendRequests(Arrays.asList(request));
+
+        queue.close();
+
+        verifyNoMoreInteractions(this.handler);
+    }
+
+    private static MCMPRequest createRequest(MCMPRequestType type, String context) {
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("Context", context);
+        parameters.put("Alias", "localhost");
+        return new DefaultMCMPRequest(type, false, "route", parameters);
+    }
+}
@@ -8,18 +8,25 @@ import static org.mockito.Mockito.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.concurrent.TimeUnit;
 
 import org.jboss.modcluster.config.MCMPHandlerConfiguration;
 import org.jboss.modcluster.config.impl.SessionDrainingStrategyEnum;
+import org.jboss.modcluster.container.Connector;
 import org.jboss.modcluster.container.Context;
+import org.jboss.modcluster.container.Engine;
 import org.jboss.modcluster.container.Host;
 import org.jboss.modcluster.container.Server;
+import org.jboss.modcluster.load.LoadBalanceFactorProvider;
 import org.jboss.modcluster.load.LoadBalanceFactorProviderFactory;
 import org.jboss.modcluster.mcmp.MCMPHandler;
+import org.jboss.modcluster.mcmp.MCMPRequest;
 import org.jboss.modcluster.mcmp.MCMPRequestFactory;
+import org.jboss.modcluster.mcmp.MCMPRequestType;
 import org.jboss.modcluster.mcmp.ResetRequestSource;
+import org.jboss.modcluster.mcmp.impl.DefaultMCMPRequest;
 import org.junit.jupiter.api.Test;
 
 public class ModClusterServiceTest {
@@ -80,6 +87,77 @@ public class ModClusterServiceTest {
         verify(mcmpHandler, never()).sendRequest(eq(null));
     }
 
+    @Test
+    void statusSkippedWithinTolerance() {
+
+        MCMPHandler mcmpHandler = mock(MCMPHandler.class);
+        when(mcmpHandler.isProxyHealthOK()).thenReturn(true);
+        MCMPHandlerConfiguration mcmpConfig = setupMcmpConfig();
+        when(mcmpConfig.getStatusHeartbeatInterval()).thenReturn(60000);
+        when(mcmpConfig.getStatusLoadBalanceFactorTolerance()).thenReturn(5);
+        LoadBalanceFactorProvider provider = mock(LoadBalanceFactorProvider.class);
+        LoadBalanceFactorProviderFactory providerFactory = mock(LoadBalanceFactorProviderFactory.class);
+        when(providerFactory.createLoadBalanceFactorProvider()).thenReturn(provider);
+        ModClusterService mod = new ModClusterService(null, null, mcmpConfig, null, providerFactory, mock(MCMPRequestFactory.class), null, mock(ResetRequestSource.class), mcmpHandler, null);
+        mod.init(setupServer());
+        mod.connectionEstablished(null);
+
+        Engine engine = mock(Engine.class);
+        Connector connector = mock(Connector.class);
+        when(engine.getJvmRoute()).thenReturn("route");
+        when(engine.getProxyConnector()).thenReturn(connector);
+        when(connector.isAvailable()).thenReturn(true);
+        when(provider.getLoadBalanceFactor(engine)).thenReturn(50, 53, 60, 60);
+
+        mod.status(engine);
+        mod.status(engine);
+        mod.status(engine);
+
+        verify(mcmpHandler, times(2)).sendRequest(eq(null));
+
+        // Proxies in error always get a STATUS request
+        when(mcmpHandler.isProxyHealthOK()).thenReturn(false);
+
+        mod.status(engine);
+
+        verify(mcmpHandler, times(3)).sendRequest(eq(null));
+    }
+
+    @Test
+    void proxyResultsClearedUponProxyChange() {
+
+        MCMPHandler mcmpHandler = mock(MCMPHandler.class);
+        MCMPHandlerConfiguration mcmpConfig = setupMcmpConfig();
+        when(mcmpConfig.getProxyResultCacheTimeout()).thenReturn(60000);
+        MCMPRequestFactory requestFactory = mock(MCMPRequestFactory.class);
+        MCMPRequest request = new DefaultMCMPRequest(MCMPRequestType.DUMP, true, null, Collections.emptyMap());
+        when(requestFactory.createDumpRequest()).thenReturn(request);
+        when(mcmpHandler.sendRequest(request)).thenReturn(Collections.emptyMap());
+        ModClusterService mod = new ModClusterService(null, null, mcmpConfig, null, mock(LoadBalanceFactorProviderFactory.class), requestFactory, null, mock(ResetRequestSource.class), mcmpHandler, null);
+        mod.init(setupServer());
+        mod.connectionEstablished(null);
+
+        mod.getProxyConfiguration();
+        mod.getProxyConfiguration();
+
+        verify(mcmpHandler, times(1)).sendRequest(request);
+
+        mod.addProxy("127.0.0.1", 6666);
+        mod.getProxyConfiguration();
+
+        verify(mcmpHandler, times(2)).sendRequest(request);
+
+        mod.removeProxy("127.0.0.1", 6666);
+        mod.getProxyConfiguration();
+
+        verify(mcmpHandler, times(3)).sendRequest(request);
+
+        mod.reset();
+        mod.getProxyConfiguration();
+
+        verify(mcmpHandler, times(4)).sendRequest(request);
+    }
+
     private ModClusterService createModClusterService(MCMPHandler mcmpHandler) {
         ModClusterService modClusterService = new ModClusterService(
                 null,
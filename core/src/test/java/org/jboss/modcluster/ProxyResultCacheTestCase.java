@@ -0,0 +1,120 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.jboss.modcluster.mcmp.MCMPRequest;
+import org.jboss.modcluster.mcmp.MCMPRequestType;
+import org.jboss.modcluster.mcmp.impl.DefaultMCMPRequest;
+import org.junit.jupiter.api.Test;
+
+class ProxyResultCacheTestCase {
+    private static final MCMPRequest DUMP = new DefaultMCMPRequest(MCMPRequestType.DUMP, true, null, Collections.<String, String>emptyMap());
+    private static final MCMPRequest INFO = new DefaultMCMPRequest(MCMPRequestType.INFO, true, null, Collections.<String, String>emptyMap());
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Supplier<Map<InetSocketAddress, String>> loader = new Supplier<Map<InetSocketAddress, String>>() {
+        @Override
+        public Map<InetSocketAddress, String> get() {
+            return Collections.singletonMap(InetSocketAddress.createUnresolved("localhost", 6666), Integer.toString(ProxyResultCacheTestCase.this.loads.incrementAndGet()));
+        }
+    };
+
+    @Test
+    void reuse() {
+        ProxyResultCache cache = new ProxyResultCache(60000);
+
+        Map<InetSocketAddress, String> results = cache.get(DUMP, this.loader);
+
+        assertEquals(results, cache.get(DUMP, this.loader));
+        assertEquals(1, this.loads.get());
+
+        // Different requests are cached separately
+        cache.get(INFO, this.loader);
+        assertEquals(2, this.loads.get());
+
+        cache.clear();
+
+        assertNotEquals(results, cache.get(DUMP, this.loader));
+        assertEquals(3, this.loads.get());
+    }
+
+    @Test
+    void expiration() throws InterruptedException {
+        ProxyResultCache cache = new ProxyResultCache(1);
+
+        cache.get(DUMP, this.loader);
+        Thread.sleep(10);
+        cache.get(DUMP, this.loader);
+
+        assertEquals(2, this.loads.get());
+    }
+
+    @Test
+    void failure() {
+        ProxyResultCache cache = new ProxyResultCache(60000);
+
+        assertThrows(IllegalStateException.class, () -> cache.get(DUMP, () -> {
+            throw new IllegalStateException();
+        }));
+
+        cache.get(DUMP, this.loader);
+        assertEquals(1, this.loads.get());
+    }
+
+    @Test
+    void singleFlight() throws Exception {
+        ProxyResultCache cache = new ProxyResultCache(60000);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<Map<InetSocketAddress, String>> first = executor.submit(() -> cache.get(DUMP, () -> {
+                loading.countDown();
+                try {
+                    proceed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return this.loader.get();
+            }));
+
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            AtomicReference<Map<InetSocketAddress, String>> results = new AtomicReference<>();
+            Thread second = new Thread(() -> results.set(cache.get(DUMP, this.loader)));
+            second.start();
+
+            // Only let the request in flight complete once the second caller waits for it
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (second.getState() != Thread.State.WAITING) {
+                assertTrue(second.isAlive(), "Second caller did not wait for the request in flight");
+                assertTrue(System.nanoTime() - deadline < 0);
+                Thread.sleep(1);
+            }
+            proceed.countDown();
+            second.join(5000);
+
+            assertEquals(first.get(), results.get());
+            assertEquals(1, this.loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
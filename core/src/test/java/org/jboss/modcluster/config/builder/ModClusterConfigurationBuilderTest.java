@@ -62,6 +62,21 @@ public class ModClusterConfigurationBuilderTest {
                 .setStopContextTimeoutUnit(TimeUnit.DAYS)
                 .setJvmRouteFactory(new UUIDJvmRouteFactory())
                 .setSessionDrainingStrategy(SessionDrainingStrategyEnum.NEVER)
+                .setConcurrentDispatch(true)
+                .setConcurrentDispatchTimeout(1)
+                .setResetRequestPipelineWindow(8)
+                .setAsyncEventProcessing(true)
+                .setProxyConnectionPoolSize(4)
+                .setDedicatedHeartbeatConnection(true)
+                .setProxyConnectionIdleTimeout(1)
+                .setProxyRetryInitialDelay(1000)
+                .setProxyRetryMaxDelay(60000)
+                .setStatusTimeout(5000)
+                .setContextCommandBatchDelay(50)
+                .setContextCommandQueueCapacity(16)
+                .setStatusHeartbeatInterval(60000)
+                .setStatusLoadBalanceFactorTolerance(2)
+                .setProxyResultCacheTimeout(2000)
 
                 .advertise()
 
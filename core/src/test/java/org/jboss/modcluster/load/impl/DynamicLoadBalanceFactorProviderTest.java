@@ -7,10 +7,19 @@ package org.jboss.modcluster.load.impl;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.jboss.modcluster.container.Engine;
+import org.jboss.modcluster.load.metric.EngineIndependentLoadMetric;
 import org.jboss.modcluster.load.metric.LoadMetric;
 import org.jboss.modcluster.load.metric.NodeUnavailableException;
 import org.junit.jupiter.api.Test;
@@ -93,4 +102,346 @@ class DynamicLoadBalanceFactorProviderTest {
         assertEquals(100, provider.getLoadBalanceFactor(engine));
     }
 
+    @Test
+    void getLoadBalanceFactor_HistoryChange() throws Exception {
+        Engine engine = mock(Engine.class);
+
+        Set<LoadMetric> metrics = new HashSet<>();
+        LoadMetric metric = mock(LoadMetric.class);
+        when(metric.getWeight()).thenReturn(LoadMetric.DEFAULT_WEIGHT);
+        when(metric.getCapacity()).thenReturn(LoadMetric.DEFAULT_CAPACITY);
+        when(metric.getLoad(engine)).thenReturn(0.2, 0.4, 0.6, 0.8, 1.0);
+        metrics.add(metric);
+
+        DynamicLoadBalanceFactorProvider provider = new DynamicLoadBalanceFactorProvider(metrics, -1);
+        provider.setHistory(1);
+        provider.setDecayFactor(1f);
+
+        assertEquals(Collections.singletonList(0d), new ArrayList<>(provider.getMetrics().values()));
+
+        assertEquals(80, provider.getLoadBalanceFactor(engine)); // 0.2
+        assertEquals(70, provider.getLoadBalanceFactor(engine)); // 0.4, 0.2
+        assertEquals(50, provider.getLoadBalanceFactor(engine)); // 0.6, 0.4
+
+        // Growing the history retains the recorded loads
+        provider.setHistory(3);
+        assertEquals(40, provider.getLoadBalanceFactor(engine)); // 0.8, 0.6, 0.4
+
+        // Shrinking the history evicts the oldest loads
+        provider.setHistory(0);
+        assertEquals(1, provider.getLoadBalanceFactor(engine)); // 1.0
+
+        assertEquals(Collections.singletonList(1d), new ArrayList<>(provider.getMetrics().values()));
+    }
+
+    @Test
+    void getLoadBalanceFactor_Engines() throws Exception {
+        Engine engine1 = mock(Engine.class);
+        Engine engine2 = mock(Engine.class);
+
+        Set<LoadMetric> metrics = new HashSet<>();
+        LoadMetric metric = mock(LoadMetric.class);
+        when(metric.getWeight()).thenReturn(LoadMetric.DEFAULT_WEIGHT);
+        when(metric.getCapacity()).thenReturn(LoadMetric.DEFAULT_CAPACITY);
+        when(metric.getLoad(engine1)).thenReturn(0.2, 0.4);
+        when(metric.getLoad(engine2)).thenReturn(0.8);
+        metrics.add(metric);
+        LoadMetric sharedMetric = mock(EngineIndependentLoadMetric.class);
+        when(sharedMetric.getWeight()).thenReturn(LoadMetric.DEFAULT_WEIGHT);
+        when(sharedMetric.getCapacity()).thenReturn(LoadMetric.DEFAULT_CAPACITY);
+        when(sharedMetric.getLoad(any())).thenReturn(0.4);
+        metrics.add(sharedMetric);
+
+        DynamicLoadBalanceFactorProvider provider = new DynamicLoadBalanceFactorProvider(metrics, -1);
+        provider.setDecayFactor(1f);
+
+        // Each engine records its loads into its own history
+        assertEquals(70, provider.getLoadBalanceFactor(engine1)); // (0.2 + 0.4) / 2
+        assertEquals(40, provider.getLoadBalanceFactor(engine2)); // (0.8 + 0.4) / 2
+        verify(sharedMetric, times(2)).getLoad(any());
+
+        // The load of an engine independent metric sampled for another engine since the previous sample is reused
+        assertEquals(65, provider.getLoadBalanceFactor(engine1)); // ((0.2 + 0.4) / 2 + 0.4) / 2
+        verify(sharedMetric, times(2)).getLoad(any());
+
+        // Otherwise, it is sampled anew
+        assertEquals(40, provider.getLoadBalanceFactor(engine2)); // (0.8 + 0.4) / 2
+        verify(sharedMetric, times(3)).getLoad(any());
+        verify(metric, times(2)).getLoad(engine2);
+    }
+
+    @Test
+    void getLoadBalanceFactor_HalfLife() throws Exception {
+        Engine engine = mock(Engine.class);
+
+        Set<LoadMetric> metrics = new HashSet<>();
+        LoadMetric metric = mock(LoadMetric.class);
+        when(metric.getWeight()).thenReturn(LoadMetric.DEFAULT_WEIGHT);
+        when(metric.getCapacity()).thenReturn(LoadMetric.DEFAULT_CAPACITY);
+        when(metric.getLoad(engine)).thenReturn(0.2, 0.8, 0.2, 0.8);
+        metrics.add(metric);
+
+        DynamicLoadBalanceFactorProvider provider = new DynamicLoadBalanceFactorProvider(metrics, -1);
+
+        // Loads recorded in quick succession barely decay
+        provider.setHalfLife(1000);
+        assertEquals(80, provider.getLoadBalanceFactor(engine)); // 0.2
+        assertEquals(80, provider.getLoadBalanceFactor(engine)); // ~0.2
+
+        // Loads recorded many half-lives apart decay almost entirely
+        provider.setHalfLife(0.001f);
+        Thread.sleep(50);
+        assertEquals(80, provider.getLoadBalanceFactor(engine)); // ~0.2
+        Thread.sleep(50);
+        assertEquals(20, provider.getLoadBalanceFactor(engine)); // ~0.8
+    }
+
+    @Test
+    void getLoadBalanceFactor_Sampling() throws Exception {
+        Engine engine = mock(Engine.class);
+        Set<Thread> samplers = ConcurrentHashMap.newKeySet();
+        AtomicBoolean unavailable = new AtomicBoolean(false);
+
+        Set<LoadMetric> metrics = new HashSet<>();
+        LoadMetric metric = mock(LoadMetric.class);
+        when(metric.getWeight()).thenReturn(LoadMetric.DEFAULT_WEIGHT);
+        when(metric.getCapacity()).thenReturn(LoadMetric.DEFAULT_CAPACITY);
+        when(metric.getLoad(engine)).then(invocation -> {
+            samplers.add(Thread.currentThread());
+            if (unavailable.get()) {
+                throw new NodeUnavailableException();
+            }
+            return 0.5;
+        });
+        metrics.add(metric);
+
+        DynamicLoadBalanceFactorProvider provider = new DynamicLoadBalanceFactorProvider(metrics, -1);
+        provider.setSamplingInterval(10);
+
+        try {
+            // Nothing was sampled yet, so the first computation samples inline
+            assertEquals(50, provider.getLoadBalanceFactor(engine));
+            assertTrue(samplers.remove(Thread.currentThread()));
+
+            verify(metric, timeout(1000).atLeast(3)).getLoad(engine);
+
+            // Subsequent computations only aggregate the sampled loads
+            assertEquals(50, provider.getLoadBalanceFactor(engine));
+            assertFalse(samplers.isEmpty());
+            assertFalse(samplers.contains(Thread.currentThread()));
+
+            // A sampled unavailable node is reported upon the next computation
+            unavailable.set(true);
+            clearInvocations(metric);
+            verify(metric, timeout(1000).atLeast(2)).getLoad(engine);
+
+            assertEquals(-1, provider.getLoadBalanceFactor(engine));
+        } finally {
+            provider.close();
+        }
+    }
+
+    @Test
+    void getLoadBalanceFactor_Expiration() throws Exception {
+        Engine engine = mock(Engine.class);
+        Engine stoppedEngine = mock(Engine.class);
+
+        Set<LoadMetric> metrics = new HashSet<>();
+        LoadMetric metric = mock(LoadMetric.class);
+        when(metric.getWeight()).thenReturn(LoadMetric.DEFAULT_WEIGHT);
+        when(metric.getCapacity()).thenReturn(LoadMetric.DEFAULT_CAPACITY);
+        when(metric.getLoad(any())).thenReturn(0.5);
+        metrics.add(metric);
+
+        DynamicLoadBalanceFactorProvider provider = new DynamicLoadBalanceFactorProvider(metrics, -1);
+        provider.setSamplingInterval(10);
+
+        try {
+            for (int i = 0; i < 2; ++i) {
+                assertEquals(50, provider.getLoadBalanceFactor(engine));
+                assertEquals(50, provider.getLoadBalanceFactor(stoppedEngine));
+                Thread.sleep(20);
+            }
+
+            // Only one engine is still computed, so the sampler stops sampling the other after a few intervals
+            for (int i = 0; i < 10; ++i) {
+                assertEquals(50, provider.getLoadBalanceFactor(engine));
+                Thread.sleep(20);
+            }
+
+            clearInvocations(metric);
+            verify(metric, timeout(1000).atLeast(3)).getLoad(engine);
+            verify(metric, never()).getLoad(stoppedEngine);
+        } finally {
+            provider.close();
+        }
+    }
+
+    @Test
+    void getLoadBalanceFactor_Concurrent() throws Exception {
+        Engine engine = mock(Engine.class);
+        CountDownLatch sampling = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+
+        LoadMetric metric = mock(LoadMetric.class);
+        when(metric.getWeight()).thenReturn(LoadMetric.DEFAULT_WEIGHT);
+        when(metric.getCapacity()).thenReturn(LoadMetric.DEFAULT_CAPACITY);
+        when(metric.getLoad(engine)).thenReturn(0.5).then(invocation -> {
+            sampling.countDown();
+            latch.await();
+            return 0.5;
+        });
+
+        DynamicLoadBalanceFactorProvider provider = new DynamicLoadBalanceFactorProvider(Collections.singleton(metric));
+
+        try {
+            int factor = provider.getLoadBalanceFactor(engine);
+
+            Thread sampler = new Thread(() -> provider.getLoadBalanceFactor(engine));
+            sampler.start();
+            sampling.await();
+
+            // Callers do not sample the engine while another thread is sampling it, but aggregate the loads recorded so far
+            List<Integer> factors = new CopyOnWriteArrayList<>();
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 4; ++i) {
+                threads.add(new Thread(() -> factors.add(provider.getLoadBalanceFactor(engine))));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join(1000);
+                assertFalse(thread.isAlive());
+            }
+            assertEquals(Collections.nCopies(4, factor), factors);
+
+            latch.countDown();
+            sampler.join();
+
+            verify(metric, times(2)).getLoad(engine);
+        } finally {
+            latch.countDown();
+            provider.close();
+        }
+    }
+
+    @Test
+    void getLoadBalanceFactor_ConcurrentFirstSample() throws Exception {
+        Engine engine = mock(Engine.class);
+        CountDownLatch sampling = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+
+        LoadMetric metric = mock(LoadMetric.class);
+        when(metric.getWeight()).thenReturn(LoadMetric.DEFAULT_WEIGHT);
+        when(metric.getCapacity()).thenReturn(LoadMetric.DEFAULT_CAPACITY);
+        when(metric.getLoad(engine)).then(invocation -> {
+            sampling.countDown();
+            latch.await();
+            return 0.5;
+        });
+
+        // Without initial load, there is nothing to aggregate before the first sample
+        DynamicLoadBalanceFactorProvider provider = new DynamicLoadBalanceFactorProvider(Collections.singleton(metric), -1);
+        provider.setSamplingInterval(60000);
+
+        try {
+            List<Integer> factors = new CopyOnWriteArrayList<>();
+            Thread sampler = new Thread(() -> factors.add(provider.getLoadBalanceFactor(engine)));
+            sampler.start();
+            sampling.await();
+
+            // The first sample in progress is awaited rather than taken again or skipped
+            Thread waiter = new Thread(() -> factors.add(provider.getLoadBalanceFactor(engine)));
+            waiter.start();
+            waiter.join(200);
+            assertTrue(waiter.isAlive());
+
+            latch.countDown();
+            sampler.join();
+            waiter.join();
+
+            assertEquals(Arrays.asList(50, 50), factors);
+            verify(metric, times(1)).getLoad(engine);
+        } finally {
+            latch.countDown();
+            provider.close();
+        }
+    }
+
+    @Test
+    void getLoadBalanceFactor_SaturatedEvaluator() throws Exception {
+        Engine engine = mock(Engine.class);
+        Engine otherEngine = mock(Engine.class);
+        Engine rejectedEngine = mock(Engine.class);
+        CountDownLatch latch = new CountDownLatch(1);
+
+        LoadMetric metric = mock(LoadMetric.class);
+        when(metric.getWeight()).thenReturn(LoadMetric.DEFAULT_WEIGHT);
+        when(metric.getCapacity()).thenReturn(LoadMetric.DEFAULT_CAPACITY);
+        when(metric.getLoad(any())).then(invocation -> {
+            latch.await();
+            return 0.5;
+        });
+
+        DynamicLoadBalanceFactorProvider provider = new DynamicLoadBalanceFactorProvider(Collections.singleton(metric), -1);
+        provider.setMetricTimeout(50);
+
+        try {
+            // The hung evaluation for the first engine holds the only thread, and the evaluation for the second engine is queued
+            provider.getLoadBalanceFactor(engine);
+            provider.getLoadBalanceFactor(otherEngine);
+
+            // The evaluation for the third engine is rejected, rather than queued behind them
+            provider.getLoadBalanceFactor(rejectedEngine);
+            assertEquals(3, provider.getSlowMetricCount());
+
+            latch.countDown();
+
+            verify(metric, timeout(1000)).getLoad(otherEngine);
+            verify(metric, after(200).never()).getLoad(rejectedEngine);
+        } finally {
+            latch.countDown();
+            provider.close();
+        }
+    }
+
+    @Test
+    void getLoadBalanceFactor_MetricTimeout() throws Exception {
+        Engine engine = mock(Engine.class);
+        CountDownLatch latch = new CountDownLatch(1);
+
+        Set<LoadMetric> metrics = new HashSet<>();
+        LoadMetric fastMetric = mock(LoadMetric.class);
+        when(fastMetric.getWeight()).thenReturn(LoadMetric.DEFAULT_WEIGHT);
+        when(fastMetric.getCapacity()).thenReturn(LoadMetric.DEFAULT_CAPACITY);
+        when(fastMetric.getLoad(engine)).thenReturn(0.2);
+        metrics.add(fastMetric);
+        LoadMetric slowMetric = mock(LoadMetric.class);
+        when(slowMetric.getWeight()).thenReturn(LoadMetric.DEFAULT_WEIGHT);
+        when(slowMetric.getCapacity()).thenReturn(LoadMetric.DEFAULT_CAPACITY);
+        when(slowMetric.getLoad(engine)).then(invocation -> {
+            latch.await();
+            return 0.6;
+        });
+        metrics.add(slowMetric);
+
+        DynamicLoadBalanceFactorProvider provider = new DynamicLoadBalanceFactorProvider(metrics, -1);
+        provider.setMetricTimeout(500);
+
+        try {
+            // The slow metric has no known load yet, so only the fast metric contributes
+            assertEquals(80, provider.getLoadBalanceFactor(engine)); // 0.2
+            assertEquals(1, provider.getSlowMetricCount());
+
+            latch.countDown();
+
+            // The pending evaluation of the slow metric is awaited rather than evaluated anew
+            assertEquals(60, provider.getLoadBalanceFactor(engine)); // (0.2 + 0.6) / 2
+            assertEquals(1, provider.getSlowMetricCount());
+            verify(slowMetric, times(1)).getLoad(engine);
+        } finally {
+            latch.countDown();
+            provider.close();
+        }
+    }
+
 }
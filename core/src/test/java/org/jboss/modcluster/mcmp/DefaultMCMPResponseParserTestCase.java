@@ -6,6 +6,14 @@ package org.jboss.modcluster.mcmp;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 import org.jboss.modcluster.mcmp.impl.DefaultMCMPResponseParser;
 import org.junit.jupiter.api.Test;
 
@@ -16,8 +24,48 @@ class DefaultMCMPResponseParserTestCase {
     private final MCMPResponseParser parser = new DefaultMCMPResponseParser();
 
     @Test
-    void parseInfoResponse() {
+    void parseInfoResponse() throws IOException {
+        String response = "Node: [1],Name: node1,Balancer: mycluster,LBGroup: ,Host: 127.0.0.1,Port: 8009,Type: ajp,Flushpackets: Off,Flushwait: 10,Ping: 10,Smax: 1,Ttl: 60,Elected: 0,Read: 0,Transfered: 0,Connected: 0,Load: 1\r\n"
+                + "Node: [2],Name: node2,Balancer: mycluster,LBGroup: ,Host: 127.0.0.2,Port: 8009,Type: ajp,Flushpackets: Off,Flushwait: 10,Ping: 10,Smax: 1,Ttl: 60,Elected: 0,Read: 0,Transfered: 0,Connected: 0,Load: 1\n"
+                + "Vhost: [1:1:1], Alias: localhost\r"
+                + "Vhost: [1:1:2], Alias: example.com\n"
+                + "Vhost: [2:1:3], Alias: localhost\n"
+                + "Context: [1:1:1], Context: /, Status: ENABLED\n"
+                + "Context: [1:1:2], Context: /app, Status: DISABLED\n"
+                + "Context: [2:1:3], Context: /app, Status: STOPPED";
+
+        Map<String, Set<ResetRequestSource.VirtualHost>> result = this.parser.parseInfoResponse(response);
+
+        assertEquals(2, result.size());
+
+        Set<ResetRequestSource.VirtualHost> hosts = result.get("node1");
+        assertEquals(1, hosts.size());
+        ResetRequestSource.VirtualHost host = hosts.iterator().next();
+        assertEquals(new HashSet<>(Arrays.asList("localhost", "example.com")), host.getAliases());
+        assertEquals(2, host.getContexts().size());
+        assertSame(ResetRequestSource.Status.ENABLED, host.getContexts().get("/"));
+        assertSame(ResetRequestSource.Status.DISABLED, host.getContexts().get("/app"));
+
+        hosts = result.get("node2");
+        assertEquals(1, hosts.size());
+        ResetRequestSource.VirtualHost otherHost = hosts.iterator().next();
+        assertEquals(Collections.singleton("localhost"), otherHost.getAliases());
+        assertEquals(Collections.singletonMap("/app", ResetRequestSource.Status.STOPPED), otherHost.getContexts());
+
+        // Repeated strings are shared
+        assertSame(host.getAliases().iterator().next(), otherHost.getAliases().iterator().next());
+
+        // Same result when read from a stream
+        Map<String, Set<ResetRequestSource.VirtualHost>> streamed = this.parser.parseInfoResponse(new StringReader(response));
+        assertEquals(result.keySet(), streamed.keySet());
+        assertEquals(host.getContexts(), streamed.get("node1").iterator().next().getContexts());
+
+        assertTrue(this.parser.parseInfoResponse((String) null).isEmpty());
+        assertTrue(this.parser.parseInfoResponse("").isEmpty());
 
+        assertThrows(IllegalArgumentException.class, () -> this.parser.parseInfoResponse("Vhost: [3:1:1], Alias: localhost"));
+        assertThrows(IllegalArgumentException.class, () -> this.parser.parseInfoResponse("Node: [1],Name: node1\nVhost: [1:1], Alias: localhost"));
+        assertThrows(IllegalArgumentException.class, () -> this.parser.parseInfoResponse("Node: [1],Name: node1\nVhost: [1:1:1], Alias: localhost\nContext: [1:1:1], Context: /, Status: UNKNOWN"));
     }
 
     @Test
@@ -0,0 +1,65 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.mcmp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+
+import org.jboss.modcluster.mcmp.impl.DefaultMCMPURLEncoder;
+import org.junit.jupiter.api.Test;
+
+class DefaultMCMPURLEncoderTestCase {
+
+    @Test
+    void encodeParameter() throws UnsupportedEncodingException {
+        this.verify("JVMRoute", "node1");
+        this.verify("Alias", "localhost,www.example.com");
+        this.verify("Context", "/my app/path?x=1&y=2");
+        this.verify("Balancer", "a-b_c.d*e~f+g%h");
+        this.verify("Domain", "");
+        this.verify("Alias", "caf\u00e9,\u00fcber.example.com,\u4f8b\u3048.jp");
+        this.verify("Alias", "\ud83d\ude00");
+        // Malformed surrogates
+        this.verify("Alias", "a\ud83db");
+        this.verify("Alias", "a\ude00b");
+        this.verify("Alias", "a\ud83d");
+    }
+
+    @Test
+    void hasNext() {
+        DefaultMCMPURLEncoder encoder = new DefaultMCMPURLEncoder(1);
+
+        encoder.encodeParameter("JVMRoute", "node 1", true);
+        encoder.encodeParameter("Context", "/", false);
+
+        assertEquals("JVMRoute=node+1&Context=%2F", new String(encoder.getBuffer(), 0, encoder.getLength()));
+    }
+
+    @Test
+    void reset() {
+        DefaultMCMPURLEncoder encoder = new DefaultMCMPURLEncoder();
+
+        encoder.encodeParameter("JVMRoute", "node1", false);
+        encoder.reset();
+
+        assertEquals(0, encoder.getLength());
+
+        encoder.encodeParameter("JVMRoute", "node2", false);
+
+        assertEquals("JVMRoute=node2", new String(encoder.getBuffer(), 0, encoder.getLength()));
+    }
+
+    private void verify(String key, String value) throws UnsupportedEncodingException {
+        DefaultMCMPURLEncoder encoder = new DefaultMCMPURLEncoder(4);
+
+        encoder.encodeParameter(key, value, false);
+
+        String expected = URLEncoder.encode(key, "UTF-8") + "=" + URLEncoder.encode(value, "UTF-8");
+
+        assertEquals(expected, new String(encoder.getBuffer(), 0, encoder.getLength()));
+    }
+}
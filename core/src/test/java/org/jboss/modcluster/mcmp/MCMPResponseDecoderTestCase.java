@@ -0,0 +1,109 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.mcmp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.jboss.modcluster.mcmp.impl.MCMPResponseDecoder;
+import org.junit.jupiter.api.Test;
+
+class MCMPResponseDecoderTestCase {
+
+    @Test
+    void contentLength() {
+        MCMPResponseDecoder decoder = new MCMPResponseDecoder();
+        String response = "HTTP/1.1 200 OK\r\nDate: Thu, 01 Jan 2026 00:00:00 GMT\r\ncontent-LENGTH : 11\r\nConnection: Keep-Alive\r\n\r\nType=PONG&x";
+
+        assertTrue(decoder.decode(buffer(response)));
+        assertTrue(decoder.isStarted());
+        assertEquals(200, decoder.getStatus());
+        assertNull(decoder.getErrorType());
+        assertNull(decoder.getMessage());
+        assertFalse(decoder.isClose());
+        assertEquals("Type=PONG&x", decoder.getBody());
+    }
+
+    @Test
+    void noBody() {
+        MCMPResponseDecoder decoder = new MCMPResponseDecoder();
+
+        assertTrue(decoder.decode(buffer("HTTP/1.1 500 Internal Server Error\r\nType: SYNTAX\r\nMess: Invalid  parameter \r\nContent-Length: 0\r\n\r\n")));
+        assertEquals(500, decoder.getStatus());
+        assertEquals("SYNTAX", decoder.getErrorType());
+        assertEquals("Invalid  parameter", decoder.getMessage());
+        assertNull(decoder.getBody());
+    }
+
+    @Test
+    void chunked() {
+        MCMPResponseDecoder decoder = new MCMPResponseDecoder();
+
+        assertTrue(decoder.decode(buffer("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n5\r\nNode:\r\na;x=y\r\n [1],Name:\r\n0\r\n\r\n")));
+        assertEquals("Node: [1],Name:", decoder.getBody());
+    }
+
+    @Test
+    void close() {
+        MCMPResponseDecoder decoder = new MCMPResponseDecoder();
+
+        assertFalse(decoder.decode(buffer("HTTP/1.0 200 OK\nConnection: close\n\nType=INFO-RSP")));
+        assertTrue(decoder.end());
+        assertTrue(decoder.isClose());
+        assertEquals("Type=INFO-RSP", decoder.getBody());
+    }
+
+    @Test
+    void incremental() {
+        MCMPResponseDecoder decoder = new MCMPResponseDecoder(1, 1);
+        byte[] response = "HTTP/1.1 200 OK\r\nContent-Length: 12\r\n\r\nType=DUMP-RSP".getBytes(StandardCharsets.US_ASCII);
+
+        for (int i = 0; i < response.length - 1; ++i) {
+            assertEquals(i == response.length - 2, decoder.decode(ByteBuffer.wrap(response, i, 1)));
+        }
+        assertEquals("Type=DUMP-RS", decoder.getBody());
+    }
+
+    @Test
+    void pipelined() {
+        MCMPResponseDecoder decoder = new MCMPResponseDecoder();
+        ByteBuffer buffer = buffer("HTTP/1.1 200 OK\r\nContent-Length: 1\r\n\r\naHTTP/1.1 200 OK\r\nContent-Length: 1\r\n\r\nb");
+
+        assertTrue(decoder.decode(buffer));
+        assertEquals("a", decoder.getBody());
+        assertTrue(buffer.hasRemaining());
+
+        decoder.reset();
+
+        assertTrue(decoder.decode(buffer));
+        assertEquals("b", decoder.getBody());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void notStarted() {
+        MCMPResponseDecoder decoder = new MCMPResponseDecoder();
+
+        assertFalse(decoder.decode(buffer("HTTP/1.1")));
+        assertFalse(decoder.isStarted());
+        assertFalse(decoder.end());
+    }
+
+    @Test
+    void malformed() {
+        MCMPResponseDecoder decoder = new MCMPResponseDecoder();
+
+        assertThrows(IllegalArgumentException.class, () -> decoder.decode(buffer("HTTP/1.1 200 OK\r\nContent-Length: x\r\n\r\n")));
+        assertEquals(200, decoder.getStatus());
+        assertTrue(decoder.isClose());
+        assertNull(decoder.getBody());
+    }
+
+    private static ByteBuffer buffer(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.US_ASCII));
+    }
+}
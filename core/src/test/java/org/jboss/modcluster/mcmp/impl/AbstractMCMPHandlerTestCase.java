@@ -0,0 +1,324 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.mcmp.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.modcluster.config.impl.ModClusterConfig;
+import org.jboss.modcluster.config.impl.ProxyConfigurationImpl;
+import org.jboss.modcluster.mcmp.MCMPConnectionListener;
+import org.jboss.modcluster.mcmp.MCMPHandler;
+import org.jboss.modcluster.mcmp.MCMPRequest;
+import org.jboss.modcluster.mcmp.MCMPRequestFactory;
+import org.jboss.modcluster.mcmp.MCMPRequestType;
+import org.jboss.modcluster.mcmp.MCMPResponseParser;
+import org.jboss.modcluster.mcmp.MCMPServerState;
+import org.jboss.modcluster.mcmp.ResetRequestSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Exercises the transport of an {@link MCMPHandler} over real sockets against a {@link MockMCMPServer}.
+ */
+abstract class AbstractMCMPHandlerTestCase {
+    static final String JVM_ROUTE = "node1";
+
+    final ModClusterConfig config = new ModClusterConfig();
+    final ResetRequestSource source = mock(ResetRequestSource.class);
+    final MCMPRequestFactory requestFactory = new DefaultMCMPRequestFactory();
+    final MCMPResponseParser responseParser = new DefaultMCMPResponseParser();
+
+    MockMCMPServer server;
+    MCMPHandler handler;
+
+    /**
+     * Creates the handler under test, using the current configuration.
+     */
+    abstract MCMPHandler createHandler();
+
+    @BeforeEach
+    void init() throws Exception {
+        this.server = new MockMCMPServer();
+        this.config.setSocketTimeout(5000);
+        this.handler = this.createHandler();
+        this.handler.init(Collections.singletonList(new ProxyConfigurationImpl(this.server.getAddress())), mock(MCMPConnectionListener.class));
+        this.handler.status();
+
+        assertEquals(MCMPServerState.State.OK, this.getState());
+    }
+
+    @AfterEach
+    void destroy() throws Exception {
+        this.handler.shutdown();
+        this.server.close();
+    }
+
+    @Test
+    void requests() {
+        this.register();
+
+        assertEquals(Collections.singleton(JVM_ROUTE), this.server.getNodes());
+        assertEquals("ENABLED", this.server.getStatus(JVM_ROUTE, "localhost", "/app"));
+
+        this.status(50);
+
+        assertEquals(50, this.server.getLoad(JVM_ROUTE));
+
+        Map<String, Set<ResetRequestSource.VirtualHost>> info = this.info();
+        ResetRequestSource.VirtualHost host = info.get(JVM_ROUTE).iterator().next();
+
+        assertTrue(host.getAliases().containsAll(Arrays.asList("localhost", "example.com")));
+        assertEquals(ResetRequestSource.Status.ENABLED, host.getContexts().get("/app"));
+
+        String dump = this.handler.sendRequest(this.requestFactory.createDumpRequest()).values().iterator().next();
+
+        assertTrue(dump.contains("JVMRoute: " + JVM_ROUTE), dump);
+        assertTrue(dump.contains("context: 1 [/app] vhost: 1 node: 1 status: 1"), dump);
+
+        this.handler.sendRequest(new DefaultMCMPRequest(MCMPRequestType.REMOVE_APP, true, JVM_ROUTE, Collections.<String, String>emptyMap()));
+
+        assertTrue(this.server.getNodes().isEmpty());
+        // Pooled connection was reused throughout
+        assertEquals(1, this.server.getConnectionCount());
+    }
+
+    @Test
+    void connectionReset() {
+        this.register();
+
+        this.server.inject("STATUS", MockMCMPServer.Fault.RESET);
+
+        // Failed request is retried transparently using a fresh connection
+        this.status(10);
+
+        assertEquals(MCMPServerState.State.OK, this.getState());
+        assertEquals(10, this.server.getLoad(JVM_ROUTE));
+        assertEquals(2, this.server.getConnectionCount());
+    }
+
+    @Test
+    void connectionClose() {
+        this.server.setClose(true);
+
+        this.register();
+        this.status(20);
+
+        assertEquals(MCMPServerState.State.OK, this.getState());
+        assertEquals(20, this.server.getLoad(JVM_ROUTE));
+        assertEquals(ResetRequestSource.Status.ENABLED, this.info().get(JVM_ROUTE).iterator().next().getContexts().get("/app"));
+    }
+
+    @Test
+    void chunked() {
+        this.server.setChunked(true);
+
+        this.register();
+        this.status(30);
+
+        assertEquals(MCMPServerState.State.OK, this.getState());
+        assertEquals(30, this.server.getLoad(JVM_ROUTE));
+        assertEquals(ResetRequestSource.Status.ENABLED, this.info().get(JVM_ROUTE).iterator().next().getContexts().get("/app"));
+    }
+
+    @Test
+    void latency() {
+        this.server.setLatency(100);
+
+        this.register();
+        this.status(40);
+
+        assertEquals(MCMPServerState.State.OK, this.getState());
+        assertEquals(40, this.server.getLoad(JVM_ROUTE));
+    }
+
+    @Test
+    void memError() {
+        this.register();
+
+        this.server.inject("STATUS", MockMCMPServer.Fault.MEM);
+
+        this.status(10);
+
+        assertEquals(MCMPServerState.State.ERROR, this.getState());
+
+        // Requests are not sent to a proxy in error
+        this.status(20);
+
+        assertNotEquals(20, this.server.getLoad(JVM_ROUTE));
+
+        // Reset re-registers the node
+        clearInvocations(this.source);
+        when(this.source.getResetRequests(any())).thenReturn(Arrays.asList(this.createConfigRequest(), this.createEnableRequest()));
+
+        this.handler.status();
+
+        assertEquals(MCMPServerState.State.OK, this.getState());
+        verify(this.source).getResetRequests(any());
+
+        this.status(30);
+
+        assertEquals(30, this.server.getLoad(JVM_ROUTE));
+    }
+
+    @Test
+    void syntaxError() {
+        this.register();
+
+        this.server.inject("STATUS", MockMCMPServer.Fault.SYNTAX);
+
+        this.status(10);
+
+        assertEquals(MCMPServerState.State.DOWN, this.getState());
+
+        // A proxy that is down is not recovered by the periodic status check
+        this.handler.status();
+
+        assertEquals(MCMPServerState.State.DOWN, this.getState());
+
+        this.handler.reset();
+        this.handler.status();
+
+        assertEquals(MCMPServerState.State.OK, this.getState());
+    }
+
+    @Test
+    void hostNameChange() throws Exception {
+        // Configured by host name, but with an address on which the proxy does not listen, as if its DNS record changed
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getByAddress("localhost", InetAddress.getByName("::1").getAddress()), this.server.getAddress().getPort());
+        this.config.setProxyRetryInitialDelay(10);
+        this.config.setProxyRetryMaxDelay(10);
+        MCMPHandler handler = this.createHandler();
+
+        try {
+            handler.init(Collections.singletonList(new ProxyConfigurationImpl(address)), mock(MCMPConnectionListener.class));
+
+            handler.status();
+            MCMPServerState state = handler.getProxyStates().iterator().next();
+
+            for (int i = 0; (i < 100) && (state.getState() != MCMPServerState.State.OK); ++i) {
+                Thread.sleep(50);
+                handler.status();
+            }
+
+            // Connected via the re-resolved address, but still identified by its configured address
+            assertEquals(MCMPServerState.State.OK, state.getState());
+            assertEquals(address, state.getSocketAddress());
+            assertEquals(Collections.singleton(state), handler.getProxyStates());
+
+            handler.removeProxy(address);
+            handler.status();
+
+            assertTrue(handler.getProxyStates().isEmpty());
+        } finally {
+            handler.shutdown();
+        }
+    }
+
+    @Test
+    void statusTimeout() throws Exception {
+        try (MockMCMPServer slowServer = new MockMCMPServer()) {
+            this.handler.addProxy(new ProxyConfigurationImpl(slowServer.getAddress()));
+            this.handler.status();
+            this.register();
+
+            // Put the slow proxy in error, such that the next status check resets it
+            slowServer.inject("STATUS", MockMCMPServer.Fault.MEM);
+            this.status(10);
+
+            assertEquals(MCMPServerState.State.ERROR, this.getState(slowServer.getAddress()));
+
+            this.config.setStatusTimeout(300);
+            slowServer.setLatency(2000);
+
+            // Status check exhausts its budget waiting for the slow proxy
+            this.handler.status();
+            this.status(20);
+
+            // Which must not starve the STATUS request to the healthy proxy
+            assertEquals(MCMPServerState.State.OK, this.getState(this.server.getAddress()));
+            assertEquals(20, this.server.getLoad(JVM_ROUTE));
+            assertEquals(MCMPServerState.State.ERROR, this.getState(slowServer.getAddress()));
+        }
+    }
+
+    @Test
+    void blockingReset() throws Exception {
+        this.register();
+
+        this.server.inject("STATUS", MockMCMPServer.Fault.MEM);
+        this.status(10);
+
+        assertEquals(MCMPServerState.State.ERROR, this.getState());
+
+        // Reset requests are determined by a callback that itself waits for a response from the proxy
+        when(this.source.getResetRequests(any())).then(invocation -> {
+            assertNotNull(this.handler.sendRequest(this.requestFactory.createDumpRequest()).values().iterator().next());
+            return Arrays.asList(this.createConfigRequest(), this.createEnableRequest());
+        });
+
+        this.handler.statusAsync().get(10, TimeUnit.SECONDS);
+
+        assertEquals(MCMPServerState.State.OK, this.getState());
+        assertEquals("ENABLED", this.server.getStatus(JVM_ROUTE, "localhost", "/app"));
+    }
+
+    void register() {
+        this.handler.sendRequest(this.createConfigRequest());
+        this.handler.sendRequest(this.createEnableRequest());
+    }
+
+    void status(int load) {
+        this.handler.sendRequest(new DefaultMCMPRequest(MCMPRequestType.STATUS, false, JVM_ROUTE, Collections.singletonMap("Load", Integer.toString(load))));
+    }
+
+    Map<String, Set<ResetRequestSource.VirtualHost>> info() {
+        return this.responseParser.parseInfoResponse(this.handler.sendRequest(this.requestFactory.createInfoRequest()).values().iterator().next());
+    }
+
+    MCMPServerState.State getState() {
+        return this.handler.getProxyStates().iterator().next().getState();
+    }
+
+    MCMPServerState.State getState(InetSocketAddress address) {
+        for (MCMPServerState state : this.handler.getProxyStates()) {
+            if (state.getSocketAddress().equals(address)) {
+                return state.getState();
+            }
+        }
+        return null;
+    }
+
+    MCMPRequest createConfigRequest() {
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("Balancer", "mycluster");
+        parameters.put("Host", "127.0.0.1");
+        parameters.put("Port", "8009");
+        parameters.put("Type", "ajp");
+        return new DefaultMCMPRequest(MCMPRequestType.CONFIG, false, JVM_ROUTE, parameters);
+    }
+
+    MCMPRequest createEnableRequest() {
+        return this.createEnableRequest("/app");
+    }
+
+    MCMPRequest createEnableRequest(String context) {
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("Alias", "localhost,example.com");
+        parameters.put("Context", context);
+        return new DefaultMCMPRequest(MCMPRequestType.ENABLE_APP, false, JVM_ROUTE, parameters);
+    }
+}
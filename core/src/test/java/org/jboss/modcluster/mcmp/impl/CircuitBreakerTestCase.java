@@ -0,0 +1,66 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.mcmp.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTestCase {
+
+    @Test
+    void disabled() {
+        CircuitBreaker breaker = new CircuitBreaker(0, 300000);
+
+        assertTrue(breaker.allowProbe());
+        breaker.failure();
+        assertEquals(1, breaker.getConsecutiveFailures());
+        assertEquals(0, breaker.getNextRetryTime());
+        assertTrue(breaker.allowProbe());
+    }
+
+    @Test
+    void backoff() {
+        CircuitBreaker breaker = new CircuitBreaker(60000, 300000);
+
+        assertTrue(breaker.allowProbe());
+        // Only a single probe while half-open
+        assertFalse(breaker.allowProbe());
+
+        long before = System.currentTimeMillis();
+        breaker.failure();
+
+        assertEquals(1, breaker.getConsecutiveFailures());
+        assertEquals(1, breaker.getTotalFailures());
+        long nextRetryTime = breaker.getNextRetryTime();
+        assertTrue(nextRetryTime >= before + 29000, Long.toString(nextRetryTime - before));
+        assertTrue(nextRetryTime <= System.currentTimeMillis() + 60000, Long.toString(nextRetryTime - before));
+        assertFalse(breaker.allowProbe());
+
+        breaker.reset();
+
+        assertEquals(0, breaker.getConsecutiveFailures());
+        assertEquals(1, breaker.getTotalFailures());
+        assertEquals(0, breaker.getNextRetryTime());
+        assertTrue(breaker.allowProbe());
+
+        breaker.success();
+
+        assertEquals(0, breaker.getConsecutiveFailures());
+        assertTrue(breaker.allowProbe());
+    }
+
+    @Test
+    void maxDelay() {
+        CircuitBreaker breaker = new CircuitBreaker(1000, 5000);
+
+        for (int i = 0; i < 100; ++i) {
+            breaker.failure();
+        }
+
+        assertEquals(100, breaker.getConsecutiveFailures());
+        assertTrue(breaker.getNextRetryTime() <= System.currentTimeMillis() + 5000);
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.mcmp.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jboss.modcluster.config.impl.ProxyConfigurationImpl;
+import org.jboss.modcluster.mcmp.MCMPConnectionListener;
+import org.jboss.modcluster.mcmp.MCMPHandler;
+import org.jboss.modcluster.mcmp.MCMPRequest;
+import org.jboss.modcluster.mcmp.MCMPRequestType;
+import org.jboss.modcluster.mcmp.MCMPServerState;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Exercises the transport of {@link DefaultMCMPHandler} over real sockets against a {@link MockMCMPServer}.
+ */
+class DefaultMCMPHandlerTestCase extends AbstractMCMPHandlerTestCase {
+    private static final List<String> CONTEXTS = Arrays.asList("/app", "/app2", "/app3", "/app4", "/app5", "/app6");
+
+    @Override
+    MCMPHandler createHandler() {
+        return new DefaultMCMPHandler(this.config, this.source, this.requestFactory, this.responseParser);
+    }
+
+    @Test
+    void connectionWait() throws Exception {
+        this.config.setSocketTimeout(1000);
+        MCMPHandler handler = this.createHandler();
+
+        try {
+            handler.init(Collections.singletonList(new ProxyConfigurationImpl(this.server.getAddress())), mock(MCMPConnectionListener.class));
+            handler.status();
+
+            // Holds the only connection for two read timeouts, i.e. the request and its retry
+            this.server.setLatency(3000);
+            Thread holder = new Thread(() -> handler.sendRequest(this.requestFactory.createDumpRequest()));
+            holder.start();
+            Thread.sleep(100);
+
+            // Waiting for the connection is interruptible
+            Thread interrupted = new Thread(() -> handler.sendRequest(this.requestFactory.createDumpRequest()));
+            interrupted.start();
+            Thread.sleep(100);
+            interrupted.interrupt();
+            interrupted.join(500);
+
+            assertFalse(interrupted.isAlive());
+
+            // And bounded by the socket timeout
+            long start = System.nanoTime();
+            handler.sendRequest(this.requestFactory.createDumpRequest());
+
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1500);
+            assertTrue(holder.isAlive());
+            assertEquals(MCMPServerState.State.ERROR, handler.getProxyStates().iterator().next().getState());
+
+            holder.join();
+        } finally {
+            handler.shutdown();
+        }
+    }
+
+    @Test
+    void concurrentDispatch() throws Exception {
+        this.config.setConcurrentDispatch(true);
+        this.config.setConcurrentDispatchTimeout(500);
+
+        try (MockMCMPServer slowServer = new MockMCMPServer()) {
+            this.handler.addProxy(new ProxyConfigurationImpl(slowServer.getAddress()));
+            this.handler.status();
+            this.register();
+
+            slowServer.setLatency(2000);
+
+            long start = System.nanoTime();
+            Map<MCMPServerState, String> results = this.handler.sendRequest(this.requestFactory.createDumpRequest());
+
+            // The healthy proxy is not held up by the slow proxy, which is awaited no longer than the timeout
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1500);
+            assertEquals(2, results.size());
+            assertNotNull(this.getResult(results, this.server.getAddress()));
+            assertNull(this.getResult(results, slowServer.getAddress()));
+        }
+    }
+
+    @Test
+    void pipelinedReset() {
+        this.config.setResetRequestPipelineWindow(4);
+
+        this.reset();
+
+        assertEquals(MCMPServerState.State.OK, this.getState());
+        for (String context : CONTEXTS) {
+            assertEquals("ENABLED", this.server.getStatus(JVM_ROUTE, "localhost", context));
+        }
+        // Reset requests were written without waiting for the response to the previous one
+        assertTrue(this.server.getPipelinedCount() > 0);
+    }
+
+    @Test
+    void pipelinedResetConnectionClose() {
+        this.config.setResetRequestPipelineWindow(4);
+        this.server.inject("ENABLE-APP", MockMCMPServer.Fault.CLOSE);
+
+        this.reset();
+
+        // Requests whose responses were lost along with the connection are sent again, one at a time
+        assertEquals(MCMPServerState.State.OK, this.getState());
+        for (String context : CONTEXTS) {
+            assertEquals("ENABLED", this.server.getStatus(JVM_ROUTE, "localhost", context));
+        }
+        assertTrue(this.server.getCommands().stream().filter("ENABLE-APP"::equals).count() > CONTEXTS.size());
+    }
+
+    @Test
+    void connectionPool() throws Exception {
+        this.config.setProxyConnectionPoolSize(3);
+        int connections = this.server.getConnectionCount();
+        this.restart();
+
+        this.server.setLatency("DUMP", 500);
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; ++i) {
+            threads.add(new Thread(() -> this.handler.sendRequest(this.requestFactory.createDumpRequest())));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Concurrent requests open up to the pool size, and the excess request waits for a pooled connection
+        assertEquals(3, this.server.getConnectionCount() - connections);
+        assertEquals(MCMPServerState.State.OK, this.getState());
+    }
+
+    @Test
+    void dedicatedHeartbeatConnection() throws Exception {
+        this.config.setDedicatedHeartbeatConnection(true);
+        this.restart();
+        this.register();
+
+        this.server.setLatency("DUMP", 2000);
+        Thread dump = new Thread(() -> this.handler.sendRequest(this.requestFactory.createDumpRequest()));
+        dump.start();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!this.server.getCommands().contains("DUMP")) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+
+        long start = System.nanoTime();
+        this.status(60);
+
+        // The heartbeat is not stuck behind the slow request
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertEquals(60, this.server.getLoad(JVM_ROUTE));
+        assertTrue(dump.isAlive());
+
+        dump.join();
+        assertEquals(MCMPServerState.State.OK, this.getState());
+    }
+
+    @Test
+    void proxyChurn() throws Exception {
+        this.register();
+
+        try (MockMCMPServer otherServer = new MockMCMPServer()) {
+            InetSocketAddress otherAddress = otherServer.getAddress();
+            AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+            AtomicBoolean done = new AtomicBoolean();
+
+            Thread churn = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 50; ++i) {
+                        this.handler.addProxy(new ProxyConfigurationImpl(otherAddress));
+                        this.handler.status();
+                        this.handler.removeProxy(otherAddress);
+                        this.handler.status();
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.set(true);
+                }
+            });
+            churn.start();
+
+            // Requests dispatched while proxies come and go always reach the proxy that stays
+            int requests = 0;
+            while (!done.get() && (failure.get() == null)) {
+                Map<MCMPServerState, String> results = this.handler.sendRequest(new DefaultMCMPRequest(MCMPRequestType.STATUS, false, JVM_ROUTE, Collections.singletonMap("Load", "70")));
+
+                assertNotNull(this.getResult(results, this.server.getAddress()));
+                requests += 1;
+            }
+            churn.join();
+
+            assertNull(failure.get());
+            assertTrue(requests > 0);
+
+            Set<MCMPServerState> states = this.handler.getProxyStates();
+            assertEquals(1, states.size());
+            MCMPServerState state = states.iterator().next();
+            assertEquals(this.server.getAddress(), state.getSocketAddress());
+            assertEquals(MCMPServerState.State.OK, state.getState());
+            assertEquals(70, this.server.getLoad(JVM_ROUTE));
+        }
+    }
+
+    @Test
+    void proxyChangeKeepsConnections() throws Exception {
+        this.register();
+        int connections = this.server.getConnectionCount();
+
+        try (MockMCMPServer otherServer = new MockMCMPServer()) {
+            InetSocketAddress otherAddress = otherServer.getAddress();
+
+            // Adding a proxy only connects to that proxy
+            this.handler.addProxy(new ProxyConfigurationImpl(otherAddress));
+            this.handler.status();
+            this.register();
+            this.status(80);
+
+            assertEquals(connections, this.server.getConnectionCount());
+            assertEquals(1, otherServer.getConnectionCount());
+            assertEquals(1, otherServer.getOpenConnectionCount());
+
+            // Removing a proxy only disconnects from that proxy
+            this.handler.removeProxy(otherAddress);
+            this.handler.status();
+            this.status(90);
+
+            assertEquals(connections, this.server.getConnectionCount());
+            assertEquals(90, this.server.getLoad(JVM_ROUTE));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (otherServer.getOpenConnectionCount() > 0) {
+                assertTrue(System.nanoTime() < deadline);
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    /**
+     * Replaces the handler with one using the current configuration.
+     */
+    private void restart() {
+        this.handler.shutdown();
+        this.handler = this.createHandler();
+        this.handler.init(Collections.singletonList(new ProxyConfigurationImpl(this.server.getAddress())), mock(MCMPConnectionListener.class));
+        this.handler.status();
+
+        assertEquals(MCMPServerState.State.OK, this.getState());
+    }
+
+    /**
+     * Puts the proxy in error, then resets it with a CONFIG request followed by an ENABLE-APP request per context.
+     */
+    private void reset() {
+        this.register();
+
+        this.server.inject("STATUS", MockMCMPServer.Fault.MEM);
+        this.status(10);
+
+        assertEquals(MCMPServerState.State.ERROR, this.getState());
+
+        List<MCMPRequest> requests = new ArrayList<MCMPRequest>();
+        requests.add(this.createConfigRequest());
+        for (String context : CONTEXTS) {
+            requests.add(this.createEnableRequest(context));
+        }
+        when(this.source.getResetRequests(any())).thenReturn(requests);
+        this.server.setLatency(20);
+
+        this.handler.status();
+    }
+
+    private <T> T getResult(Map<MCMPServerState, T> results, InetSocketAddress address) {
+        for (Map.Entry<MCMPServerState, T> entry : results.entrySet()) {
+            if (entry.getKey().getSocketAddress().equals(address)) {
+                return entry.getValue();
+            }
+        }
+        throw new AssertionError(address);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.mcmp.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTestCase {
+
+    @Test
+    void empty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int i = 1; i <= 1000; ++i) {
+            histogram.record(i * 1000L);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquivalent(500000, histogram.getValueAtPercentile(50));
+        assertEquivalent(990000, histogram.getValueAtPercentile(99));
+        assertEquals(1000000, histogram.getValueAtPercentile(100));
+        assertEquivalent(1000, histogram.getValueAtPercentile(0));
+    }
+
+    @Test
+    void bounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        histogram.record(-1);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(LatencyHistogram.MAX_VALUE, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void buckets() {
+        for (long value = 0; value < 100000; ++value) {
+            int index = LatencyHistogram.index(value);
+
+            assertTrue(LatencyHistogram.highestValue(index) >= value);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.highestValue(index - 1) < value);
+            }
+        }
+    }
+
+    private static void assertEquivalent(long expected, long actual) {
+        assertTrue((actual >= expected) && (actual <= expected + expected / LatencyHistogram.SUB_BUCKETS), Long.toString(actual));
+    }
+}
@@ -0,0 +1,600 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.mcmp.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-JVM stand-in for the MCMP handler of mod_proxy_cluster, which keeps the node, virtual host and context state of a balancer
+ * and answers MCMP requests with the status lines, headers and bodies that httpd would send. Latency, connection resets,
+ * closed connections, chunked responses and SYNTAX or MEM errors can be injected, to exercise the transport and the recovery
+ * of an MCMP handler without a real httpd.
+ */
+public class MockMCMPServer implements Closeable {
+
+    public enum Fault {
+        /** Resets the connection instead of responding. */
+        RESET,
+        /** Responds, then closes the connection. */
+        CLOSE,
+        /** Responds with a SYNTAX error, from which a proxy does not recover on its own. */
+        SYNTAX,
+        /** Responds with a MEM error, which marks a proxy in error until it is reset. */
+        MEM,
+    }
+
+    private final ServerSocket server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, MockMCMPServer.class.getSimpleName());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, Queue<Fault>> faults = new ConcurrentHashMap<>();
+    private final List<String> commands = new CopyOnWriteArrayList<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger pipelined = new AtomicInteger();
+    private final ConcurrentMap<String, Long> latencies = new ConcurrentHashMap<>();
+
+    private volatile long latency = 0;
+    private volatile boolean chunked = false;
+    private volatile boolean close = false;
+
+    // Balancer state, guarded by this
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+    private int nextNodeId = 1;
+    private int nextHostId = 1;
+    private int nextContextId = 1;
+
+    public MockMCMPServer() throws IOException {
+        this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        this.executor.execute(this::accept);
+    }
+
+    /**
+     * Returns the address on which this server listens.
+     */
+    public InetSocketAddress getAddress() {
+        return new InetSocketAddress(this.server.getInetAddress(), this.server.getLocalPort());
+    }
+
+    /**
+     * Delays every response by the specified number of milliseconds.
+     */
+    public void setLatency(long latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Delays responses to the specified command by the specified number of milliseconds, instead of the latency of every response.
+     */
+    public void setLatency(String command, long latency) {
+        this.latencies.put(command, latency);
+    }
+
+    /**
+     * Sends every response using the chunked transfer encoding.
+     */
+    public void setChunked(boolean chunked) {
+        this.chunked = chunked;
+    }
+
+    /**
+     * Closes the connection after every response, whose body then extends to the end of the stream.
+     */
+    public void setClose(boolean close) {
+        this.close = close;
+    }
+
+    /**
+     * Injects the specified fault into the handling of the next request of the specified command, e.g. "STATUS".
+     */
+    public void inject(String command, Fault fault) {
+        this.faults.computeIfAbsent(command, key -> new ConcurrentLinkedQueue<>()).add(fault);
+    }
+
+    /**
+     * Returns the commands received so far, in order.
+     */
+    public List<String> getCommands() {
+        return new ArrayList<>(this.commands);
+    }
+
+    /**
+     * Returns the number of connections accepted so far.
+     */
+    public int getConnectionCount() {
+        return this.connections.get();
+    }
+
+    /**
+     * Returns the number of accepted connections that were not yet closed.
+     */
+    public int getOpenConnectionCount() {
+        return this.sockets.size();
+    }
+
+    /**
+     * Returns the number of requests that were followed by the next request on their connection before being responded to.
+     */
+    public int getPipelinedCount() {
+        return this.pipelined.get();
+    }
+
+    /**
+     * Returns the jvm routes of the configured nodes.
+     */
+    public synchronized Set<String> getNodes() {
+        return new LinkedHashSet<>(this.nodes.keySet());
+    }
+
+    /**
+     * Returns the load last reported for the specified node, or null if the node is not configured.
+     */
+    public synchronized Integer getLoad(String jvmRoute) {
+        Node node = this.nodes.get(jvmRoute);
+        return (node != null) ? node.load : null;
+    }
+
+    /**
+     * Returns the status of the specified context, i.e. ENABLED, DISABLED or STOPPED, or null if it is not registered.
+     */
+    public synchronized String getStatus(String jvmRoute, String alias, String path) {
+        Node node = this.nodes.get(jvmRoute);
+        if (node != null) {
+            for (VirtualHost host : node.hosts) {
+                if (host.aliases.contains(alias)) {
+                    Context context = host.contexts.get(path);
+                    return (context != null) ? context.status : null;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.server.close();
+        for (Socket socket : this.sockets) {
+            socket.close();
+        }
+        this.executor.shutdownNow();
+        try {
+            this.executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void accept() {
+        while (!this.server.isClosed()) {
+            try {
+                Socket socket = this.server.accept();
+                this.connections.incrementAndGet();
+                this.sockets.add(socket);
+                this.executor.execute(() -> this.serve(socket));
+            } catch (IOException e) {
+                // Server was closed
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try {
+            InputStream input = new BufferedInputStream(socket.getInputStream());
+            OutputStream output = new BufferedOutputStream(socket.getOutputStream());
+
+            while (true) {
+                String requestLine = readLine(input);
+
+                if (requestLine == null) {
+                    return;
+                }
+                if (requestLine.isEmpty()) {
+                    continue;
+                }
+
+                String[] parts = requestLine.split(" ");
+                String command = parts[0];
+                boolean wildcard = (parts.length > 1) && parts[1].endsWith("*");
+                int contentLength = 0;
+
+                for (String header = readLine(input); (header != null) && !header.isEmpty(); header = readLine(input)) {
+                    int colon = header.indexOf(':');
+                    if ((colon > 0) && header.substring(0, colon).trim().equalsIgnoreCase("Content-Length")) {
+                        contentLength = Integer.parseInt(header.substring(colon + 1).trim());
+                    }
+                }
+
+                byte[] body = new byte[contentLength];
+                for (int offset = 0; offset < contentLength;) {
+                    int read = input.read(body, offset, contentLength - offset);
+                    if (read < 0) {
+                        throw new EOFException();
+                    }
+                    offset += read;
+                }
+
+                this.commands.add(command);
+
+                Queue<Fault> faults = this.faults.get(command);
+                Fault fault = (faults != null) ? faults.poll() : null;
+
+                long latency = this.latencies.getOrDefault(command, this.latency);
+                if (latency > 0) {
+                    Thread.sleep(latency);
+                }
+
+                if (input.available() > 0) {
+                    // Client did not wait for this response before sending its next request
+                    this.pipelined.incrementAndGet();
+                }
+
+                if (fault == Fault.RESET) {
+                    // Closing with a zero linger timeout sends a RST
+                    socket.setSoLinger(true, 0);
+                    return;
+                }
+
+                Response response;
+
+                if (fault == Fault.SYNTAX) {
+                    response = Response.error("SYNTAX", "SYNTAX: Injected fault");
+                } else if (fault == Fault.MEM) {
+                    response = Response.error("MEM", "MEM: Injected fault");
+                } else {
+                    response = this.process(command, wildcard, parse(new String(body, StandardCharsets.US_ASCII)));
+                }
+
+                boolean close = this.close || (fault == Fault.CLOSE);
+
+                response.writeTo(output, close, this.chunked);
+                output.flush();
+
+                if (close) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // Connection was closed
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.sockets.remove(socket);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+
+    private synchronized Response process(String command, boolean wildcard, Map<String, String> parameters) {
+        String jvmRoute = parameters.get("JVMRoute");
+
+        switch (command) {
+            case "CONFIG": {
+                if (jvmRoute == null) {
+                    return Response.error("SYNTAX", "SYNTAX: Mandatory field missing: JVMRoute");
+                }
+                Node node = this.nodes.get(jvmRoute);
+                if (node == null) {
+                    node = new Node(this.nextNodeId++, jvmRoute);
+                    this.nodes.put(jvmRoute, node);
+                }
+                node.parameters.putAll(parameters);
+                return Response.ok("");
+            }
+            case "ENABLE-APP":
+            case "DISABLE-APP":
+            case "STOP-APP": {
+                Node node = this.nodes.get(jvmRoute);
+                if (node == null) {
+                    return Response.error("MEM", String.format("MEM: Can't read node with \"%s\" JVMRoute", jvmRoute));
+                }
+                String status = command.equals("ENABLE-APP") ? "ENABLED" : command.equals("DISABLE-APP") ? "DISABLED" : "STOPPED";
+                if (wildcard) {
+                    for (VirtualHost host : node.hosts) {
+                        for (Context context : host.contexts.values()) {
+                            context.status = status;
+                        }
+                    }
+                } else {
+                    String alias = parameters.get("Alias");
+                    String path = parameters.get("Context");
+                    if ((alias == null) || (path == null)) {
+                        return Response.error("SYNTAX", "SYNTAX: Mandatory field missing: Alias or Context");
+                    }
+                    VirtualHost host = this.findHost(node, alias, true);
+                    Context context = host.contexts.get(path);
+                    if (context == null) {
+                        context = new Context(this.nextContextId++);
+                        host.contexts.put(path, context);
+                    }
+                    context.status = status;
+                }
+                if (command.equals("STOP-APP")) {
+                    return Response.ok(String.format("Type=STOP-APP-RSP&JvmRoute=%s&Alias=%s&Context=%s&Requests=0", jvmRoute, parameters.getOrDefault("Alias", ""), parameters.getOrDefault("Context", "")));
+                }
+                return Response.ok("");
+            }
+            case "REMOVE-APP": {
+                Node node = this.nodes.get(jvmRoute);
+                if (node == null) {
+                    return Response.error("MEM", String.format("MEM: Can't read node with \"%s\" JVMRoute", jvmRoute));
+                }
+                if (wildcard) {
+                    this.nodes.remove(jvmRoute);
+                } else {
+                    String alias = parameters.get("Alias");
+                    VirtualHost host = (alias != null) ? this.findHost(node, alias, false) : null;
+                    if (host != null) {
+                        host.contexts.remove(parameters.get("Context"));
+                        if (host.contexts.isEmpty()) {
+                            node.hosts.remove(host);
+                        }
+                    }
+                }
+                return Response.ok("");
+            }
+            case "STATUS": {
+                Node node = this.nodes.get(jvmRoute);
+                if (node == null) {
+                    return Response.error("MEM", String.format("MEM: Can't read node with \"%s\" JVMRoute", jvmRoute));
+                }
+                String load = parameters.get("Load");
+                node.load = (load != null) ? Integer.parseInt(load) : 0;
+                return Response.ok(String.format("Type=STATUS-RSP&JVMRoute=%s&State=OK&id=%d", jvmRoute, node.id));
+            }
+            case "PING": {
+                if ((jvmRoute != null) && !this.nodes.containsKey(jvmRoute)) {
+                    return Response.ok(String.format("Type=PING-RSP&JVMRoute=%s&State=NOTOK&id=0", jvmRoute));
+                }
+                return Response.ok((jvmRoute != null) ? String.format("Type=PING-RSP&JVMRoute=%s&State=OK&id=%d", jvmRoute, this.nodes.get(jvmRoute).id) : "Type=PING-RSP&State=OK&id=1");
+            }
+            case "INFO": {
+                return Response.ok(this.info());
+            }
+            case "DUMP": {
+                return Response.ok(this.dump());
+            }
+            default: {
+                return Response.error("SYNTAX", "SYNTAX: Command is not supported");
+            }
+        }
+    }
+
+    private VirtualHost findHost(Node node, String alias, boolean create) {
+        Set<String> aliases = new LinkedHashSet<>(Arrays.asList(alias.toLowerCase(Locale.ENGLISH).split(",")));
+        for (VirtualHost host : node.hosts) {
+            if (!Collections.disjoint(host.aliases, aliases)) {
+                host.aliases.addAll(aliases);
+                return host;
+            }
+        }
+        if (!create) {
+            return null;
+        }
+        VirtualHost host = new VirtualHost(this.nextHostId++, aliases);
+        node.hosts.add(host);
+        return host;
+    }
+
+    private String info() {
+        StringBuilder builder = new StringBuilder();
+        for (Node node : this.nodes.values()) {
+            builder.append(String.format("Node: [%d],Name: %s,Balancer: %s,LBGroup: %s,Host: %s,Port: %s,Type: %s,Flushpackets: Off,Flushwait: 10,Ping: 10,Smax: 1,Ttl: 60,Elected: 0,Read: 0,Transfered: 0,Connected: 0,Load: %d\n",
+                    node.id, node.jvmRoute, node.parameters.getOrDefault("Balancer", "mycluster"), node.parameters.getOrDefault("Domain", ""), node.parameters.getOrDefault("Host", "localhost"), node.parameters.getOrDefault("Port", "8009"), node.parameters.getOrDefault("Type", "ajp"), node.load));
+        }
+        for (Node node : this.nodes.values()) {
+            for (VirtualHost host : node.hosts) {
+                int index = 1;
+                for (String alias : host.aliases) {
+                    builder.append(String.format("Vhost: [%d:%d:%d], Alias: %s\n", node.id, host.id, index++, alias));
+                }
+            }
+        }
+        for (Node node : this.nodes.values()) {
+            for (VirtualHost host : node.hosts) {
+                for (Map.Entry<String, Context> entry : host.contexts.entrySet()) {
+                    builder.append(String.format("Context: [%d:%d:%d], Context: %s, Status: %s\n", node.id, host.id, entry.getValue().id, entry.getKey(), entry.getValue().status));
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    private String dump() {
+        StringBuilder builder = new StringBuilder();
+        Set<String> balancers = new LinkedHashSet<>();
+        for (Node node : this.nodes.values()) {
+            balancers.add(node.parameters.getOrDefault("Balancer", "mycluster"));
+        }
+        int balancerId = 1;
+        for (String balancer : balancers) {
+            builder.append(String.format("balancer: [%d] Name: %s Sticky: 1 [JSESSIONID]/[jsessionid] remove: 0 force: 0 Timeout: 0 maxAttempts: 1\n", balancerId++, balancer));
+        }
+        for (Node node : this.nodes.values()) {
+            builder.append(String.format("node: [%d:%d],Balancer: %s,JVMRoute: %s,LBGroup: [%s],Host: %s,Port: %s,Type: %s,flushpackets: 0,flushwait: 10,ping: 10,smax: 1,ttl: 60,timeout: 0\n",
+                    node.id, node.id, node.parameters.getOrDefault("Balancer", "mycluster"), node.jvmRoute, node.parameters.getOrDefault("Domain", ""), node.parameters.getOrDefault("Host", "localhost"), node.parameters.getOrDefault("Port", "8009"), node.parameters.getOrDefault("Type", "ajp")));
+        }
+        for (Node node : this.nodes.values()) {
+            for (VirtualHost host : node.hosts) {
+                for (String alias : host.aliases) {
+                    builder.append(String.format("host: %d [%s] vhost: %d node: %d\n", host.id, alias, host.id, node.id));
+                }
+            }
+        }
+        for (Node node : this.nodes.values()) {
+            for (VirtualHost host : node.hosts) {
+                for (Map.Entry<String, Context> entry : host.contexts.entrySet()) {
+                    String status = entry.getValue().status;
+                    int code = status.equals("ENABLED") ? 1 : status.equals("DISABLED") ? 2 : 3;
+                    builder.append(String.format("context: %d [%s] vhost: %d node: %d status: %d\n", entry.getValue().id, entry.getKey(), host.id, node.id, code));
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    private static Map<String, String> parse(String body) throws IOException {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        if (!body.isEmpty()) {
+            for (String parameter : body.split("&")) {
+                int index = parameter.indexOf('=');
+                String name = (index >= 0) ? parameter.substring(0, index) : parameter;
+                String value = (index >= 0) ? parameter.substring(index + 1) : "";
+                parameters.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Reads a line terminated by \n, without its terminator and any preceding \r.
+     *
+     * @return a line, or null at the end of the stream
+     */
+    private static String readLine(InputStream input) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b = input.read();
+        if (b < 0) {
+            return null;
+        }
+        while ((b >= 0) && (b != '\n')) {
+            line.write(b);
+            b = input.read();
+        }
+        String result = new String(line.toByteArray(), StandardCharsets.US_ASCII);
+        return result.endsWith("\r") ? result.substring(0, result.length() - 1) : result;
+    }
+
+    private static class Response {
+        final int status;
+        final String type;
+        final String message;
+        final String body;
+
+        static Response ok(String body) {
+            return new Response(200, null, null, body);
+        }
+
+        static Response error(String type, String message) {
+            return new Response(500, type, message, "");
+        }
+
+        private Response(int status, String type, String message, String body) {
+            this.status = status;
+            this.type = type;
+            this.message = message;
+            this.body = body;
+        }
+
+        void writeTo(OutputStream output, boolean close, boolean chunked) throws IOException {
+            StringBuilder headers = new StringBuilder();
+            headers.append("HTTP/1.1 ").append(this.status).append((this.status == 200) ? " OK" : " Internal Server Error").append("\r\n");
+            headers.append("Date: Thu, 01 Jan 2026 00:00:00 GMT\r\n");
+            headers.append("Server: Apache/2.4 (MockMCMPServer)\r\n");
+            if (this.type != null) {
+                headers.append("Version: 0.2.1\r\n");
+                headers.append("Type: ").append(this.type).append("\r\n");
+                headers.append("Mess: ").append(this.message).append("\r\n");
+            }
+            byte[] body = this.body.getBytes(StandardCharsets.UTF_8);
+            if (close) {
+                headers.append("Connection: close\r\n");
+            }
+            if (chunked) {
+                headers.append("Transfer-Encoding: chunked\r\n");
+            } else if (!close) {
+                headers.append("Content-Length: ").append(body.length).append("\r\n");
+            }
+            headers.append("Content-Type: text/plain\r\n\r\n");
+            output.write(headers.toString().getBytes(StandardCharsets.US_ASCII));
+
+            if (chunked) {
+                // Split the body in two chunks
+                int half = body.length / 2;
+                writeChunk(output, body, 0, half);
+                writeChunk(output, body, half, body.length - half);
+                output.write("0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            } else {
+                output.write(body);
+            }
+        }
+
+        private static void writeChunk(OutputStream output, byte[] body, int offset, int length) throws IOException {
+            if (length > 0) {
+                output.write((Integer.toHexString(length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                output.write(body, offset, length);
+                output.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+    }
+
+    private static class Node {
+        final int id;
+        final String jvmRoute;
+        final Map<String, String> parameters = new LinkedHashMap<>();
+        final List<VirtualHost> hosts = new ArrayList<>();
+        int load = -1;
+
+        Node(int id, String jvmRoute) {
+            this.id = id;
+            this.jvmRoute = jvmRoute;
+        }
+    }
+
+    private static class VirtualHost {
+        final int id;
+        final Set<String> aliases;
+        final Map<String, Context> contexts = new LinkedHashMap<>();
+
+        VirtualHost(int id, Set<String> aliases) {
+            this.id = id;
+            this.aliases = aliases;
+        }
+    }
+
+    private static class Context {
+        final int id;
+        String status;
+
+        Context(int id) {
+            this.id = id;
+        }
+    }
+}
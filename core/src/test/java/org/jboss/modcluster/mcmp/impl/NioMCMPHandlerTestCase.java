@@ -0,0 +1,18 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.mcmp.impl;
+
+import org.jboss.modcluster.mcmp.MCMPHandler;
+
+/**
+ * Exercises the transport of {@link NioMCMPHandler} over real sockets against a {@link MockMCMPServer}.
+ */
+class NioMCMPHandlerTestCase extends AbstractMCMPHandlerTestCase {
+
+    @Override
+    MCMPHandler createHandler() {
+        return new NioMCMPHandler(this.config, this.source, this.requestFactory, this.responseParser);
+    }
+}
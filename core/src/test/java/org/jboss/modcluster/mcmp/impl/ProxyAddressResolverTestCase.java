@@ -0,0 +1,88 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.mcmp.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ProxyAddressResolverTestCase {
+    private final AtomicReference<ExecutorService> executor = new AtomicReference<>();
+
+    @AfterEach
+    void destroy() {
+        DefaultMCMPHandler.shutdownExecutor(this.executor);
+    }
+
+    @Test
+    void isHostName() throws Exception {
+        assertFalse(ProxyAddressResolver.isHostName(new InetSocketAddress(InetAddress.getByAddress(new byte[] { 127, 0, 0, 1 }), 6666)));
+        assertTrue(ProxyAddressResolver.isHostName(new InetSocketAddress(InetAddress.getByAddress("localhost", new byte[] { 127, 0, 0, 1 }), 6666)));
+        assertTrue(ProxyAddressResolver.isHostName(InetSocketAddress.createUnresolved("localhost", 6666)));
+    }
+
+    @Test
+    void seeded() throws Exception {
+        InetAddress address = InetAddress.getByAddress("proxy.invalid", new byte[] { 127, 0, 0, 1 });
+        ProxyAddressResolver resolver = new ProxyAddressResolver(new InetSocketAddress(address, 6666), this.executor, 60, 10);
+
+        assertArrayEquals(new InetAddress[] { address }, resolver.getAddresses());
+        // Addresses resolved upon configuration are used until they expire
+        assertNull(this.executor.get());
+
+        // A failed lookup keeps the previously resolved addresses
+        resolver.resolve();
+
+        assertArrayEquals(new InetAddress[] { address }, resolver.getAddresses());
+    }
+
+    @Test
+    void unresolved() throws Exception {
+        ProxyAddressResolver resolver = new ProxyAddressResolver(InetSocketAddress.createUnresolved("localhost", 6666), this.executor, 60, 10);
+
+        // Never blocks, but resolves in the background
+        InetAddress[] addresses = resolver.getAddresses();
+
+        for (int i = 0; (addresses.length == 0) && (i < 100); ++i) {
+            Thread.sleep(50);
+            addresses = resolver.getAddresses();
+        }
+
+        assertArrayEquals(InetAddress.getAllByName("localhost"), addresses);
+    }
+
+    @Test
+    void next() throws Exception {
+        ProxyAddressResolver resolver = new ProxyAddressResolver(InetSocketAddress.createUnresolved("localhost", 6666), this.executor, 60, 10);
+
+        assertNull(resolver.current(InetSocketAddress.createUnresolved("localhost", 6666)));
+        assertNull(resolver.next(InetSocketAddress.createUnresolved("localhost", 6666)));
+
+        resolver.resolve();
+
+        InetAddress[] addresses = resolver.getAddresses();
+        InetSocketAddress current = resolver.current(InetSocketAddress.createUnresolved("localhost", 6666));
+
+        assertEquals(new InetSocketAddress(addresses[0], 6666), current);
+        assertSame(current, resolver.current(current));
+
+        // Every address is tried in turn
+        for (int i = 1; i <= addresses.length; ++i) {
+            current = resolver.next(current);
+
+            assertEquals(6666, current.getPort());
+            assertEquals(addresses[i % addresses.length], current.getAddress());
+        }
+
+        assertTrue(Arrays.asList(addresses).contains(current.getAddress()));
+    }
+}
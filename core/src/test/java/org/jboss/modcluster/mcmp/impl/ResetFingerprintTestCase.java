@@ -0,0 +1,55 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.mcmp.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.modcluster.mcmp.MCMPRequest;
+import org.jboss.modcluster.mcmp.MCMPRequestType;
+import org.jboss.modcluster.mcmp.ResetRequestSource;
+import org.junit.jupiter.api.Test;
+
+class ResetFingerprintTestCase {
+
+    @Test
+    void equality() {
+        Object topology = Arrays.asList("route", "localhost", "/context", true);
+
+        ResetFingerprint fingerprint = ResetFingerprint.create(createResponse(ResetRequestSource.Status.ENABLED), topology);
+
+        assertEquals(fingerprint, ResetFingerprint.create(createResponse(ResetRequestSource.Status.ENABLED), Arrays.asList("route", "localhost", "/context", true)));
+        assertEquals(fingerprint.hashCode(), ResetFingerprint.create(createResponse(ResetRequestSource.Status.ENABLED), topology).hashCode());
+        assertNotEquals(fingerprint, ResetFingerprint.create(createResponse(ResetRequestSource.Status.DISABLED), topology));
+        assertNotEquals(fingerprint, ResetFingerprint.create(createResponse(ResetRequestSource.Status.ENABLED), Arrays.asList("route", "localhost", "/context", false)));
+
+        assertNull(ResetFingerprint.create(createResponse(ResetRequestSource.Status.ENABLED), null));
+    }
+
+    @Test
+    void isSynchronized() {
+        Map<String, Set<ResetRequestSource.VirtualHost>> response = createResponse(ResetRequestSource.Status.ENABLED);
+
+        assertTrue(ResetFingerprint.isSynchronized(response, Collections.<MCMPRequest>emptyList()));
+        assertTrue(ResetFingerprint.isSynchronized(response, Arrays.<MCMPRequest>asList(createRequest(MCMPRequestType.CONFIG, "route"))));
+        assertFalse(ResetFingerprint.isSynchronized(response, Arrays.<MCMPRequest>asList(createRequest(MCMPRequestType.CONFIG, "other"))));
+        assertFalse(ResetFingerprint.isSynchronized(response, Arrays.<MCMPRequest>asList(createRequest(MCMPRequestType.CONFIG, "route"), createRequest(MCMPRequestType.ENABLE_APP, "route"))));
+    }
+
+    private static Map<String, Set<ResetRequestSource.VirtualHost>> createResponse(ResetRequestSource.Status status) {
+        DefaultMCMPHandler.VirtualHostImpl host = new DefaultMCMPHandler.VirtualHostImpl();
+        host.getAliases().add("localhost");
+        host.getContexts().put("/context", status);
+        return Collections.<String, Set<ResetRequestSource.VirtualHost>>singletonMap("route", Collections.<ResetRequestSource.VirtualHost>singleton(host));
+    }
+
+    private static MCMPRequest createRequest(MCMPRequestType type, String jvmRoute) {
+        return new DefaultMCMPRequest(type, false, jvmRoute, Collections.<String, String>emptyMap());
+    }
+}
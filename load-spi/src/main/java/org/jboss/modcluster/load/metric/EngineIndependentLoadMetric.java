@@ -0,0 +1,14 @@
+/*
+ * Copyright The mod_cluster Project Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.modcluster.load.metric;
+
+import org.jboss.modcluster.container.Engine;
+
+/**
+ * Marks a load metric whose load does not depend on the {@link Engine} passed to {@link LoadMetric#getLoad(Engine)}, e.g. the
+ * load of the system or of the JVM. Its load is then determined once and shared by every engine of the server.
+ */
+public interface EngineIndependentLoadMetric extends LoadMetric {
+}